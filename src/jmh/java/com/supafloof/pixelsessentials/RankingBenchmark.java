@@ -0,0 +1,102 @@
+package com.supafloof.pixelsessentials;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JMH benchmarks for leaderboard rescans: getting the top 10 out of every player's
+ * value at 10k, 100k and 1M synthetic players.
+ *
+ * <ul>
+ *   <li><b>mapAndSort:</b> the approach before {@link PixelsEssentials.RankingScan},
+ *       boxing every value into a HashMap and sorting the full entry set</li>
+ *   <li><b>topK:</b> {@link PixelsEssentials.RankingScan} primitive arrays plus its
+ *       bounded heap, what the rescan publishes from</li>
+ *   <li><b>indexBuild:</b> building a {@link PixelsEssentials.RankingIndex} from the
+ *       scan, the rest of the rescan's cost</li>
+ * </ul>
+ *
+ * <p>Not part of the plugin jar. Run with the jmh profile:</p>
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec
+ * </pre>
+ *
+ * <p>Players and values are generated once per size with a fixed seed. Values are
+ * spread over many orders of magnitude, like real balances.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class RankingBenchmark {
+
+    /** Places kept, as on a sign wall */
+    private static final int K = 10;
+
+    /** Synthetic players per run */
+    @Param({"10000", "100000", "1000000"})
+    public int players;
+
+    private UUID[] uuids;
+    private double[] values;
+
+    @Setup
+    public void generate() {
+        Random random = new Random(42);
+        uuids = new UUID[players];
+        values = new double[players];
+        for (int i = 0; i < players; i++) {
+            uuids[i] = new UUID(random.nextLong(), random.nextLong());
+            values[i] = Math.floor(Math.exp(random.nextDouble() * 25));
+        }
+    }
+
+    @Benchmark
+    public void mapAndSort(Blackhole blackhole) {
+        Map<UUID, Double> map = new HashMap<>();
+        for (int i = 0; i < players; i++) {
+            map.put(uuids[i], values[i]);
+        }
+        blackhole.consume(map.entrySet().stream()
+            .sorted(Map.Entry.<UUID, Double>comparingByValue().reversed())
+            .limit(K)
+            .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public void topK(Blackhole blackhole) {
+        blackhole.consume(scan().topK(K));
+    }
+
+    @Benchmark
+    public void indexBuild(Blackhole blackhole) {
+        blackhole.consume(PixelsEssentials.RankingIndex.of(scan()).snapshot(K));
+    }
+
+    /**
+     * Collects every player the way a rescan does.
+     */
+    private PixelsEssentials.RankingScan scan() {
+        PixelsEssentials.RankingScan scan = new PixelsEssentials.RankingScan(players);
+        for (int i = 0; i < players; i++) {
+            scan.add(uuids[i], values[i]);
+        }
+        return scan;
+    }
+}
@@ -6,12 +6,15 @@ import net.kyori.adventure.text.format.TextDecoration;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Chunk;
 import org.bukkit.Keyed;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.Statistic;
 import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
 import org.bukkit.block.Sign;
 import org.bukkit.block.sign.Side;
 import org.bukkit.command.Command;
@@ -26,8 +29,10 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
+import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.inventory.InventoryOpenEvent;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.event.entity.FoodLevelChangeEvent;
@@ -37,23 +42,28 @@ import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.util.io.BukkitObjectInputStream;
-import org.bukkit.util.io.BukkitObjectOutputStream;
 import org.bukkit.inventory.meta.Damageable;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.NamespacedKey;
 import org.bukkit.Registry;
 import org.bukkit.enchantments.Enchantment;
 
 import dev.lone.itemsadder.api.CustomStack;
 
+import me.clip.placeholderapi.PlaceholderAPI;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import net.milkbowl.vault.economy.Economy;
 import org.bukkit.plugin.RegisteredServiceProvider;
@@ -61,9 +71,32 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.NumberFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * PixelsEssentials Plugin - A comprehensive Minecraft Paper/Spigot essentials plugin
@@ -84,7 +117,7 @@ import java.util.concurrent.ConcurrentHashMap;
  *   <li><b>Death Management:</b> Optional keep inventory (keepinv), keep XP (keepxp), and keep position (keeppos)</li>
  *   <li><b>Autofeed System:</b> Automatically restores hunger to full when it drops below threshold</li>
  *   <li><b>Extended Ender Chest:</b> Permission-based 54-slot ender chest with lazy loading and async saves</li>
- *   <li><b>Balance Leaderboard Signs:</b> Physical signs displaying top player balances with periodic updates</li>
+ *   <li><b>Leaderboard Signs:</b> Physical signs displaying top player balances (or playtime, statistics, homes, placeholders) with periodic updates</li>
  *   <li><b>Recipe Unlock:</b> Optional automatic recipe discovery on player join</li>
  *   <li><b>PlaceholderAPI Integration:</b> Custom placeholders for health, balance, and armor durability</li>
  *   <li><b>ItemsAdder Integration:</b> Give custom items with enchantments, custom names, and lore</li>
@@ -109,8 +142,17 @@ import java.util.concurrent.ConcurrentHashMap;
  *   <tr><td>/gei &lt;player&gt; &lt;item&gt; [opts]</td><td>Give ItemsAdder item with enchants/name/lore</td><td>pixelsessentials.giveenchanteditem</td></tr>
  *   <tr><td>/pe reload</td><td>Reload configuration and clear cache</td><td>pixelsessentials.reload</td></tr>
  *   <tr><td>/pe debug on|off</td><td>Toggle verbose debug logging to console</td><td>pixelsessentials.debug</td></tr>
- *   <tr><td>/pe show &lt;place&gt;</td><td>Initiate balance leaderboard sign creation</td><td>pixelsessentials.show</td></tr>
- *   <tr><td>/pe updatesigns</td><td>Force immediate update of all balance signs</td><td>pixelsessentials.show</td></tr>
+ *   <tr><td>/pe recipes</td><td>Show recipe unlock queue metrics</td><td>pixelsessentials.debug</td></tr>
+ *   <tr><td>/pe rank [leaderboard] [player]</td><td>Show a leaderboard rank, nearby players and percentiles</td><td>pixelsessentials.rank</td></tr>
+ *   <tr><td>/pe leaderboard history [leaderboard] [count]</td><td>Show recorded leaderboard samples: top player, total, median, Gini</td><td>pixelsessentials.leaderboard.history</td></tr>
+ *   <tr><td>/pe show &lt;place&gt; [leaderboard]</td><td>Initiate leaderboard sign creation (default: balance)</td><td>pixelsessentials.show</td></tr>
+ *   <tr><td>/pe updatesigns</td><td>Force immediate update of all leaderboard signs</td><td>pixelsessentials.show</td></tr>
+ *   <tr><td>/pe deaths hotspots &lt;world&gt; [limit]</td><td>List chunks with the most recorded deaths</td><td>pixelsessentials.deaths</td></tr>
+ *   <tr><td>/pe ec stats</td><td>Show extended ender chest save queue metrics</td><td>pixelsessentials.enderchest.admin</td></tr>
+ *   <tr><td>/pe ec history &lt;player&gt; [page]</td><td>List saved extended ender chest snapshots</td><td>pixelsessentials.enderchest.admin</td></tr>
+ *   <tr><td>/pe ec restore &lt;player&gt; &lt;#&gt;</td><td>Restore an extended ender chest snapshot</td><td>pixelsessentials.enderchest.admin</td></tr>
+ *   <tr><td>/pe ec find &lt;item&gt;</td><td>Find players holding an item in extended ender chests</td><td>pixelsessentials.enderchest.admin</td></tr>
+ *   <tr><td>/pe ec open &lt;player&gt;</td><td>View and edit a player's extended ender chest, online or offline</td><td>pixelsessentials.enderchest.admin</td></tr>
  * </table>
  * 
  * <h2>Death-Related Permissions</h2>
@@ -121,17 +163,27 @@ import java.util.concurrent.ConcurrentHashMap;
  *   <li><b>pixelsessentials.back.ondeath:</b> Allow /back to return to death location</li>
  * </ul>
  * 
+ * <h2>Death History Log</h2>
+ * <p>Every death is appended to plugins/PixelsEssentials/deaths.log (uuid, world, block
+ * coordinates, damage cause, timestamp). Records are queued on the main thread and written
+ * in batches on an async thread every death-log.flush-interval seconds. A chunk-bucketed
+ * count of deaths per world is kept in memory so /pe deaths hotspots never reads the file.</p>
+ * 
  * <h2>Extended Ender Chest</h2>
  * <p>Players with the pixelsessentials.enderchest.extended permission get a 54-slot ender chest
  * instead of the vanilla 27 slots. The first 27 slots are synced with the vanilla ender chest,
- * while the extra 27 slots are stored separately in playerdata/{uuid}_enderchest.yml.</p>
+ * while the extra 27 slots are stored separately in playerdata/{uuid}_enderchest.dat.</p>
  * 
  * <p><b>Technical details:</b></p>
  * <ul>
  *   <li><b>Permission:</b> pixelsessentials.enderchest.extended</li>
  *   <li><b>Triggers:</b> Right-clicking ender chest blocks AND /ec commands from other plugins</li>
- *   <li><b>Storage:</b> Base64-encoded ItemStack array for compact, efficient storage</li>
- *   <li><b>Loading:</b> Lazy-loaded only when player opens an ender chest</li>
+ *   <li><b>Storage:</b> Length-prefixed binary file of Paper ItemStack bytes (optionally deflated)</li>
+ *   <li><b>Migration:</b> Legacy Base64 YAML files are read once and rewritten as binary on the next save</li>
+ *   <li><b>Pages:</b> pixelsessentials.enderchest.pages.&lt;tier&gt; grants extra stored pages
+ *       (config.yml enderchest.pages); with more than one page the chest becomes a 36-slot
+ *       paged view and pages 2+ are stored in playerdata/{uuid}_enderchest_p{page}.dat</li>
+ *   <li><b>Loading:</b> Page 1 is prefetched on join; other pages load when first viewed</li>
  *   <li><b>Saving:</b> Asynchronous to avoid main thread lag</li>
  *   <li><b>Persistence:</b> Survives death (like vanilla ender chest)</li>
  * </ul>
@@ -149,6 +201,8 @@ import java.util.concurrent.ConcurrentHashMap;
  *   <li><b>%pixelsessentials_leggings_current_durability%</b> - Current durability of equipped leggings</li>
  *   <li><b>%pixelsessentials_boots_total_durability%</b> - Max durability of equipped boots</li>
  *   <li><b>%pixelsessentials_boots_current_durability%</b> - Current durability of equipped boots</li>
+ *   <li><b>%pixelsessentials_top_&lt;n&gt;_name%</b> / <b>_balance%</b> - Name and balance at rank n</li>
+ *   <li><b>%pixelsessentials_rank%</b> - The player's balance rank</li>
  * </ul>
  * 
  * <h2>Home Limit Configuration</h2>
@@ -267,6 +321,15 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
      */
     private Map<UUID, PlayerData> playerDataCache = new HashMap<>();
     
+    /**
+     * Player data YAML rendered on the main thread by {@link #savePlayerDataAsync} and
+     * not yet written, newest per player.
+     * 
+     * <p>Also the lock for every player data file write, so an older async write can
+     * never land after a newer one.</p>
+     */
+    private final Map<UUID, String> pendingPlayerDataWrites = new ConcurrentHashMap<>();
+    
     /**
      * Debug mode flag controlling verbose console logging.
      * 
@@ -323,43 +386,287 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
      * <p><b>Config:</b> lobby-world (default: "world")</p>
      */
     private String lobbyWorldName = "world";
-    
+
+    // ==================================================================================
+    // INSTANCE VARIABLES - DEATH HISTORY
+    // ==================================================================================
+
+    /**
+     * Append-only binary log of every player death.
+     *
+     * <p><b>Location:</b> plugins/PixelsEssentials/deaths.log</p>
+     *
+     * <p>Unlike {@link PlayerData#lastDeathLocation}, which only remembers the most recent
+     * death for /back, this file keeps the full history. Records are never rewritten,
+     * only appended by {@link #flushDeathLog()}.</p>
+     */
+    private File deathLogFile;
+
+    /**
+     * Deaths recorded since the last flush, waiting to be appended to {@link #deathLogFile}.
+     *
+     * <p>Filled on the main thread by {@link #recordDeath}, drained in batches on an
+     * async thread so a death never costs file I/O on the tick that it happens.</p>
+     */
+    private final Queue<DeathRecord> pendingDeathRecords = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Records from a flush that failed, written ahead of {@link #pendingDeathRecords}
+     * by the next one. Guarded by the plugin's lock, like {@link #flushDeathLog}.
+     */
+    private final List<DeathRecord> unwrittenDeathRecords = new ArrayList<>();
+
+    /**
+     * False once the death log couldn't be read or repaired, so appending to it could
+     * bury records behind damage; deaths then only count in memory this session.
+     */
+    private volatile boolean deathLogWritable = true;
+
+    /**
+     * In-memory death counts bucketed by chunk, used to answer /pe deaths hotspots.
+     *
+     * <p><b>Key:</b> World name</p>
+     * <p><b>Value:</b> Map of chunk key (see {@link #chunkKey(int, int)}) to death count</p>
+     *
+     * <p>Rebuilt from {@link #deathLogFile} on an async thread at startup and kept current
+     * as deaths happen, so hotspot queries never touch the disk.</p>
+     */
+    private final Map<String, Map<Long, Integer>> deathHotspots = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the initial rebuild of {@link #deathHotspots} from disk has finished.
+     * Hotspot output is flagged as partial while this is false, and
+     * {@link #flushDeathLog} holds its records back until the rebuild has cut off any
+     * torn record at the end of the file.
+     */
+    private volatile boolean deathHotspotsLoaded = false;
+
+    /**
+     * Flag controlling the persistent death history log.
+     *
+     * <p><b>Config key:</b> death-log.enabled</p>
+     * <p><b>Default:</b> true</p>
+     */
+    private boolean deathLogEnabled = true;
+
+    /**
+     * Seconds between batched writes of {@link #pendingDeathRecords} to disk.
+     *
+     * <p><b>Config key:</b> death-log.flush-interval</p>
+     * <p><b>Default:</b> 10 seconds</p>
+     */
+    private int deathLogFlushInterval = 10;
+
     // ==================================================================================
     // INSTANCE VARIABLES - EXTENDED ENDER CHEST
     // ==================================================================================
     
     /**
-     * Title for the extended ender chest inventory (54 slots).
+     * Title for the extended ender chest inventory (54 slots, or 36 when paged).
      * Used to identify our custom inventory in InventoryClickEvent and InventoryCloseEvent.
      */
     private static final String EXTENDED_ENDERCHEST_TITLE = "Ender Chest";
     
     /**
-     * Cache of extended ender chest contents (the extra 27 slots beyond vanilla).
+     * Cache of stored extended ender chest pages (the 27-slot pages beyond vanilla).
      * 
-     * <p><b>Key:</b> Player UUID</p>
-     * <p><b>Value:</b> ItemStack array of size 27 containing the extended slots</p>
+     * <p><b>Key:</b> Player UUID and stored page number</p>
+     * <p><b>Value:</b> ItemStack array of size 27 containing the page's slots</p>
      * 
      * <p>This cache is separate from PlayerData for performance reasons:</p>
      * <ul>
-     *   <li>Lazy loading - only loaded when player actually opens an ender chest</li>
+     *   <li>Lazy loading - only page 1 is prefetched; other pages load when viewed, so
+     *       memory grows with pages viewed rather than pages owned</li>
      *   <li>Not loaded with regular PlayerData to keep that fast</li>
-     *   <li>Stored in separate file: playerdata/{uuid}_enderchest.yml</li>
+     *   <li>Stored in separate files: playerdata/{uuid}_enderchest.dat (page 1) and
+     *       playerdata/{uuid}_enderchest_p{page}.dat</li>
      * </ul>
      * 
      * <p>Contents are saved asynchronously when the inventory is closed to avoid
-     * main thread lag from Base64 serialization and file I/O.</p>
+     * main thread lag from item serialization and file I/O.</p>
+     */
+    private Map<EnderChestPage, ItemStack[]> extendedEnderChestCache = new ConcurrentHashMap<>();
+    
+    /** Highest number of stored pages any permission tier can grant */
+    private static final int ENDERCHEST_MAX_PAGES = 100;
+    
+    /** Paged view: "previous page" button slot (first slot of the navigation row) */
+    private static final int ENDERCHEST_NAV_PREVIOUS = 27;
+    
+    /** Paged view: page number indicator slot */
+    private static final int ENDERCHEST_NAV_INFO = 31;
+    
+    /** Paged view: "next page" button slot (last slot of the navigation row) */
+    private static final int ENDERCHEST_NAV_NEXT = 35;
+    
+    /**
+     * Players whose extended ender chest was loaded from a legacy {uuid}_enderchest.yml.
+     * 
+     * <p>The next save for each of these players writes the binary .dat file and then
+     * deletes the YAML file. Players who never open their chest keep the old file
+     * until they do, so no bulk conversion is needed at startup.</p>
+     */
+    private final Set<UUID> legacyEnderChestMigrations = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Pages whose file couldn't be read and couldn't be moved aside either, mapped to
+     * that file.
+     * 
+     * <p>{@link #writeExtendedEnderChest} refuses to save these pages (the write queue
+     * keeps retrying) until the file can be moved to {name}.bad, so an unreadable chest
+     * is never overwritten with the empty page shown in its place.</p>
+     */
+    private final Map<EnderChestPage, File> unreadableEnderChestFiles = new ConcurrentHashMap<>();
+    
+    /**
+     * Whether each item in the binary ender chest file is additionally deflate-compressed.
+     * 
+     * <p><b>Config key:</b> enderchest.compression</p>
+     * <p><b>Default:</b> false</p>
+     * 
+     * <p>Paper's item bytes are already compressed NBT, so this mostly helps items with
+     * large repetitive lore or book contents. A compressed payload is only kept when it
+     * is actually smaller.</p>
+     */
+    private boolean enderChestCompression = false;
+    
+    /** Magic number at the start of every {uuid}_enderchest.dat file ("PEEC") */
+    private static final int ENDERCHEST_FILE_MAGIC = 0x50454543;
+    
+    /**
+     * Current version of the binary ender chest file format.
+     * 
+     * <p>Version 2 allows delta records appended after the initial snapshot, including
+     * zero-length "slot cleared" records. Version 1 files are still read and are
+     * rewritten as version 2 on their next save.</p>
+     */
+    private static final int ENDERCHEST_FILE_VERSION = 2;
+    
+    /** Record flag: the item payload is deflate-compressed */
+    private static final byte ENDERCHEST_FLAG_DEFLATED = 0x01;
+    
+    /** Largest slot count a binary ender chest file may declare (a double chest) */
+    private static final int ENDERCHEST_MAX_SLOTS = 54;
+    
+    /** Ticks before the write queue retries a failed ender chest save (30 seconds) */
+    private static final long ENDERCHEST_RETRY_TICKS = 600L;
+    
+    /**
+     * Ordered, coalescing write queue for extended ender chest saves.
+     * 
+     * <p>Created in {@link #onEnable()} and shut down (after draining) in
+     * {@link #onDisable()}. See {@link EnderChestWriteQueue} for the ordering rules.</p>
      */
-    private Map<UUID, ItemStack[]> extendedEnderChestCache = new ConcurrentHashMap<>();
+    private EnderChestWriteQueue enderChestWriteQueue;
+    
+    /**
+     * Snapshot history of extended ender chest pages, or null when
+     * enderchest.history.enabled is false.
+     * 
+     * <p>Fed by every save the write queue performs; read by /pe ec history and
+     * /pe ec restore. See {@link EnderChestHistory} for storage and retention.</p>
+     */
+    private volatile EnderChestHistory enderChestHistory;
+    
+    /**
+     * Inverted index of extended ender chest contents (item key to holders), or null
+     * when enderchest.item-index is false.
+     * 
+     * <p>Built by a parallel scan of all chest files at startup, then kept current by
+     * every save. Answers /pe ec find. See {@link EnderChestItemIndex}.</p>
+     */
+    private EnderChestItemIndex enderChestItemIndex;
+    
+    /** Chest pages holding items with metadata that the item index keys per tick after its scan */
+    private static final int ENDERCHEST_INDEX_RESOLVE_PER_TICK = 20;
+    
+    /** Magic number at the start of every ecblobs/manifests/{uuid}.dat file ("PEEH") */
+    private static final int ENDERCHEST_HISTORY_MAGIC = 0x50454548;
+    
+    /**
+     * Number of delta records appended to each binary ender chest file since it was
+     * last written in full.
+     * 
+     * <p><b>Key:</b> File name (e.g. {uuid}_enderchest.dat)</p>
+     * 
+     * <p>Only files whose record count is known (read or fully written by this server
+     * session, in the current format) are present; anything else gets a full rewrite
+     * on its next save. Updated only by the write queue's writer threads.</p>
+     */
+    private final Map<String, Integer> enderChestDeltaRecords = new ConcurrentHashMap<>();
+    
+    /**
+     * Delta records allowed to accumulate in an ender chest file before it is compacted.
+     * 
+     * <p><b>Config key:</b> enderchest.compact-after</p>
+     * <p><b>Default:</b> 54</p>
+     * 
+     * <p>When a save would push the file past this many appended records, the whole
+     * chest is rewritten as a fresh snapshot instead.</p>
+     */
+    private int enderChestCompactAfter = 54;
     
     /**
      * Tracks which players currently have an extended ender chest open.
      * Used to identify our custom inventory on close events.
      * 
      * <p><b>Key:</b> Player UUID</p>
-     * <p><b>Value:</b> The Inventory instance they have open</p>
+     * <p><b>Value:</b> The open inventory, the page shown and its slots as they were loaded</p>
+     */
+    private Map<UUID, ExtendedEnderChestSession> openExtendedEnderChests = new ConcurrentHashMap<>();
+    
+    /**
+     * Extended ender chest page reads currently running on an async thread.
+     * 
+     * <p><b>Key:</b> Player UUID and stored page number</p>
+     * <p><b>Value:</b> Completes (on the async thread) with the loaded page</p>
+     * 
+     * <p>Only touched on the main thread. Entries are removed once the result has been
+     * published into {@link #extendedEnderChestCache}, so a second prefetch or an open
+     * during the read joins the existing load instead of reading the file twice.</p>
+     */
+    private final Map<EnderChestPage, CompletableFuture<ItemStack[]>> enderChestLoads = new HashMap<>();
+    
+    /**
+     * Extended ender chests currently opened by staff with /pe ec open.
+     * 
+     * <p><b>Key:</b> Owner UUID</p>
+     * <p><b>Value:</b> UUID of the staff member viewing it</p>
+     * 
+     * <p>While an owner is in this map they cannot open their own extended chest, so
+     * owner and staff never edit the same pages at once. Only touched on the main thread.</p>
+     */
+    private final Map<UUID, UUID> enderChestStaffLocks = new HashMap<>();
+    
+    /**
+     * When the cached pages of an offline owner may be dropped, after staff closed their chest.
+     * 
+     * <p><b>Key:</b> Owner UUID</p>
+     * <p><b>Value:</b> Epoch millis; {@link #evictExtendedEnderChest} keeps the pages until then</p>
+     */
+    private final Map<UUID, Long> enderChestOfflineCacheExpiry = new HashMap<>();
+    
+    /**
+     * How long an offline player's pages stay cached after staff close the chest.
+     * 
+     * <p><b>Config key:</b> enderchest.offline-cache-seconds</p>
+     * <p><b>Default:</b> 300</p>
+     */
+    private int enderChestOfflineCacheSeconds = 300;
+    
+    /**
+     * Whether extended ender chests are read in the background when a player joins.
+     * 
+     * <p><b>Config key:</b> enderchest.prefetch-on-join</p>
+     * <p><b>Default:</b> true</p>
+     * 
+     * <p>When disabled the chest is still read off the main thread, but only on first
+     * open, so the player briefly sees the loading placeholders.</p>
      */
-    private Map<UUID, Inventory> openExtendedEnderChests = new ConcurrentHashMap<>();
+    private boolean enderChestPrefetchOnJoin = true;
+    
+    /** PDC key marking extended ender chest UI items (loading placeholders, page navigation) */
+    private NamespacedKey enderChestUiKey;
     
     // ==================================================================================
     // INSTANCE VARIABLES - EXTERNAL INTEGRATIONS
@@ -375,7 +682,7 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
      * <ul>
      *   <li>Balance leaderboard signs - retrieving and ranking player balances</li>
      *   <li>PlaceholderAPI expansion - %pixelsessentials_formatted_balance% placeholder</li>
-     *   <li>{@link #getTopBalances(int)} - querying all player balances for rankings</li>
+     *   <li>{@link #rescanLeaderboard} - rescanning all player balances for rankings</li>
      * </ul>
      * 
      * <p>The economy instance is obtained via Bukkit's RegisteredServiceProvider pattern.
@@ -385,53 +692,116 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
     private Economy economy = null;
     
     // ==================================================================================
-    // BALANCE LEADERBOARD SIGNS
+    // LEADERBOARD SIGNS
     // ==================================================================================
     
     /**
-     * Registry of balance leaderboard sign locations and their ranking positions.
+     * Registry of leaderboard sign locations and what they show.
      * 
      * <p><b>Key:</b> Block location of the sign (world + x,y,z coordinates)</p>
-     * <p><b>Value:</b> Placement number (1 = richest player, 2 = second richest, etc.)</p>
+     * <p><b>Value:</b> Leaderboard ({@link #leaderboards} id, e.g. "balance") and
+     * placement number (1 = top player, 2 = second, etc.)</p>
      * 
-     * <p><b>Persistence:</b> Saved to plugins/PixelsEssentials/signs.yml on shutdown and creation</p>
+     * <p><b>Persistence:</b> Every creation and removal is appended to
+     * plugins/PixelsEssentials/signs.log by {@link #leaderboardSignStore}. Only signs in
+     * loaded worlds are here; the store also keeps those in worlds that aren't.</p>
      * 
      * <p>Uses ConcurrentHashMap for thread-safety since sign updates run on a
      * scheduled async task timer that may interact with player commands concurrently.</p>
      * 
      * <p><b>Sign Lifecycle:</b></p>
      * <ol>
-     *   <li>Created via /pe show &lt;place&gt; followed by right-click on a sign</li>
-     *   <li>Updated periodically by {@link #startSignUpdateTask()} at configurable interval</li>
-     *   <li>Automatically removed from tracking if sign block is destroyed/replaced</li>
-     *   <li>Persisted to signs.yml on plugin disable and after each sign creation</li>
+     *   <li>Created via /pe show &lt;place&gt; [leaderboard] followed by right-click on a sign</li>
+     *   <li>Updated periodically by {@link #startSignUpdateTask()} at configurable interval,
+     *       and when its chunk loads if it was skipped while unloaded</li>
+     *   <li>Automatically removed from tracking if sign block is destroyed/replaced
+     *       (only checked while its chunk is loaded)</li>
+     *   <li>Creation and removal each persisted as one signs.log record, written async</li>
      * </ol>
      */
-    private Map<Location, Integer> balanceSigns = new ConcurrentHashMap<>();
+    private Map<Location, LeaderboardSign> leaderboardSigns = new ConcurrentHashMap<>();
+    
+    /**
+     * The same signs as {@link #leaderboardSigns}, grouped by world and chunk.
+     * 
+     * <p><b>Key:</b> World UUID, then chunk key ({@link Chunk#getChunkKey(int, int)})</p>
+     * <p><b>Value:</b> Sign locations in that chunk</p>
+     * 
+     * <p>Lets updates visit only loaded chunks and lets {@link #onLeaderboardSignChunkLoad}
+     * find a chunk's signs directly. Changed only through {@link #attachLeaderboardSign} and
+     * {@link #detachLeaderboardSign}. Main thread only.</p>
+     */
+    private final Map<UUID, Map<Long, Set<Location>>> leaderboardSignsByChunk = new HashMap<>();
+    
+    /**
+     * Persistent sign registry: every sign by world name and block coordinates, kept
+     * as an append-only log. See {@link LeaderboardSignStore}.
+     */
+    private final LeaderboardSignStore leaderboardSignStore = new LeaderboardSignStore();
+    
+    /**
+     * What each leaderboard sign currently shows, as last written by {@link #updateLeaderboardSign}.
+     * 
+     * <p>When the player, name and balance text at a sign's place are unchanged, the
+     * update skips getState() and update() entirely. Cleared for a sign when it is
+     * (re)registered or its chunk loads, and for all signs by /pe updatesigns.
+     * Main thread only.</p>
+     */
+    private final Map<Location, RenderedLeaderboardSign> renderedLeaderboardSigns = new HashMap<>();
+    
+    /** Sign block updates written since startup */
+    private long leaderboardSignUpdatesWritten = 0;
+    
+    /** Sign updates skipped because the sign already showed the right text */
+    private long leaderboardSignUpdatesAvoided = 0;
+    
+    /** Prebuilt sign line 1: "BALANCE" (gold, bold) */
+    private static final Component BALANCE_SIGN_HEADER = LegacyComponentSerializer.legacyAmpersand().deserialize("&6&lBALANCE");
+    
+    /** Prebuilt sign line 3 for an empty place */
+    private static final Component LEADERBOARD_SIGN_NO_PLAYER = LegacyComponentSerializer.legacyAmpersand().deserialize("&7No Player");
+    
+    /**
+     * Per-tick time budget for leaderboard sign updates, in microseconds.
+     * 
+     * <p><b>Config key:</b> leaderboard.sign-budget-micros</p>
+     * <p><b>Default:</b> 2000 (2 ms)</p>
+     * 
+     * <p>Shrinks automatically while the server's average tick time is high; see
+     * {@link LeaderboardSignScheduler}.</p>
+     */
+    private int leaderboardSignBudgetMicros = 2000;
+    
+    /** Spreads sign updates over each {@link #signUpdateInterval} */
+    private final LeaderboardSignScheduler leaderboardSignScheduler = new LeaderboardSignScheduler();
+    
+    /** Prebuilt "#N" lines by place, grown as higher places are used (main thread only) */
+    private Component[] leaderboardSignPlaceLines = new Component[0];
     
     /**
-     * Pending balance sign creation requests awaiting player interaction.
+     * Pending leaderboard sign creation requests awaiting player interaction.
      * 
-     * <p><b>Key:</b> Player UUID who executed /pe show &lt;place&gt; command</p>
-     * <p><b>Value:</b> Placement number (1-N) to assign to the next right-clicked sign</p>
+     * <p><b>Key:</b> Player UUID who executed /pe show &lt;place&gt; [leaderboard] command</p>
+     * <p><b>Value:</b> Leaderboard and placement number (1-N) to assign to the next
+     * right-clicked sign</p>
      * 
      * <p><b>Workflow:</b></p>
      * <ol>
-     *   <li>Admin runs /pe show 1 (or any placement number)</li>
-     *   <li>Entry added: {admin-uuid} -> 1</li>
+     *   <li>Admin runs /pe show 1 (or any placement number, optionally a leaderboard)</li>
+     *   <li>Entry added: {admin-uuid} -> balance #1</li>
      *   <li>Admin receives prompt to right-click a sign</li>
      *   <li>Admin right-clicks any sign block</li>
-     *   <li>{@link #onPlayerInteract} converts the sign to a balance leaderboard</li>
-     *   <li>Entry removed from this map, sign added to {@link #balanceSigns}</li>
+     *   <li>{@link #onPlayerInteract} converts the sign to a leaderboard sign</li>
+     *   <li>Entry removed from this map, sign added to {@link #leaderboardSigns}</li>
      * </ol>
      * 
      * <p>Entries are automatically cleaned up on player quit via {@link #onPlayerQuit}
      * to prevent stale pending requests affecting future sessions.</p>
      */
-    private Map<UUID, Integer> pendingBalanceSigns = new ConcurrentHashMap<>();
+    private Map<UUID, LeaderboardSign> pendingLeaderboardSigns = new ConcurrentHashMap<>();
     
     /**
-     * Interval in seconds between automatic balance leaderboard sign updates.
+     * Interval in seconds between automatic leaderboard sign updates.
      * 
      * <p><b>Config key:</b> sign-update-interval</p>
      * <p><b>Default:</b> 60 seconds</p>
@@ -509,57 +879,192 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
     private final Set<UUID> pendingRecipeUnlockPlayers = ConcurrentHashMap.newKeySet();
     
     /**
-     * Cached list of top player balances to minimize expensive economy lookups.
+     * Fingerprint of {@link #cachedRecipeKeys}, set together with it.
+     * 
+     * <p>Hex of the first 16 bytes of a SHA-256 over the sorted key strings. Stored on
+     * each player (PDC {@link #recipeFingerprintKey}) once they have been sent the full
+     * set, so returning players are skipped until the recipe set changes.</p>
+     */
+    private String cachedRecipeFingerprint = null;
+    
+    /**
+     * Whether {@link #cachedRecipeKeys} has been checked against the live recipe registry.
+     * 
+     * <p>False while the keys come from the persisted cache ({@link #RECIPE_CACHE_FILE})
+     * or from before a /pe reload. Players can be unlocked from unchecked keys straight
+     * away, but their fingerprint is only stored once the keys are confirmed, because a
+     * plugin may not have registered all its recipes yet. A stored fingerprint that
+     * matches unchecked keys still skips the player: they received that exact set
+     * on an earlier run.</p>
+     */
+    private boolean recipeKeysValidated = false;
+    
+    /** Persisted recipe key cache in the plugin folder, loaded at startup */
+    private static final String RECIPE_CACHE_FILE = "recipe-keys.dat";
+    
+    /** Magic number at the start of the recipe key cache ("PERK") */
+    private static final int RECIPE_CACHE_MAGIC = 0x5045524B;
+    
+    /** Persisted player name cache in the plugin folder, loaded at startup */
+    private static final String PLAYER_NAMES_FILE = "names.dat";
+    
+    /** Append-only leaderboard sign registry in the plugin folder */
+    private static final String LEADERBOARD_SIGN_LOG_FILE = "signs.log";
+    
+    /** Magic number at the start of the sign registry log ("PESL") */
+    private static final int LEADERBOARD_SIGN_LOG_MAGIC = 0x5045534C;
+    
+    /** Log records below which the sign registry is never compacted */
+    private static final int LEADERBOARD_SIGN_COMPACT_MIN = 64;
+    
+    /** Ticks before the sign registry retries a failed write (30 seconds) */
+    private static final long LEADERBOARD_SIGN_RETRY_TICKS = 600L;
+    
+    /** Magic number at the start of the player name cache ("PENM") */
+    private static final int PLAYER_NAMES_MAGIC = 0x50454E4D;
+    
+    /** Seconds between background saves of the player name cache (only when it changed) */
+    private static final int PLAYER_NAMES_SAVE_INTERVAL = 60;
+    
+    /** PDC key holding the recipe fingerprint a player was last unlocked against */
+    private NamespacedKey recipeFingerprintKey;
+    
+    /**
+     * Largest bulk discovery one player gets per turn of the {@link RecipeUnlockScheduler}.
      * 
-     * <p><b>Structure:</b> List of Map.Entry&lt;UUID, Double&gt; sorted by balance descending</p>
-     * <p><b>Index:</b> 0 = richest player, 1 = second richest, etc.</p>
+     * <p>Each call sends one recipe book packet, so a full unlock of ~1,300 recipes is a
+     * handful of packets rather than one discovery per recipe.</p>
      * 
-     * <p>This cache prevents repeated expensive economy lookups when multiple
-     * balance signs need updating simultaneously. The cache is shared across all sign
-     * updates that occur within the {@link #BALANCE_CACHE_VALIDITY_MS} window.</p>
+     * <p><b>Config key:</b> unlock-recipes-per-tick</p>
+     * <p><b>Default:</b> 250</p>
+     */
+    private int unlockRecipesPerTick = 250;
+    
+    /**
+     * Recipe discoveries allowed per tick across all players combined.
      * 
-     * <p><b>Invalidation:</b></p>
-     * <ul>
-     *   <li>Automatically after 5 seconds (time-based expiry)</li>
-     *   <li>Manually via /pe updatesigns command (sets to null)</li>
-     *   <li>On each periodic update cycle (ensures fresh data)</li>
-     * </ul>
+     * <p>Caps the cost of a join storm after a restart: however many players are
+     * waiting, no tick spends more than this on recipe unlocks.</p>
+     * 
+     * <p><b>Config key:</b> unlock-recipes-budget-per-tick</p>
+     * <p><b>Default:</b> 1000</p>
+     */
+    private int unlockRecipesBudgetPerTick = 1000;
+    
+    /** Shared scheduler running every player's recipe unlock within the global budget */
+    private final RecipeUnlockScheduler recipeUnlockScheduler = new RecipeUnlockScheduler();
+    
+    /**
+     * Every ranked metric by id: "balance" (when Vault economy is available) plus the
+     * sources configured under leaderboard.sources.
+     * 
+     * <p>Each {@link Leaderboard} keeps its own index, kept current incrementally and
+     * by periodic full rescans, and publishes its own {@link RankingSnapshot} for
+     * signs and placeholders. Built once by {@link #loadLeaderboards()} at startup and
+     * never modified afterwards, so any thread may read it.</p>
+     */
+    private volatile Map<String, Leaderboard> leaderboards = Collections.emptyMap();
+    
+    /**
+     * Last known name of every player shown by a leaderboard or admin command,
+     * persisted to names.dat. See {@link PlayerNameCache}.
+     */
+    private final PlayerNameCache playerNames = new PlayerNameCache();
+    
+    /**
+     * Whether the economy provider may be called from a worker thread.
+     * 
+     * <p><b>Config key:</b> leaderboard.async-economy</p>
+     * <p><b>Default:</b> false</p>
+     * 
+     * <p>When false, the balance rescan reads balances on the main thread in slices of
+     * {@link #leaderboardScanSlice} per tick, and only the ranking itself is built on a
+     * worker thread. Enable only for providers documented as thread-safe.</p>
+     */
+    private boolean balanceAsyncEconomy = false;
+    
+    /**
+     * Player lookups per tick when a rescan reads on the main thread.
+     * 
+     * <p><b>Config key:</b> leaderboard.scan-slice</p>
+     * <p><b>Default:</b> 500</p>
+     */
+    private int leaderboardScanSlice = 500;
+    
+    /**
+     * Time per tick a main-thread rescan may spend, in microseconds.
+     * 
+     * <p><b>Config key:</b> leaderboard.scan-budget-micros</p>
+     * <p><b>Default:</b> 5000 (5 ms)</p>
+     * 
+     * <p>A slice ends at whichever comes first, this or {@link #leaderboardScanSlice}.
+     * Matters for statistic sources, where each offline player is a file read.</p>
+     */
+    private int leaderboardScanBudgetMicros = 5000;
+    
+    /**
+     * Deepest rank leaderboard placeholders can show.
+     * 
+     * <p><b>Config key:</b> leaderboard.placeholder-depth</p>
+     * <p><b>Default:</b> 100</p>
      * 
-     * @see #topBalancesCacheTime
-     * @see #BALANCE_CACHE_VALIDITY_MS
-     * @see #getTopBalancesCached(int)
+     * <p>Caps how far a requested top_&lt;n&gt; placeholder grows a leaderboard's
+     * snapshot, and is the depth used once a rank placeholder is requested.</p>
      */
-    private List<Map.Entry<UUID, Double>> topBalancesCache = null;
+    private int leaderboardPlaceholderDepth = 100;
     
     /**
-     * Timestamp (System.currentTimeMillis) when the top balances cache was last populated.
+     * Time series of every rescanned leaderboard for /pe leaderboard history, or null
+     * when leaderboard.history.enabled is false. See {@link LeaderboardHistory}.
+     */
+    private LeaderboardHistory leaderboardHistory;
+    
+    /**
+     * Minimum time between two history samples of a leaderboard, in minutes.
      * 
-     * <p>Used in conjunction with {@link #BALANCE_CACHE_VALIDITY_MS} to determine
-     * if the cached balance data is still fresh enough to use. When the current time
-     * minus this timestamp exceeds the validity period, the cache is considered stale
-     * and will be refreshed on the next access.</p>
+     * <p><b>Config key:</b> leaderboard.history.interval</p>
+     * <p><b>Default:</b> 60</p>
      * 
-     * <p>Set to 0 when cache is explicitly invalidated via /pe updatesigns.</p>
+     * <p>Samples are taken when a full rescan finishes, so a leaderboard is sampled at
+     * most once per rescan.</p>
+     */
+    private volatile int leaderboardHistoryInterval = 60;
+    
+    /**
+     * Places recorded in each history sample.
      * 
-     * @see #topBalancesCache
-     * @see #getTopBalancesCached(int)
+     * <p><b>Config key:</b> leaderboard.history.top</p>
+     * <p><b>Default:</b> 10</p>
      */
-    private long topBalancesCacheTime = 0;
+    private volatile int leaderboardHistoryTop = 10;
+    
+    /** Players shown above and below the target by /pe rank */
+    private static final int RANK_WINDOW = 2;
     
     /**
-     * Duration in milliseconds that cached balance data remains valid before refresh.
+     * Seconds between sampled balance refreshes of online players.
      * 
-     * <p><b>Value:</b> 5000ms (5 seconds)</p>
+     * <p><b>Config key:</b> leaderboard.sample-interval</p>
+     * <p><b>Default:</b> 5</p>
+     */
+    private int balanceSampleInterval = 5;
+    
+    /**
+     * Online players re-read per sample, on every leaderboard.
      * 
-     * <p>This short validity ensures balance sign data is reasonably current while
-     * preventing redundant economy lookups when multiple signs update in quick succession
-     * (which happens every {@link #signUpdateInterval} seconds when {@link #updateAllBalanceSigns()}
-     * iterates through all registered signs).</p>
+     * <p><b>Config key:</b> leaderboard.sample-size</p>
+     * <p><b>Default:</b> 20</p>
+     */
+    private int leaderboardSampleSize = 20;
+    
+    /**
+     * Minutes between full rescans of every player's balance, and the default for
+     * other leaderboards that can read offline players.
      * 
-     * <p>The 5-second window is intentionally short because balance changes (trades, shop
-     * purchases, job payments) can happen frequently on active servers.</p>
+     * <p><b>Config key:</b> leaderboard.reconcile-interval</p>
+     * <p><b>Default:</b> 60</p>
      */
-    private static final long BALANCE_CACHE_VALIDITY_MS = 5000;
+    private int balanceReconcileInterval = 60;
     
     // ==================================================================================
     // PLUGIN LIFECYCLE METHODS
@@ -576,7 +1081,7 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
      *   <li>Register this class as event listener (implements Listener interface)</li>
      *   <li>Hook into Vault economy service if Vault plugin is present</li>
      *   <li>Register PlaceholderAPI expansion if PlaceholderAPI is present</li>
-     *   <li>Load balance leaderboard signs from signs.yml persistent storage</li>
+     *   <li>Load leaderboard signs from signs.log persistent storage</li>
      *   <li>Start periodic sign update scheduled task (if economy available)</li>
      *   <li>Load configuration options (unlock-recipes, sign-update-interval)</li>
      *   <li>Output colored startup messages to console</li>
@@ -608,6 +1113,8 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
         // Initialize NamespacedKeys for bank notes
         bankNoteValueKey = new NamespacedKey(this, "banknote_value");
         bankNoteUniqueKey = new NamespacedKey(this, "banknote_unique");
+        enderChestUiKey = new NamespacedKey(this, "enderchest_ui");
+        recipeFingerprintKey = new NamespacedKey(this, "recipe_fingerprint");
         
         // Save default config.yml if it doesn't exist
         // This creates the configuration file with default sethome-multiple values
@@ -664,25 +1171,50 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
             getServer().getConsoleSender().sendMessage(Component.text("[PixelsEssentials] PlaceholderAPI expansion registered!", NamedTextColor.GREEN));
         }
         
-        // Load balance leaderboard signs
-        loadBalanceSigns();
+        // Load leaderboard signs
+        loadLeaderboardSigns();
         
-        // Start sign update task
+        // Build the leaderboards and start the sign update task
         signUpdateInterval = getConfig().getInt("sign-update-interval", 60);
-        if (economy != null) {
-            startSignUpdateTask();
-            getServer().getConsoleSender().sendMessage(Component.text("[PixelsEssentials] Balance leaderboard signs enabled (update interval: " + signUpdateInterval + "s)", NamedTextColor.GREEN));
-        } else {
+        balanceSampleInterval = Math.max(1, getConfig().getInt("leaderboard.sample-interval", 5));
+        leaderboardSampleSize = Math.max(1, getConfig().getInt("leaderboard.sample-size", 20));
+        balanceReconcileInterval = Math.max(1, getConfig().getInt("leaderboard.reconcile-interval", 60));
+        balanceAsyncEconomy = getConfig().getBoolean("leaderboard.async-economy", false);
+        leaderboardScanSlice = Math.max(1, getConfig().getInt("leaderboard.scan-slice", 500));
+        leaderboardSignBudgetMicros = Math.max(100, getConfig().getInt("leaderboard.sign-budget-micros", 2000));
+        leaderboardScanBudgetMicros = Math.max(100, getConfig().getInt("leaderboard.scan-budget-micros", 5000));
+        leaderboardPlaceholderDepth = Math.max(1, getConfig().getInt("leaderboard.placeholder-depth", 100));
+        leaderboardHistoryInterval = Math.max(1, getConfig().getInt("leaderboard.history.interval", 60));
+        leaderboardHistoryTop = Math.max(1, getConfig().getInt("leaderboard.history.top", 10));
+        if (getConfig().getBoolean("leaderboard.history.enabled", true)) {
+            leaderboardHistory = new LeaderboardHistory(new File(getDataFolder(), "history"),
+                Math.max(16L, getConfig().getLong("leaderboard.history.max-size-kb", 2048)) * 1024L);
+        }
+        if (economy == null) {
             getServer().getConsoleSender().sendMessage(Component.text("[PixelsEssentials] WARNING: Vault economy not found - balance leaderboard signs will not work!", NamedTextColor.YELLOW));
         }
+        playerNames.load();
+        Bukkit.getScheduler().runTaskTimerAsynchronously(this, playerNames::save,
+            20L * PLAYER_NAMES_SAVE_INTERVAL, 20L * PLAYER_NAMES_SAVE_INTERVAL);
+        loadLeaderboards();
+        if (!leaderboards.isEmpty()) {
+            startLeaderboardTasks();
+            startSignUpdateTask();
+            getServer().getConsoleSender().sendMessage(Component.text("[PixelsEssentials] Leaderboard signs enabled (" + String.join(", ", leaderboards.keySet()) + "; update interval: " + signUpdateInterval + "s)", NamedTextColor.GREEN));
+        }
         
         // Load unlock-recipes config options
         unlockRecipesOnJoin = getConfig().getBoolean("unlock-recipes", false);
         unlockRecipesDelay = getConfig().getInt("unlock-recipes-delay", 30);
         unlockRecipesBatchSize = getConfig().getInt("unlock-recipes-batch-size", 100);
+        unlockRecipesPerTick = Math.max(1, getConfig().getInt("unlock-recipes-per-tick", 250));
+        unlockRecipesBudgetPerTick = Math.max(1, getConfig().getInt("unlock-recipes-budget-per-tick", 1000));
         if (unlockRecipesOnJoin) {
             getServer().getConsoleSender().sendMessage(Component.text("[PixelsEssentials] Recipe unlock on join enabled (delay: " + unlockRecipesDelay + "s, batch: " + unlockRecipesBatchSize + ")", NamedTextColor.GREEN));
             
+            // Unlock from the keys cached by the last run until the registry walk below confirms them
+            loadRecipeKeyCache();
+            
             // Schedule batched recipe key caching after delay to let other plugins register their recipes
             Bukkit.getScheduler().runTaskLater(this, () -> {
                 cacheRecipeKeysInBatches();
@@ -692,6 +1224,37 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
         // Load lobby world name for keeppos respawning
         lobbyWorldName = getConfig().getString("lobby-world", "world");
         
+        // Load extended ender chest storage options
+        enderChestCompression = getConfig().getBoolean("enderchest.compression", false);
+        enderChestCompactAfter = Math.max(0, getConfig().getInt("enderchest.compact-after", 54));
+        enderChestPrefetchOnJoin = getConfig().getBoolean("enderchest.prefetch-on-join", true);
+        enderChestOfflineCacheSeconds = Math.max(0, getConfig().getInt("enderchest.offline-cache-seconds", 300));
+        enderChestWriteQueue = new EnderChestWriteQueue(
+            Math.max(1, getConfig().getInt("enderchest.writer-threads", 2)));
+        
+        // Item index for /pe ec find (initial scan runs in the background)
+        if (getConfig().getBoolean("enderchest.item-index", true)) {
+            enderChestItemIndex = new EnderChestItemIndex();
+            Bukkit.getScheduler().runTaskAsynchronously(this, enderChestItemIndex::build);
+        }
+        
+        // Snapshot history for /pe ec history and restore (manifests read in the background)
+        if (getConfig().getBoolean("enderchest.history.enabled", true)) {
+            enderChestHistory = new EnderChestHistory(new File(getDataFolder(), "ecblobs"),
+                Math.max(1L, getConfig().getLong("enderchest.history.max-size-mb", 256)) * 1024L * 1024L,
+                Math.max(0L, getConfig().getLong("enderchest.history.min-interval", 300)) * 1000L);
+            Bukkit.getScheduler().runTaskAsynchronously(this, enderChestHistory::ensureLoaded);
+        }
+
+        // Start the death history log (aggregate rebuilt async, writes batched async)
+        deathLogFile = new File(getDataFolder(), "deaths.log");
+        deathLogEnabled = getConfig().getBoolean("death-log.enabled", true);
+        deathLogFlushInterval = Math.max(1, getConfig().getInt("death-log.flush-interval", 10));
+        // Both run even when disabled so /pe reload can switch recording on later
+        loadDeathHotspotsAsync();
+        Bukkit.getScheduler().runTaskTimerAsynchronously(this, this::flushDeathLog,
+            20L * deathLogFlushInterval, 20L * deathLogFlushInterval);
+
         // Send startup messages to console with Adventure API colored text
         // Green for main message, light purple (magenta) for author credit
         // Uses Adventure API Component instead of legacy color codes
@@ -707,8 +1270,8 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
      *   <li>Iterate through all cached player data and save to disk files</li>
      *   <li>Clear player data cache to release memory</li>
      *   <li>Clear death locations map (any pending keeppos respawns are lost)</li>
-     *   <li>Save balance leaderboard signs to signs.yml for persistence</li>
-     *   <li>Clear balance sign maps (balanceSigns and pendingBalanceSigns)</li>
+     *   <li>Write sign registry changes still queued for signs.log</li>
+     *   <li>Clear leaderboard sign maps (leaderboardSigns and pendingLeaderboardSigns)</li>
      *   <li>Output shutdown message to console in red color</li>
      * </ol>
      * 
@@ -727,15 +1290,35 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
             savePlayerData(uuid);
         }
         
+        // Close any open extended ender chests so their contents are queued for saving,
+        // then wait for the write queue to finish before the plugin goes away
+        for (UUID uuid : new ArrayList<>(openExtendedEnderChests.keySet())) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null) {
+                player.closeInventory();
+            }
+        }
+        if (enderChestWriteQueue != null) {
+            enderChestWriteQueue.shutdown();
+        }
+        
         // Clear caches
         playerDataCache.clear();
         pendingDeathLocationChoices.clear();
         
-        // Save balance leaderboard signs
-        saveBalanceSigns();
-        balanceSigns.clear();
-        pendingBalanceSigns.clear();
+        // Write sign registry changes the async writer hasn't reached yet
+        leaderboardSignStore.flush();
+        leaderboardSigns.clear();
+        leaderboardSignsByChunk.clear();
+        renderedLeaderboardSigns.clear();
+        pendingLeaderboardSigns.clear();
+
+        // Write any deaths still waiting for the next batch
+        flushDeathLog();
         
+        // Persist names learned since the last periodic save
+        playerNames.save();
+
         // Send shutdown message to console in red
         // Indicates the plugin has stopped cleanly
         getServer().getConsoleSender().sendMessage(Component.text("[PixelsEssentials] PixelsEssentials Shutting Down", NamedTextColor.RED));
@@ -819,7 +1402,10 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
         
         // Save death location
         setLastDeathLocation(player, deathLocation);
-        
+
+        // Append to the death history log (batched write, no I/O on this tick)
+        recordDeath(player, deathLocation);
+
         // KeepXP - Preserve experience on death
         // If player has permission, keep their XP unchanged
         if (player.hasPermission("pixelsessentials.keepxp")) {
@@ -1068,25 +1654,38 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
         pendingDeathLocationChoices.remove(uuid);
         
         // Clean up any pending sign creation
-        pendingBalanceSigns.remove(uuid);
+        pendingLeaderboardSigns.remove(uuid);
+        
+        // Last values read while online; offline changes are caught by the rescans
+        recordRankingsOnQuit(player);
         
         // Clean up extended ender chest tracking
         // Note: If player quits with inventory open, the InventoryCloseEvent
         // should fire first, but we clean up here as a safety measure
-        Inventory openEnderChest = openExtendedEnderChests.remove(uuid);
+        ExtendedEnderChestSession openEnderChest = openExtendedEnderChests.remove(uuid);
         if (openEnderChest != null && debugMode) {
             getLogger().info("[DEBUG] ExtendedEnderChest: Cleaned up open inventory for " + player.getName() + " on quit");
         }
+        if (openEnderChest != null && !openEnderChest.owner.equals(uuid)) {
+            releaseStaffEnderChest(openEnderChest);
+        }
         
-        // Clear extended ender chest from cache (it's already saved or will be)
-        extendedEnderChestCache.remove(uuid);
+        // Drop a recipe unlock still in progress; it restarts on the next join
+        recipeUnlockScheduler.remove(uuid);
+        
+        // Clear extended ender chest from cache once it's saved. While a save is still
+        // queued the cache is the only up-to-date copy, so keep it for a quick rejoin;
+        // the write queue evicts it when it goes idle.
+        if (!enderChestWriteQueue.isBusy(uuid)) {
+            evictExtendedEnderChest(uuid);
+        }
     }
     
     /**
-     * Handles player right-click on signs to create balance leaderboard signs.
+     * Handles player right-click on signs to create leaderboard signs.
      * 
      * <p>When a player has a pending sign creation (from /pe show command),
-     * right-clicking a sign will convert it to a balance leaderboard sign.</p>
+     * right-clicking a sign will convert it to a leaderboard sign.</p>
      * 
      * @param event The PlayerInteractEvent
      */
@@ -1097,16 +1696,20 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
         if (!(event.getClickedBlock().getState() instanceof Sign)) return;
         
         Player player = event.getPlayer();
-        Integer pendingPlace = pendingBalanceSigns.get(player.getUniqueId());
+        LeaderboardSign pending = pendingLeaderboardSigns.get(player.getUniqueId());
         
-        if (pendingPlace != null) {
+        if (pending != null) {
             Location loc = event.getClickedBlock().getLocation();
-            balanceSigns.put(loc, pendingPlace);
-            updateBalanceSign(loc, pendingPlace);
-            pendingBalanceSigns.remove(player.getUniqueId());
-            saveBalanceSigns();
+            addLeaderboardSign(loc, pending);
+            // A place deeper than any before: publish now rather than show "No Player" for a second
+            Leaderboard board = leaderboards.get(pending.source);
+            if (board != null && board.snapshot.get().size() < Math.min(pending.place, board.index.size())) {
+                publishRankingSnapshot(board);
+            }
+            updateLeaderboardSign(loc, pending);
+            pendingLeaderboardSigns.remove(player.getUniqueId());
             
-            player.sendMessage(Component.text("Balance leaderboard sign #" + pendingPlace + " created successfully!", NamedTextColor.GREEN));
+            player.sendMessage(Component.text("Leaderboard sign " + pending.source + " #" + pending.place + " created successfully!", NamedTextColor.GREEN));
             event.setCancelled(true);
         }
     }
@@ -1190,11 +1793,10 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
     /**
      * Handles inventory close events for extended ender chest saving.
      * 
-     * <p>When a player closes an extended ender chest, this handler:</p>
-     * <ol>
-     *   <li>Syncs the first 27 slots back to the vanilla ender chest</li>
-     *   <li>Saves the second 27 slots to the extended storage file asynchronously</li>
-     * </ol>
+     * <p>When a player closes an extended ender chest, the page being shown is
+     * committed (see {@link #commitEnderChestPage}): vanilla slots are synced back and
+     * only changed stored slots are saved asynchronously. Pages that were shown
+     * earlier were already committed when the player switched away from them.</p>
      * 
      * @param event The InventoryCloseEvent
      */
@@ -1206,8 +1808,8 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
         UUID uuid = player.getUniqueId();
         
         // Check if this is one of our extended ender chests
-        Inventory openInv = openExtendedEnderChests.remove(uuid);
-        if (openInv == null || openInv != event.getInventory()) {
+        ExtendedEnderChestSession session = openExtendedEnderChests.remove(uuid);
+        if (session == null || session.inventory != event.getInventory()) {
             return;
         }
         
@@ -1215,26 +1817,11 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
             getLogger().info("[DEBUG] ExtendedEnderChest: Closing for " + player.getName());
         }
         
-        // Get the inventory contents
-        ItemStack[] contents = event.getInventory().getContents();
-        
-        // Sync first 27 slots back to vanilla ender chest
-        Inventory vanillaEnderChest = player.getEnderChest();
-        for (int i = 0; i < 27; i++) {
-            vanillaEnderChest.setItem(i, contents[i]);
-        }
+        commitEnderChestPage(player, session);
         
-        // Extract extended slots (27-53)
-        ItemStack[] extendedSlots = new ItemStack[27];
-        for (int i = 0; i < 27; i++) {
-            extendedSlots[i] = contents[i + 27];
+        if (!session.owner.equals(uuid)) {
+            releaseStaffEnderChest(session);
         }
-        
-        // Update cache
-        extendedEnderChestCache.put(uuid, extendedSlots);
-        
-        // Save asynchronously
-        saveExtendedEnderChestAsync(uuid, extendedSlots);
     }
     
     /**
@@ -1282,65 +1869,291 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
     }
     
     /**
-     * Handles player join events to unlock all recipes if configured.
-     * 
-     * <p>When unlock-recipes is true in config.yml, all cached recipe keys
-     * are discovered for the player on join. Uses pre-cached keys to avoid
-     * the expensive Bukkit.recipeIterator() call.</p>
+     * Starts loading the extended ender chest in the background when a player joins.
      * 
-     * <p>If caching is not yet complete, the player is added to a pending queue
-     * and will have recipes unlocked once caching finishes.</p>
+     * <p>By the time the player reaches an ender chest the contents are normally
+     * already in {@link #extendedEnderChestCache}, so opening it needs no disk access.</p>
      * 
      * @param event The PlayerJoinEvent
      */
     @EventHandler(priority = EventPriority.MONITOR)
-    public void onPlayerJoin(PlayerJoinEvent event) {
-        if (!unlockRecipesOnJoin) return;
-        
+    public void onEnderChestPrefetchJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
-        UUID uuid = player.getUniqueId();
         
-        // If recipe keys haven't been cached yet, queue this player
-        if (cachedRecipeKeys == null) {
-            pendingRecipeUnlockPlayers.add(uuid);
-            if (debugMode) {
-                getLogger().info("[DEBUG] Recipe keys not yet cached, queued " + player.getName() + " for later unlock");
-            }
-            return;
-        }
+        // Back online: pages cached for a staff view are now managed like any online player's
+        enderChestOfflineCacheExpiry.remove(player.getUniqueId());
         
-        // Use cached keys to unlock recipes
-        unlockRecipesForPlayer(player);
+        if (!enderChestPrefetchOnJoin) return;
+        if (!player.hasPermission("pixelsessentials.enderchest.extended")) return;
+        
+        prefetchExtendedEnderChest(new EnderChestPage(player.getUniqueId(), 1));
     }
     
     /**
-     * Unlocks all cached recipes for a player.
+     * Handles clicks in an extended ender chest: loading state and page navigation.
      * 
-     * @param player The player to unlock recipes for
-     */
-    private void unlockRecipesForPlayer(Player player) {
+     * <p>While a stored page is loading its slots hold placeholders, so every click in
+     * the view is cancelled (shift-clicks and double-clicks could otherwise move
+     * placeholders or fill placeholder slots). The state normally lasts only a few ticks.</p>
+     * 
+     * <p>In the paged view, clicks on the navigation row (raw slots 27-35) are always
+     * cancelled; the previous/next buttons switch pages on the next tick.</p>
+     * 
+     * @param event The InventoryClickEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onExtendedEnderChestClick(InventoryClickEvent event) {
+        if (!(event.getWhoClicked() instanceof Player)) return;
+        Player player = (Player) event.getWhoClicked();
+        
+        ExtendedEnderChestSession session = openExtendedEnderChests.get(player.getUniqueId());
+        if (session == null || session.inventory != event.getInventory()) return;
+        
+        if (session.isLoading()) {
+            event.setCancelled(true);
+            return;
+        }
+        
+        int rawSlot = event.getRawSlot();
+        if (!session.paged || rawSlot < ENDERCHEST_NAV_PREVIOUS || rawSlot > ENDERCHEST_NAV_NEXT) return;
+        
+        event.setCancelled(true);
+        
+        int targetPage;
+        if (rawSlot == ENDERCHEST_NAV_PREVIOUS) {
+            targetPage = session.page - 1;
+        } else if (rawSlot == ENDERCHEST_NAV_NEXT) {
+            targetPage = session.page + 1;
+        } else {
+            return;
+        }
+        
+        // Don't swap inventory contents in the middle of click handling
+        Bukkit.getScheduler().runTask(this, () -> switchEnderChestPage(player, session, targetPage));
+    }
+    
+    /**
+     * Blocks drags in an extended ender chest that is loading or that touch the
+     * navigation row of the paged view.
+     * 
+     * @param event The InventoryDragEvent
+     * @see #onExtendedEnderChestClick
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onExtendedEnderChestDrag(InventoryDragEvent event) {
+        ExtendedEnderChestSession session = openExtendedEnderChests.get(event.getWhoClicked().getUniqueId());
+        if (session == null || session.inventory != event.getInventory()) return;
+        
+        if (session.isLoading()) {
+            event.setCancelled(true);
+            return;
+        }
+        
+        if (session.paged) {
+            for (int rawSlot : event.getRawSlots()) {
+                if (rawSlot >= ENDERCHEST_NAV_PREVIOUS && rawSlot <= ENDERCHEST_NAV_NEXT) {
+                    event.setCancelled(true);
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Records a joining player's name and their values on every leaderboard.
+     * 
+     * <p>Picks up anything that changed while they were offline, including a new
+     * name, without waiting for the next full rescan.</p>
+     * 
+     * @param event The PlayerJoinEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLeaderboardJoin(PlayerJoinEvent event) {
+        playerNames.remember(event.getPlayer());
+        recordRankings(event.getPlayer(), null);
+    }
+    
+    /**
+     * Handles player join events to unlock all recipes if configured.
+     * 
+     * <p>When unlock-recipes is true in config.yml, all cached recipe keys
+     * are discovered for the player on join. Uses pre-cached keys to avoid
+     * the expensive Bukkit.recipeIterator() call.</p>
+     * 
+     * <p>If caching is not yet complete, the player is added to a pending queue
+     * and will have recipes unlocked once caching finishes.</p>
+     * 
+     * @param event The PlayerJoinEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        if (!unlockRecipesOnJoin) return;
+        
+        Player player = event.getPlayer();
+        UUID uuid = player.getUniqueId();
+        
+        // If recipe keys haven't been cached yet, queue this player
+        if (cachedRecipeKeys == null) {
+            pendingRecipeUnlockPlayers.add(uuid);
+            if (debugMode) {
+                getLogger().info("[DEBUG] Recipe keys not yet cached, queued " + player.getName() + " for later unlock");
+            }
+            return;
+        }
+        
+        // Use cached keys to unlock recipes
+        unlockRecipesForPlayer(player);
+    }
+    
+    /**
+     * Unlocks all cached recipes for a player.
+     * 
+     * <p>Skipped entirely if the player's stored fingerprint matches
+     * {@link #cachedRecipeFingerprint}, i.e. they already received this exact recipe set.
+     * Otherwise the player joins the {@link #recipeUnlockScheduler} queue, and the
+     * fingerprint is stored once the last batch is sent.</p>
+     * 
+     * @param player The player to unlock recipes for
+     */
+    private void unlockRecipesForPlayer(Player player) {
         if (cachedRecipeKeys == null || !player.isOnline()) return;
         
-        int unlocked = 0;
-        for (NamespacedKey key : cachedRecipeKeys) {
-            if (player.discoverRecipe(key)) {
-                unlocked++;
+        String fingerprint = cachedRecipeFingerprint;
+        if (fingerprint.equals(player.getPersistentDataContainer().get(recipeFingerprintKey, PersistentDataType.STRING))) {
+            recipeUnlockScheduler.recordSkipped();
+            if (debugMode) {
+                getLogger().info("[DEBUG] Recipe fingerprint matches for " + player.getName() + ", skipping unlock");
+            }
+            return;
+        }
+        
+        recipeUnlockScheduler.enqueue(player, cachedRecipeKeys, fingerprint);
+    }
+    
+    /**
+     * Computes the fingerprint of a recipe key set.
+     * 
+     * <p>Order independent: the keys are sorted before hashing, so the same recipes
+     * registered in a different order give the same fingerprint.</p>
+     * 
+     * @param keys The recipe keys
+     * @return Hex of the first 16 bytes of the SHA-256 over the sorted keys
+     */
+    private static String computeRecipeFingerprint(List<NamespacedKey> keys) {
+        List<String> sorted = new ArrayList<>(keys.size());
+        for (NamespacedKey key : keys) {
+            sorted.add(key.toString());
+        }
+        Collections.sort(sorted);
+        
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String key : sorted) {
+                digest.update(key.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
             }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
+    }
+    
+    /**
+     * Loads the recipe keys persisted by the last run, so unlocks can start on the
+     * first tick instead of waiting for the registry walk.
+     * 
+     * <p>Does nothing if the file is missing or doesn't pass its own count and
+     * fingerprint check. The loaded keys stay unvalidated until
+     * {@link #cacheRecipeKeysInBatches()} compares them with the live registry.</p>
+     */
+    private void loadRecipeKeyCache() {
+        File file = new File(getDataFolder(), RECIPE_CACHE_FILE);
+        if (!file.exists()) return;
         
-        if (debugMode && unlocked > 0) {
-            getLogger().info("[DEBUG] Unlocked " + unlocked + " new recipes for " + player.getName());
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != RECIPE_CACHE_MAGIC || in.readByte() != 1) {
+                getLogger().warning("Ignoring " + RECIPE_CACHE_FILE + ": unknown format");
+                return;
+            }
+            int count = in.readInt();
+            String fingerprint = in.readUTF();
+            
+            List<NamespacedKey> keys = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                NamespacedKey key = NamespacedKey.fromString(in.readUTF());
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+            
+            if (keys.size() != count || !fingerprint.equals(computeRecipeFingerprint(keys))) {
+                getLogger().warning("Ignoring " + RECIPE_CACHE_FILE + ": contents don't match its fingerprint");
+                return;
+            }
+            
+            cachedRecipeFingerprint = fingerprint;
+            cachedRecipeKeys = keys;
+            
+            getServer().getConsoleSender().sendMessage(Component.text(
+                "[PixelsEssentials] Loaded " + count + " cached recipe keys (in use until the recipe registry is checked)",
+                NamedTextColor.GREEN));
+        } catch (IOException e) {
+            getLogger().warning("Failed to read " + RECIPE_CACHE_FILE + ": " + e.getMessage());
         }
     }
     
+    /**
+     * Persists the recipe keys for the next startup, on an async thread.
+     * 
+     * <p><b>File format</b> (big-endian, via DataOutputStream):</p>
+     * <pre>
+     * int    magic        0x5045524B ("PERK")
+     * byte   version      1
+     * int    key count
+     * UTF    fingerprint  ({@link #computeRecipeFingerprint})
+     * UTF    key          (repeated, "namespace:key")
+     * </pre>
+     * 
+     * <p>Count and fingerprint together identify the registry contents, and are
+     * checked again on load to reject a damaged file.</p>
+     * 
+     * @param keys The validated recipe keys (not modified afterwards)
+     * @param fingerprint Their fingerprint
+     */
+    private void saveRecipeKeyCacheAsync(List<NamespacedKey> keys, String fingerprint) {
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            File file = new File(getDataFolder(), RECIPE_CACHE_FILE);
+            File tempFile = new File(getDataFolder(), RECIPE_CACHE_FILE + ".tmp");
+            
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                    out.writeInt(RECIPE_CACHE_MAGIC);
+                    out.writeByte(1);
+                    out.writeInt(keys.size());
+                    out.writeUTF(fingerprint);
+                    for (NamespacedKey key : keys) {
+                        out.writeUTF(key.toString());
+                    }
+                }
+                Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                getLogger().warning("Failed to save " + RECIPE_CACHE_FILE + ": " + e.getMessage());
+            }
+        });
+    }
+    
     /**
      * Caches all recipe NamespacedKeys in batches to avoid watchdog timeouts.
      * 
      * <p>Processes {@link #unlockRecipesBatchSize} recipes per tick, spreading the
      * expensive toBukkitRecipe() conversion across multiple server ticks.</p>
      * 
-     * <p>Once caching is complete, any players in {@link #pendingRecipeUnlockPlayers}
-     * are processed to have their recipes unlocked.</p>
+     * <p>Once caching is complete the keys count as validated. If they differ from the
+     * keys in use (loaded from {@link #RECIPE_CACHE_FILE} or from before a reload) they
+     * replace them and are persisted for the next startup. Online players without a
+     * stored fingerprint and any players in {@link #pendingRecipeUnlockPlayers} are then
+     * processed.</p>
      */
     private void cacheRecipeKeysInBatches() {
         final List<NamespacedKey> tempCache = new ArrayList<>();
@@ -1350,7 +2163,7 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
             "[PixelsEssentials] Starting batched recipe caching (batch size: " + unlockRecipesBatchSize + ")...", 
             NamedTextColor.YELLOW));
         
-        new org.bukkit.scheduler.BukkitRunnable() {
+        new BukkitRunnable() {
             @Override
             public void run() {
                 int processed = 0;
@@ -1374,13 +2187,28 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
                 if (!recipeIterator.hasNext()) {
                     cancel();
                     
-                    // Finalize cache
-                    cachedRecipeKeys = tempCache;
+                    // Finalize cache. If the registry still matches the keys in use, keep that
+                    // list so unlocks already running against it can store their fingerprint.
+                    String fingerprint = computeRecipeFingerprint(tempCache);
+                    boolean changed = cachedRecipeKeys == null || !fingerprint.equals(cachedRecipeFingerprint);
+                    if (changed) {
+                        cachedRecipeFingerprint = fingerprint;
+                        cachedRecipeKeys = tempCache;
+                        saveRecipeKeyCacheAsync(tempCache, fingerprint);
+                    }
+                    recipeKeysValidated = true;
                     
                     getServer().getConsoleSender().sendMessage(Component.text(
-                        "[PixelsEssentials] Cached " + cachedRecipeKeys.size() + " recipe keys for unlock-on-join", 
+                        "[PixelsEssentials] Cached " + cachedRecipeKeys.size() + " recipe keys for unlock-on-join"
+                            + (changed ? "" : " (unchanged since last run)"), 
                         NamedTextColor.GREEN));
                     
+                    // Players unlocked from unchecked keys have no fingerprint yet; queue them
+                    // again (already known recipes cost nothing) so it gets stored
+                    for (Player online : Bukkit.getOnlinePlayers()) {
+                        unlockRecipesForPlayer(online);
+                    }
+                    
                     // Process any players who joined while caching was in progress
                     if (!pendingRecipeUnlockPlayers.isEmpty()) {
                         int queuedCount = pendingRecipeUnlockPlayers.size();
@@ -1446,10 +2274,271 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
         if (data != null) {
             data.lastDeathLocation = LocationData.fromLocation(location);
             data.lastWasDeath = true;
-            savePlayerData(uuid);
+            // Deaths can come in bursts; keep the file write off the tick
+            savePlayerDataAsync(uuid);
         }
     }
-    
+
+    // ==================================================================================
+    // DEATH HISTORY LOG
+    // ==================================================================================
+
+    /**
+     * Records a death in the history log and the in-memory hotspot aggregate.
+     *
+     * <p>Runs on the main thread from {@link #onPlayerDeath}. Only cheap work happens
+     * here: the record is queued for the next batched write and the chunk counter is
+     * bumped. No file is touched.</p>
+     *
+     * @param player The player who died
+     * @param location Where the player died
+     */
+    private void recordDeath(Player player, Location location) {
+        if (!deathLogEnabled || location.getWorld() == null) return;
+
+        String cause = "UNKNOWN";
+        if (player.getLastDamageCause() != null) {
+            cause = player.getLastDamageCause().getCause().name();
+        }
+
+        DeathRecord record = new DeathRecord(
+            System.currentTimeMillis(),
+            player.getUniqueId(),
+            location.getWorld().getName(),
+            location.getBlockX(),
+            location.getBlockY(),
+            location.getBlockZ(),
+            cause
+        );
+
+        pendingDeathRecords.add(record);
+        addDeathToHotspots(record);
+
+        if (debugMode) {
+            getLogger().info("[DEBUG] DeathLog: Queued death of " + player.getName() + " (" + cause + ") at "
+                + record.worldName + " " + record.x + ", " + record.y + ", " + record.z);
+        }
+    }
+
+    /**
+     * Increments the hotspot counter for the chunk containing a death.
+     *
+     * @param record The death to count
+     */
+    private void addDeathToHotspots(DeathRecord record) {
+        deathHotspots
+            .computeIfAbsent(record.worldName, w -> new ConcurrentHashMap<>())
+            .merge(chunkKey(record.x >> 4, record.z >> 4), 1, Integer::sum);
+    }
+
+    /**
+     * Packs chunk coordinates into a single long for use as a map key.
+     *
+     * @param chunkX Chunk X coordinate
+     * @param chunkZ Chunk Z coordinate
+     * @return chunkX in the high 32 bits, chunkZ in the low 32 bits
+     */
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Appends all queued death records to {@link #deathLogFile} in one batch.
+     *
+     * <p>Called from the async flush timer and once more from {@link #onDisable()}.
+     * Synchronized so the shutdown flush cannot interleave with a timer flush.</p>
+     *
+     * <p>If the write fails, the file is cut back to its length before the batch, so
+     * it never ends in half a record, and the batch is kept for the next flush.</p>
+     *
+     * <p><b>Record format</b> (big-endian, via DataOutputStream):</p>
+     * <pre>
+     * long   timestamp (epoch millis)
+     * long   uuid most significant bits
+     * long   uuid least significant bits
+     * UTF    world name
+     * int    x, int y, int z (block coordinates)
+     * UTF    damage cause
+     * </pre>
+     */
+    private synchronized void flushDeathLog() {
+        // Never append after a torn record the startup load hasn't cut off yet
+        if (!deathHotspotsLoaded) return;
+        if (!deathLogWritable) {
+            pendingDeathRecords.clear();
+            return;
+        }
+
+        List<DeathRecord> batch = new ArrayList<>(unwrittenDeathRecords);
+        unwrittenDeathRecords.clear();
+        DeathRecord next;
+        while ((next = pendingDeathRecords.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) return;
+
+        int written = 0;
+        long before = deathLogFile.length();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(deathLogFile, true)))) {
+            for (DeathRecord record : batch) {
+                out.writeLong(record.timestamp);
+                out.writeLong(record.playerUuid.getMostSignificantBits());
+                out.writeLong(record.playerUuid.getLeastSignificantBits());
+                out.writeUTF(record.worldName);
+                out.writeInt(record.x);
+                out.writeInt(record.y);
+                out.writeInt(record.z);
+                out.writeUTF(record.cause);
+                written++;
+            }
+        } catch (IOException e) {
+            getLogger().severe("Failed to write death log, will retry: " + e.getMessage());
+            written = 0;
+            unwrittenDeathRecords.addAll(batch);
+            // Cut off whatever part of the batch made it, so the retry starts on a record boundary
+            try (RandomAccessFile raf = new RandomAccessFile(deathLogFile, "rw")) {
+                raf.setLength(before);
+            } catch (IOException truncateError) {
+                deathLogWritable = false;
+                getLogger().severe("Failed to repair death log, deaths won't be saved this session: " + truncateError.getMessage());
+            }
+        }
+
+        if (debugMode && written > 0) {
+            getLogger().info("[DEBUG] DeathLog: Flushed " + written + " death records to disk");
+        }
+    }
+
+    /**
+     * Rebuilds {@link #deathHotspots} from {@link #deathLogFile} on an async thread.
+     *
+     * <p>Runs holding the same lock as {@link #flushDeathLog}, which writes nothing
+     * until this has finished, so the file doesn't change while it is read. A
+     * truncated or malformed record (e.g. from a crash mid-write) is cut off the file
+     * with everything after it, so later appends start on a record boundary. Any other
+     * read error leaves the file alone and stops appending to it for the session.</p>
+     */
+    private void loadDeathHotspotsAsync() {
+        if (!deathLogFile.exists()) {
+            deathHotspotsLoaded = true;
+            return;
+        }
+
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            synchronized (this) {
+                int loaded = 0;
+                long length = deathLogFile.length();
+                long read = 0;
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                        new FileInputStream(deathLogFile)))) {
+                    while (read < length) {
+                        long timestamp = in.readLong();
+                        UUID uuid = new UUID(in.readLong(), in.readLong());
+                        String worldName = in.readUTF();
+                        int x = in.readInt();
+                        int y = in.readInt();
+                        int z = in.readInt();
+                        String cause = in.readUTF();
+
+                        DeathRecord record = new DeathRecord(timestamp, uuid, worldName, x, y, z, cause);
+                        addDeathToHotspots(record);
+                        read += record.encodedSize();
+                        loaded++;
+                    }
+                } catch (EOFException | UTFDataFormatException e) {
+                    getLogger().warning("Death log is damaged after " + loaded + " records: " + e.getMessage());
+                } catch (IOException e) {
+                    // Not damage in the file itself; leave it intact and don't append after it
+                    deathLogWritable = false;
+                    read = length;
+                    getLogger().severe("Failed to read death log after " + loaded + " records, deaths won't be saved this session: " + e.getMessage());
+                }
+
+                // Cut off a torn or damaged tail so the next flush appends on a record boundary
+                if (read < length) {
+                    try (RandomAccessFile raf = new RandomAccessFile(deathLogFile, "rw")) {
+                        raf.setLength(read);
+                        getLogger().warning("Removed " + (length - read) + " bytes of incomplete records from the end of the death log");
+                    } catch (IOException e) {
+                        deathLogWritable = false;
+                        getLogger().severe("Failed to repair death log, deaths won't be saved this session: " + e.getMessage());
+                    }
+                }
+
+                deathHotspotsLoaded = true;
+                getLogger().info("Loaded " + loaded + " deaths from death history log");
+            }
+        });
+    }
+
+    /**
+     * Handles /pe deaths hotspots &lt;world&gt; [limit].
+     *
+     * <p><b>Permission:</b> pixelsessentials.deaths</p>
+     *
+     * <p>Lists the chunks with the most deaths in a world, answered entirely from
+     * {@link #deathHotspots}.</p>
+     *
+     * @param sender The command sender
+     * @param args The full /pe arguments (args[0] is "deaths")
+     * @return true if command was handled
+     */
+    private boolean handleDeathsCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("pixelsessentials.deaths")) {
+            sender.sendMessage(Component.text("You don't have permission to use this command.", NamedTextColor.RED));
+            return true;
+        }
+
+        if (args.length < 3 || !args[1].equalsIgnoreCase("hotspots")) {
+            sender.sendMessage(Component.text("Usage: /pe deaths hotspots <world> [limit]", NamedTextColor.RED));
+            return true;
+        }
+
+        String worldName = args[2];
+        int limit = 10;
+        if (args.length >= 4) {
+            try {
+                limit = Math.max(1, Math.min(50, Integer.parseInt(args[3])));
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("Invalid limit: " + args[3], NamedTextColor.RED));
+                return true;
+            }
+        }
+
+        Map<Long, Integer> chunks = deathHotspots.get(worldName);
+        if (chunks == null || chunks.isEmpty()) {
+            sender.sendMessage(Component.text("No deaths recorded in " + worldName + ".", NamedTextColor.YELLOW));
+            return true;
+        }
+
+        List<Map.Entry<Long, Integer>> top = new ArrayList<>(chunks.entrySet());
+        top.sort(Map.Entry.<Long, Integer>comparingByValue().reversed());
+
+        int total = 0;
+        for (int count : chunks.values()) {
+            total += count;
+        }
+
+        sender.sendMessage(Component.text("Death hotspots in ", NamedTextColor.GOLD)
+            .append(Component.text(worldName, NamedTextColor.YELLOW))
+            .append(Component.text(" (" + total + " deaths in " + chunks.size() + " chunks)", NamedTextColor.GRAY)));
+        if (!deathHotspotsLoaded) {
+            sender.sendMessage(Component.text("History is still loading - counts are partial.", NamedTextColor.YELLOW));
+        }
+
+        for (int i = 0; i < Math.min(limit, top.size()); i++) {
+            long key = top.get(i).getKey();
+            int chunkX = (int) (key >> 32);
+            int chunkZ = (int) key;
+            sender.sendMessage(Component.text("#" + (i + 1) + " ", NamedTextColor.YELLOW)
+                .append(Component.text("chunk " + chunkX + ", " + chunkZ, NamedTextColor.WHITE))
+                .append(Component.text(" (blocks " + (chunkX << 4) + ", " + (chunkZ << 4) + ")", NamedTextColor.GRAY))
+                .append(Component.text(" - " + top.get(i).getValue() + " deaths", NamedTextColor.RED)));
+        }
+        return true;
+    }
+
     // ==================================================================================
     // COMMAND ROUTING
     // ==================================================================================
@@ -1981,6 +3070,7 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
         
         // Save to file
         savePlayerData(player.getUniqueId());
+        recordRankings(player, "homes");
         
         // Success message
         if (isUpdate) {
@@ -2051,6 +3141,7 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
         
         // Save to file
         savePlayerData(player.getUniqueId());
+        recordRankings(player, "homes");
         
         // Success message
         player.sendMessage(Component.text("Home '", NamedTextColor.GREEN)
@@ -2338,12 +3429,38 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
             if (sender.hasPermission("pixelsessentials.debug")) {
                 sender.sendMessage(Component.text("/pe debug <on|off>", NamedTextColor.YELLOW)
                     .append(Component.text(" - Toggle debug logging", NamedTextColor.GRAY)));
+                sender.sendMessage(Component.text("/pe recipes", NamedTextColor.YELLOW)
+                    .append(Component.text(" - Show recipe unlock queue metrics", NamedTextColor.GRAY)));
+            }
+            if (sender.hasPermission("pixelsessentials.rank")) {
+                sender.sendMessage(Component.text("/pe rank [leaderboard] [player]", NamedTextColor.YELLOW)
+                    .append(Component.text(" - Show a leaderboard rank and the players around it", NamedTextColor.GRAY)));
+            }
+            if (sender.hasPermission("pixelsessentials.leaderboard.history")) {
+                sender.sendMessage(Component.text("/pe leaderboard history [leaderboard] [count]", NamedTextColor.YELLOW)
+                    .append(Component.text(" - Show recorded leaderboard samples over time", NamedTextColor.GRAY)));
             }
             if (sender.hasPermission("pixelsessentials.show")) {
-                sender.sendMessage(Component.text("/pe show <place>", NamedTextColor.YELLOW)
-                    .append(Component.text(" - Create balance leaderboard sign", NamedTextColor.GRAY)));
+                sender.sendMessage(Component.text("/pe show <place> [leaderboard]", NamedTextColor.YELLOW)
+                    .append(Component.text(" - Create leaderboard sign", NamedTextColor.GRAY)));
                 sender.sendMessage(Component.text("/pe updatesigns", NamedTextColor.YELLOW)
-                    .append(Component.text(" - Force update all balance signs", NamedTextColor.GRAY)));
+                    .append(Component.text(" - Force update all leaderboard signs", NamedTextColor.GRAY)));
+            }
+            if (sender.hasPermission("pixelsessentials.deaths")) {
+                sender.sendMessage(Component.text("/pe deaths hotspots <world> [limit]", NamedTextColor.YELLOW)
+                    .append(Component.text(" - Show chunks with the most deaths", NamedTextColor.GRAY)));
+            }
+            if (sender.hasPermission("pixelsessentials.enderchest.admin")) {
+                sender.sendMessage(Component.text("/pe ec stats", NamedTextColor.YELLOW)
+                    .append(Component.text(" - Show ender chest save queue metrics", NamedTextColor.GRAY)));
+                sender.sendMessage(Component.text("/pe ec history <player> [page]", NamedTextColor.YELLOW)
+                    .append(Component.text(" - List saved ender chest snapshots", NamedTextColor.GRAY)));
+                sender.sendMessage(Component.text("/pe ec restore <player> <#>", NamedTextColor.YELLOW)
+                    .append(Component.text(" - Restore an ender chest snapshot", NamedTextColor.GRAY)));
+                sender.sendMessage(Component.text("/pe ec find <item>", NamedTextColor.YELLOW)
+                    .append(Component.text(" - Find players holding an item in extended ender chests", NamedTextColor.GRAY)));
+                sender.sendMessage(Component.text("/pe ec open <player>", NamedTextColor.YELLOW)
+                    .append(Component.text(" - Open a player's extended ender chest (works offline)", NamedTextColor.GRAY)));
             }
             return true;
         }
@@ -2362,15 +3479,41 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
             unlockRecipesOnJoin = getConfig().getBoolean("unlock-recipes", false);
             unlockRecipesDelay = getConfig().getInt("unlock-recipes-delay", 30);
             unlockRecipesBatchSize = getConfig().getInt("unlock-recipes-batch-size", 100);
+            unlockRecipesPerTick = Math.max(1, getConfig().getInt("unlock-recipes-per-tick", 250));
+            unlockRecipesBudgetPerTick = Math.max(1, getConfig().getInt("unlock-recipes-budget-per-tick", 1000));
             signUpdateInterval = getConfig().getInt("sign-update-interval", 60);
+            leaderboardSignBudgetMicros = Math.max(100, getConfig().getInt("leaderboard.sign-budget-micros", 2000));
+            leaderboardScanBudgetMicros = Math.max(100, getConfig().getInt("leaderboard.scan-budget-micros", 5000));
+            leaderboardPlaceholderDepth = Math.max(1, getConfig().getInt("leaderboard.placeholder-depth", 100));
+            leaderboardHistoryInterval = Math.max(1, getConfig().getInt("leaderboard.history.interval", 60));
+            leaderboardHistoryTop = Math.max(1, getConfig().getInt("leaderboard.history.top", 10));
             lobbyWorldName = getConfig().getString("lobby-world", "world");
-            
-            // Clear recipe cache and pending queue
-            cachedRecipeKeys = null;
-            pendingRecipeUnlockPlayers.clear();
+            deathLogEnabled = getConfig().getBoolean("death-log.enabled", true);
+            enderChestCompression = getConfig().getBoolean("enderchest.compression", false);
+            enderChestCompactAfter = Math.max(0, getConfig().getInt("enderchest.compact-after", 54));
+            enderChestPrefetchOnJoin = getConfig().getBoolean("enderchest.prefetch-on-join", true);
+            enderChestOfflineCacheSeconds = Math.max(0, getConfig().getInt("enderchest.offline-cache-seconds", 300));
+            if (getConfig().getBoolean("enderchest.history.enabled", true)) {
+                long historyBytes = Math.max(1L, getConfig().getLong("enderchest.history.max-size-mb", 256)) * 1024L * 1024L;
+                long historyInterval = Math.max(0L, getConfig().getLong("enderchest.history.min-interval", 300)) * 1000L;
+                if (enderChestHistory != null) {
+                    enderChestHistory.configure(historyBytes, historyInterval);
+                } else {
+                    enderChestHistory = new EnderChestHistory(new File(getDataFolder(), "ecblobs"), historyBytes, historyInterval);
+                    Bukkit.getScheduler().runTaskAsynchronously(this, enderChestHistory::ensureLoaded);
+                }
+            } else {
+                enderChestHistory = null;
+            }
+
+            // Keep unlocking from the current keys while they are re-checked against the registry
+            recipeKeysValidated = false;
             
             // Re-cache recipe keys if unlock-recipes is enabled (no delay on reload)
             if (unlockRecipesOnJoin) {
+                if (cachedRecipeKeys == null) {
+                    loadRecipeKeyCache();
+                }
                 cacheRecipeKeysInBatches();
             }
             
@@ -2423,15 +3566,9 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
                 return true;
             }
             
-            // Check if Vault economy is available
-            if (economy == null) {
-                sender.sendMessage(Component.text("Vault economy is not available!", NamedTextColor.RED));
-                return true;
-            }
-            
             if (args.length < 2) {
-                sender.sendMessage(Component.text("Usage: /pe show <place>", NamedTextColor.RED));
-                sender.sendMessage(Component.text("Example: /pe show 1 (creates 1st place sign)", NamedTextColor.GRAY));
+                sender.sendMessage(Component.text("Usage: /pe show <place> [leaderboard]", NamedTextColor.RED));
+                sender.sendMessage(Component.text("Example: /pe show 1 (creates 1st place balance sign)", NamedTextColor.GRAY));
                 return true;
             }
             
@@ -2447,32 +3584,135 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
                 return true;
             }
             
+            String source = args.length >= 3 ? args[2].toLowerCase(Locale.ROOT) : "balance";
+            if (!leaderboards.containsKey(source)) {
+                if (source.equals("balance")) {
+                    sender.sendMessage(Component.text("Vault economy is not available!", NamedTextColor.RED));
+                } else {
+                    sender.sendMessage(Component.text("Unknown leaderboard: " + source, NamedTextColor.RED));
+                }
+                if (!leaderboards.isEmpty()) {
+                    sender.sendMessage(Component.text("Available: " + String.join(", ", leaderboards.keySet()), NamedTextColor.GRAY));
+                }
+                return true;
+            }
+            
             Player player = (Player) sender;
-            pendingBalanceSigns.put(player.getUniqueId(), place);
+            pendingLeaderboardSigns.put(player.getUniqueId(), new LeaderboardSign(source, place));
             
-            sender.sendMessage(Component.text("Right-click a sign to make it a #" + place + " balance leaderboard sign!", NamedTextColor.GREEN));
+            sender.sendMessage(Component.text("Right-click a sign to make it a #" + place + " " + source + " leaderboard sign!", NamedTextColor.GREEN));
             return true;
         }
         
-        if (args[0].equalsIgnoreCase("updatesigns")) {
-            // Check permission
-            if (!sender.hasPermission("pixelsessentials.show")) {
+        if (args[0].equalsIgnoreCase("rank")) {
+            if (!sender.hasPermission("pixelsessentials.rank")) {
                 sender.sendMessage(Component.text("You don't have permission to use this command.", NamedTextColor.RED));
                 return true;
             }
             
-            // Force cache invalidation
-            topBalancesCache = null;
-            topBalancesCacheTime = 0;
-            
-            // Update all signs
-            updateAllBalanceSigns();
+            // A lone argument is a leaderboard unless a known player has that name; with
+            // two, the one naming a leaderboard (the first, if both do) is the leaderboard
+            Leaderboard board = leaderboards.get("balance");
+            String targetName = null;
+            if (args.length == 2) {
+                Leaderboard named = leaderboards.get(args[1].toLowerCase(Locale.ROOT));
+                if (named != null && resolveEnderChestOwner(args[1]) == null) {
+                    board = named;
+                } else {
+                    targetName = args[1];
+                }
+            } else if (args.length > 2) {
+                Leaderboard named = leaderboards.get(args[1].toLowerCase(Locale.ROOT));
+                if (named != null) {
+                    board = named;
+                    targetName = args[2];
+                } else {
+                    board = leaderboards.get(args[2].toLowerCase(Locale.ROOT));
+                    targetName = args[1];
+                    if (board == null) {
+                        sender.sendMessage(Component.text("Unknown leaderboard: " + args[2], NamedTextColor.RED));
+                        return true;
+                    }
+                }
+            }
+            if (board == null) {
+                sender.sendMessage(Component.text("No leaderboards are available.", NamedTextColor.RED));
+                return true;
+            }
             
-            sender.sendMessage(Component.text("Updated " + balanceSigns.size() + " balance leaderboard signs.", NamedTextColor.GREEN));
-            return true;
-        }
-        
-        sender.sendMessage(Component.text("Unknown command. Use /pe for help.", NamedTextColor.RED));
+            OfflinePlayer target;
+            if (targetName != null) {
+                target = resolveEnderChestOwner(targetName);
+                if (target == null) {
+                    sender.sendMessage(Component.text("Player not found: " + targetName, NamedTextColor.RED));
+                    return true;
+                }
+                boolean self = sender instanceof Player && ((Player) sender).getUniqueId().equals(target.getUniqueId());
+                if (!self && !sender.hasPermission("pixelsessentials.rank.others")) {
+                    sender.sendMessage(Component.text("You don't have permission to view other players' ranks.", NamedTextColor.RED));
+                    return true;
+                }
+            } else if (sender instanceof Player) {
+                target = (Player) sender;
+            } else {
+                sender.sendMessage(Component.text("Usage: /pe rank [leaderboard] <player>", NamedTextColor.RED));
+                return true;
+            }
+            
+            showLeaderboardRank(sender, board, target);
+            return true;
+        }
+        
+        if (args[0].equalsIgnoreCase("updatesigns")) {
+            // Check permission
+            if (!sender.hasPermission("pixelsessentials.show")) {
+                sender.sendMessage(Component.text("You don't have permission to use this command.", NamedTextColor.RED));
+                return true;
+            }
+            
+            // Redraw every loaded sign from the indexes now, then update again once full
+            // rescans have caught up with changes made elsewhere
+            renderedLeaderboardSigns.clear();
+            for (Leaderboard board : leaderboards.values()) {
+                publishRankingSnapshot(board);
+            }
+            updateAllLeaderboardSigns();
+            for (Leaderboard board : leaderboards.values()) {
+                rescanLeaderboard(board);
+            }
+            
+            sender.sendMessage(Component.text("Updated " + leaderboardSigns.size() + " leaderboard signs. Rescanning all leaderboards in the background.", NamedTextColor.GREEN));
+            long total = leaderboardSignUpdatesWritten + leaderboardSignUpdatesAvoided;
+            sender.sendMessage(Component.text("Sign block updates avoided since startup: ", NamedTextColor.GRAY)
+                .append(Component.text(leaderboardSignUpdatesAvoided + " of " + total
+                    + (total > 0 ? String.format(" (%.0f%%)", 100.0 * leaderboardSignUpdatesAvoided / total) : ""), NamedTextColor.AQUA)));
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("recipes")) {
+            // Check permission
+            if (!sender.hasPermission("pixelsessentials.debug")) {
+                sender.sendMessage(Component.text("You don't have permission to use this command.", NamedTextColor.RED));
+                return true;
+            }
+            
+            recipeUnlockScheduler.report(sender);
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("deaths")) {
+            return handleDeathsCommand(sender, args);
+        }
+
+        if (args[0].equalsIgnoreCase("ec")) {
+            return handleEnderChestAdminCommand(sender, args);
+        }
+
+        if (args[0].equalsIgnoreCase("leaderboard")) {
+            return handleLeaderboardCommand(sender, args);
+        }
+
+        sender.sendMessage(Component.text("Unknown command. Use /pe for help.", NamedTextColor.RED));
         return true;
     }
     
@@ -2599,15 +3839,64 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
      * 
      * <p>File location: plugins/PixelsEssentials/playerdata/{uuid}.yml</p>
      * 
+     * <p>Written to a temp file and moved into place, so a reader on another thread
+     * ({@link #countSavedHomes}) sees either the old file or the new one, never a
+     * half-written one. Supersedes any {@link #savePlayerDataAsync} write still
+     * waiting, since the cache now holds newer data.</p>
+     * 
      * @param uuid The player's UUID
      */
     private void savePlayerData(UUID uuid) {
+        String yaml = renderPlayerData(uuid);
+        if (yaml == null) {
+            return;
+        }
+        
+        synchronized (pendingPlayerDataWrites) {
+            pendingPlayerDataWrites.remove(uuid);
+            writePlayerDataFile(uuid, yaml);
+        }
+    }
+    
+    /**
+     * Saves a player's data without file I/O on the main thread, for hot paths such as
+     * deaths.
+     * 
+     * <p>The YAML is rendered here from the cache; an async task writes it. Saves
+     * queued before that task runs are coalesced into the newest one.</p>
+     * 
+     * @param uuid The player's UUID
+     */
+    private void savePlayerDataAsync(UUID uuid) {
+        String yaml = renderPlayerData(uuid);
+        if (yaml == null) {
+            return;
+        }
+        
+        if (pendingPlayerDataWrites.put(uuid, yaml) == null) {
+            Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+                synchronized (pendingPlayerDataWrites) {
+                    String newest = pendingPlayerDataWrites.remove(uuid);
+                    if (newest != null) {
+                        writePlayerDataFile(uuid, newest);
+                    }
+                }
+            });
+        }
+    }
+    
+    /**
+     * Renders a cached player's data as YAML (main thread).
+     * 
+     * @param uuid The player's UUID
+     * @return The file contents, or null if the player isn't cached
+     */
+    private String renderPlayerData(UUID uuid) {
         PlayerData data = playerDataCache.get(uuid);
         if (data == null) {
-            return;
+            return null;
         }
         
-        File playerFile = new File(playerDataFolder, uuid.toString() + ".yml");
         YamlConfiguration config = new YamlConfiguration();
         
         // Save last teleport location
@@ -2636,8 +3925,20 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
         // Save autofeed setting
         config.set("autofeed", data.autofeedEnabled);
         
+        return config.saveToString();
+    }
+    
+    /**
+     * Replaces a player's data file via a temp file. Caller holds the
+     * {@link #pendingPlayerDataWrites} lock.
+     */
+    private void writePlayerDataFile(UUID uuid, String yaml) {
+        File playerFile = new File(playerDataFolder, uuid.toString() + ".yml");
+        File tempFile = new File(playerDataFolder, uuid.toString() + ".yml.tmp");
         try {
-            config.save(playerFile);
+            Files.writeString(tempFile.toPath(), yaml, StandardCharsets.UTF_8);
+            Files.move(tempFile.toPath(), playerFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             getLogger().severe("Failed to save player data for " + uuid + ": " + e.getMessage());
         }
@@ -2722,41 +4023,63 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
     // ==================================================================================
     
     /**
-     * Opens the extended 54-slot ender chest for a player.
+     * Opens the extended ender chest for a player.
      * 
-     * <p>Creates a custom inventory containing:</p>
+     * <p>Players with a single stored page (see {@link #getEnderChestPages}) get the
+     * classic 54-slot chest:</p>
      * <ul>
      *   <li>Slots 0-26: Contents from the player's vanilla ender chest</li>
-     *   <li>Slots 27-53: Contents from the extended storage (lazy loaded)</li>
+     *   <li>Slots 27-53: Stored page 1 (lazy loaded)</li>
      * </ul>
      * 
+     * <p>Players with more pages get a 36-slot paged chest instead: slots 0-26 show
+     * one page at a time (page 0 is the vanilla ender chest, pages 1..N are stored
+     * pages) and slots 27-35 hold the navigation row. The same Inventory is reused
+     * for every page; see {@link #showEnderChestPage}.</p>
+     * 
+     * <p>Never reads a file on the main thread. If a stored page isn't cached yet
+     * (prefetch still running or disabled), it shows placeholder items and clicks are
+     * blocked until {@link #publishExtendedEnderChest} fills them in.</p>
+     * 
      * @param player The player to open the ender chest for
      */
     private void openExtendedEnderChest(Player player) {
         UUID uuid = player.getUniqueId();
         
+        // Staff are editing this chest (/pe ec open); don't let two views save over each other
+        if (enderChestStaffLocks.containsKey(uuid)) {
+            player.sendMessage(Component.text("Your ender chest is being inspected by staff. Please try again shortly.", NamedTextColor.YELLOW));
+            return;
+        }
+        
+        int pageCount = getEnderChestPages(player);
+        boolean paged = pageCount > 1;
+        
         if (debugMode) {
-            getLogger().info("[DEBUG] ExtendedEnderChest: Opening for " + player.getName());
+            getLogger().info("[DEBUG] ExtendedEnderChest: Opening for " + player.getName()
+                + " (" + pageCount + " stored page" + (pageCount == 1 ? "" : "s") + ")");
         }
         
-        // Create 54-slot inventory (double chest size)
-        Inventory extendedChest = Bukkit.createInventory(player, 54, 
+        // 54 slots (double chest) for vanilla + page 1, or 36 slots for one page + navigation row
+        Inventory extendedChest = Bukkit.createInventory(player, paged ? 36 : 54, 
             Component.text(EXTENDED_ENDERCHEST_TITLE));
         
-        // Copy vanilla ender chest contents to first 27 slots
-        Inventory vanillaEnderChest = player.getEnderChest();
-        for (int i = 0; i < 27; i++) {
-            extendedChest.setItem(i, vanillaEnderChest.getItem(i));
-        }
+        // Track this inventory so we can identify it on close, along with what was
+        // loaded so the close handler can tell which slots actually changed
+        ExtendedEnderChestSession session = new ExtendedEnderChestSession(uuid, extendedChest, paged, paged ? 0 : 1, pageCount);
         
-        // Load extended slots (lazy loading)
-        ItemStack[] extendedSlots = loadExtendedEnderChest(uuid);
-        for (int i = 0; i < 27; i++) {
-            extendedChest.setItem(i + 27, extendedSlots[i]);
+        if (paged) {
+            showEnderChestPage(player, session, 0);
+        } else {
+            // Copy vanilla ender chest contents to first 27 slots
+            Inventory vanillaEnderChest = player.getEnderChest();
+            for (int i = 0; i < 27; i++) {
+                extendedChest.setItem(i, vanillaEnderChest.getItem(i));
+            }
+            showEnderChestPage(player, session, 1);
         }
         
-        // Track this inventory so we can identify it on close
-        openExtendedEnderChests.put(uuid, extendedChest);
+        openExtendedEnderChests.put(uuid, session);
         
         // Open the inventory
         player.openInventory(extendedChest);
@@ -2766,1445 +4089,6658 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
     }
     
     /**
-     * Loads extended ender chest contents for a player (lazy loading).
+     * Fills the session's inventory with a page.
      * 
-     * <p>First checks the in-memory cache. If not cached, loads from
-     * the player's extended ender chest file: playerdata/{uuid}_enderchest.yml</p>
+     * <p>In the paged view, page 0 copies the vanilla ender chest into slots 0-26 and
+     * stored pages come from {@link #extendedEnderChestCache}. Only the page being shown
+     * is read from disk; a page that isn't cached yet shows loading placeholders and
+     * starts a background read. The navigation row is redrawn for the new page.</p>
      * 
-     * <p>The file stores contents as Base64-encoded serialized ItemStack array
-     * for compact storage.</p>
+     * <p>The caller must have committed the previous page first
+     * ({@link #commitEnderChestPage}).</p>
      * 
-     * @param uuid The player's UUID
-     * @return ItemStack array of size 27 (may contain null elements for empty slots)
+     * @param player The player viewing the chest (owner of the vanilla ender chest)
+     * @param session The open chest
+     * @param page The page to show (0 = vanilla, paged view only)
      */
-    private ItemStack[] loadExtendedEnderChest(UUID uuid) {
-        // Check cache first
-        ItemStack[] cached = extendedEnderChestCache.get(uuid);
-        if (cached != null) {
-            if (debugMode) {
-                getLogger().info("[DEBUG] ExtendedEnderChest: Loaded from cache for " + uuid);
-            }
-            return cached;
-        }
-        
-        // Load from file
-        File file = new File(playerDataFolder, uuid.toString() + "_enderchest.yml");
-        if (!file.exists()) {
-            if (debugMode) {
-                getLogger().info("[DEBUG] ExtendedEnderChest: No file exists for " + uuid + ", returning empty");
+    private void showEnderChestPage(Player player, ExtendedEnderChestSession session, int page) {
+        Inventory inventory = session.inventory;
+        int offset = session.storageOffset();
+        session.page = page;
+        session.loadedSlots = null;
+        
+        if (page == 0) {
+            Inventory vanillaEnderChest = player.getEnderChest();
+            for (int i = 0; i < 27; i++) {
+                inventory.setItem(i, vanillaEnderChest.getItem(i));
             }
-            ItemStack[] empty = new ItemStack[27];
-            extendedEnderChestCache.put(uuid, empty);
-            return empty;
-        }
-        
-        try {
-            YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
-            String base64 = config.getString("contents");
-            
-            if (base64 == null || base64.isEmpty()) {
-                if (debugMode) {
-                    getLogger().info("[DEBUG] ExtendedEnderChest: Empty contents for " + uuid);
+        } else {
+            EnderChestPage key = new EnderChestPage(session.owner, page);
+            ItemStack[] pageSlots = extendedEnderChestCache.get(key);
+            if (pageSlots != null) {
+                for (int i = 0; i < 27; i++) {
+                    inventory.setItem(offset + i, pageSlots[i]);
                 }
-                ItemStack[] empty = new ItemStack[27];
-                extendedEnderChestCache.put(uuid, empty);
-                return empty;
-            }
-            
-            ItemStack[] contents = itemStackArrayFromBase64(base64);
-            extendedEnderChestCache.put(uuid, contents);
-            
-            if (debugMode) {
-                int itemCount = 0;
-                for (ItemStack item : contents) {
-                    if (item != null) itemCount++;
+                session.setLoaded(pageSlots);
+            } else {
+                // Show a loading state rather than blocking the tick on disk I/O
+                ItemStack placeholder = createEnderChestUiItem(Material.GRAY_STAINED_GLASS_PANE,
+                    Component.text("Loading...").color(NamedTextColor.GRAY));
+                for (int i = 0; i < 27; i++) {
+                    inventory.setItem(offset + i, placeholder);
+                }
+                prefetchExtendedEnderChest(key);
+                
+                if (debugMode) {
+                    getLogger().info("[DEBUG] ExtendedEnderChest: Page " + key + " not loaded yet, showing loading state");
                 }
-                getLogger().info("[DEBUG] ExtendedEnderChest: Loaded " + itemCount + " items from file for " + uuid);
             }
-            
-            return contents;
-            
-        } catch (Exception e) {
-            getLogger().severe("Failed to load extended ender chest for " + uuid + ": " + e.getMessage());
-            ItemStack[] empty = new ItemStack[27];
-            extendedEnderChestCache.put(uuid, empty);
-            return empty;
+        }
+        
+        if (session.paged) {
+            drawEnderChestNavigation(session);
         }
     }
     
     /**
-     * Saves extended ender chest contents asynchronously.
+     * Draws the navigation row (slots 27-35) of a paged extended ender chest.
      * 
-     * <p>Serializes the ItemStack array to Base64 and writes to
-     * playerdata/{uuid}_enderchest.yml on an async thread to avoid
-     * blocking the main server thread.</p>
+     * <p>Slot 27 goes to the previous page, slot 35 to the next, and slot 31 shows
+     * the current page number. Pages are numbered from 1 for players, so in the owner's
+     * view the vanilla ender chest is "Page 1"; the staff view starts at stored page 1.</p>
      * 
-     * @param uuid The player's UUID
-     * @param contents The extended slot contents (27 items)
+     * @param session The open paged chest
      */
-    private void saveExtendedEnderChestAsync(UUID uuid, ItemStack[] contents) {
-        // Clone the contents array to avoid concurrent modification
-        final ItemStack[] contentsCopy = new ItemStack[contents.length];
-        for (int i = 0; i < contents.length; i++) {
-            contentsCopy[i] = contents[i] != null ? contents[i].clone() : null;
+    private void drawEnderChestNavigation(ExtendedEnderChestSession session) {
+        Inventory inventory = session.inventory;
+        ItemStack filler = createEnderChestUiItem(Material.BLACK_STAINED_GLASS_PANE, Component.text(" "));
+        for (int slot = ENDERCHEST_NAV_PREVIOUS; slot <= ENDERCHEST_NAV_NEXT; slot++) {
+            inventory.setItem(slot, filler);
         }
         
-        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
-            try {
-                String base64 = itemStackArrayToBase64(contentsCopy);
-                
-                File file = new File(playerDataFolder, uuid.toString() + "_enderchest.yml");
-                YamlConfiguration config = new YamlConfiguration();
-                config.set("contents", base64);
-                config.save(file);
-                
-                if (debugMode) {
-                    int itemCount = 0;
-                    for (ItemStack item : contentsCopy) {
-                        if (item != null) itemCount++;
-                    }
-                    getLogger().info("[DEBUG] ExtendedEnderChest: Saved " + itemCount + " items for " + uuid);
-                }
-                
-            } catch (Exception e) {
-                getLogger().severe("Failed to save extended ender chest for " + uuid + ": " + e.getMessage());
-            }
-        });
+        if (session.page > session.firstPage) {
+            inventory.setItem(ENDERCHEST_NAV_PREVIOUS, createEnderChestUiItem(Material.ARROW,
+                Component.text("Previous Page").color(NamedTextColor.YELLOW)));
+        }
+        if (session.page < session.pageCount) {
+            inventory.setItem(ENDERCHEST_NAV_NEXT, createEnderChestUiItem(Material.ARROW,
+                Component.text("Next Page").color(NamedTextColor.YELLOW)));
+        }
+        inventory.setItem(ENDERCHEST_NAV_INFO, createEnderChestUiItem(Material.BOOK,
+            Component.text("Page " + (session.page - session.firstPage + 1) + " of "
+                + (session.pageCount - session.firstPage + 1)).color(NamedTextColor.GOLD)));
     }
     
     /**
-     * Serializes an ItemStack array to a Base64 string.
+     * Commits the page currently shown in an extended ender chest.
+     * 
+     * <p>Called when the chest closes and before switching pages:</p>
+     * <ol>
+     *   <li>Syncs slots 0-26 back to the vanilla ender chest if they show it</li>
+     *   <li>Compares the stored page's slots with what was loaded when it was shown</li>
+     *   <li>Saves only the changed slots asynchronously, or nothing if none changed</li>
+     * </ol>
      * 
-     * <p>Uses BukkitObjectOutputStream for proper serialization of all
-     * ItemStack data including enchantments, lore, PDC, and NBT.</p>
+     * <p>A stored page that is still loading only holds placeholders and is skipped.</p>
      * 
-     * @param items The ItemStack array to serialize
-     * @return Base64-encoded string representation
-     * @throws IOException If serialization fails
+     * @param player The player viewing the chest (owner of the vanilla ender chest)
+     * @param session The open chest
      */
-    private String itemStackArrayToBase64(ItemStack[] items) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        try (BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream)) {
-            dataOutput.writeInt(items.length);
-            for (ItemStack item : items) {
-                dataOutput.writeObject(item);
+    private void commitEnderChestPage(Player player, ExtendedEnderChestSession session) {
+        Inventory inventory = session.inventory;
+        
+        // Sync vanilla slots back to the real ender chest
+        if (!session.paged || session.page == 0) {
+            Inventory vanillaEnderChest = player.getEnderChest();
+            for (int i = 0; i < 27; i++) {
+                vanillaEnderChest.setItem(i, inventory.getItem(i));
             }
         }
-        return Base64.getEncoder().encodeToString(outputStream.toByteArray());
+        if (session.page == 0) return;
+        
+        EnderChestPage key = new EnderChestPage(session.owner, session.page);
+        
+        // Closed or switched before the page finished loading: it only holds placeholders
+        if (session.loadedSlots == null) {
+            if (debugMode) {
+                getLogger().info("[DEBUG] ExtendedEnderChest: Page " + key + " left while loading, not saving");
+            }
+            return;
+        }
+        
+        // Extract the page's slots and note which ones differ from when it was shown
+        int offset = session.storageOffset();
+        ItemStack[] pageSlots = new ItemStack[27];
+        BitSet changedSlots = new BitSet(27);
+        for (int i = 0; i < 27; i++) {
+            ItemStack item = inventory.getItem(offset + i);
+            pageSlots[i] = item != null ? item.clone() : null;
+            if (!isSameSlotContents(session.loadedSlots[i], pageSlots[i])) {
+                changedSlots.set(i);
+            }
+        }
+        
+        // Just looked inside - nothing to re-serialize or write
+        if (changedSlots.isEmpty()) {
+            enderChestWriteQueue.recordUnchanged();
+            if (debugMode) {
+                getLogger().info("[DEBUG] ExtendedEnderChest: No changes on page " + key + ", skipping save");
+            }
+            return;
+        }
+        
+        // Update cache and the session baseline
+        extendedEnderChestCache.put(key, pageSlots);
+        session.setLoaded(pageSlots);
+        
+        // Save asynchronously
+        saveExtendedEnderChestAsync(key, pageSlots, changedSlots);
     }
     
     /**
-     * Deserializes an ItemStack array from a Base64 string.
+     * Switches a paged extended ender chest to another page (main thread).
      * 
-     * <p>Uses BukkitObjectInputStream for proper deserialization of all
-     * ItemStack data including enchantments, lore, PDC, and NBT.</p>
+     * <p>Commits the current page, then shows the new one in the same Inventory, so
+     * the player's view stays open and no new inventory is created.</p>
      * 
-     * @param base64 The Base64-encoded string to deserialize
-     * @return The deserialized ItemStack array
-     * @throws IOException If deserialization fails
+     * @param player The player viewing the chest
+     * @param session The open paged chest
+     * @param page The page to switch to (firstPage..pageCount)
      */
-    private ItemStack[] itemStackArrayFromBase64(String base64) throws IOException {
-        byte[] bytes = Base64.getDecoder().decode(base64);
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-        try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream)) {
-            int size = dataInput.readInt();
-            ItemStack[] items = new ItemStack[size];
-            for (int i = 0; i < size; i++) {
-                try {
-                    items[i] = (ItemStack) dataInput.readObject();
-                } catch (ClassNotFoundException e) {
-                    items[i] = null;
-                }
-            }
-            return items;
-        }
+    private void switchEnderChestPage(Player player, ExtendedEnderChestSession session, int page) {
+        // The chest may have been closed between the click and this tick
+        if (openExtendedEnderChests.get(player.getUniqueId()) != session) return;
+        if (page < session.firstPage || page > session.pageCount || page == session.page) return;
+        
+        commitEnderChestPage(player, session);
+        showEnderChestPage(player, session, page);
+        player.playSound(player.getLocation(), org.bukkit.Sound.UI_BUTTON_CLICK, 0.5f, 1.0f);
     }
     
-    // ==================================================================================
-    // TAB COMPLETION
-    // ==================================================================================
-    
     /**
-     * Provides tab completion for all plugin commands.
+     * Determines how many stored ender chest pages a player has, based on permissions.
      * 
-     * @param sender The command sender
-     * @param command The command object
-     * @param alias The command alias used
-     * @param args The current arguments
-     * @return List of tab completion options
+     * <p>Checks all pixelsessentials.enderchest.pages.&lt;tier&gt; permissions and returns
+     * the highest value from the enderchest.pages configuration section, the same way
+     * {@link #getMaxHomes} handles sethome-multiple. The vanilla ender chest is not
+     * counted. Pages beyond a player's current allowance stay on disk untouched.</p>
+     * 
+     * @param player The player to check
+     * @return Stored pages (1 to {@link #ENDERCHEST_MAX_PAGES})
      */
-    @Override
-    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
-        List<String> completions = new ArrayList<>();
-        String cmdName = command.getName().toLowerCase();
+    private int getEnderChestPages(Player player) {
+        ConfigurationSection pagesSection = getConfig().getConfigurationSection("enderchest.pages");
+        if (pagesSection == null) {
+            return 1;
+        }
         
-        switch (cmdName) {
-            case "repair":
-                return tabCompleteRepair(sender, args);
-            case "home":
-            case "homes":
-                return tabCompleteHome(sender, args);
-            case "sethome":
-                // No tab completion needed for sethome
-                return completions;
-            case "delhome":
-            case "homeinfo":
-                return tabCompleteHomeNames(sender, args);
-            case "autofeed":
-                return tabCompleteAutofeed(sender, args);
-            case "giveenchanteditem":
-                return tabCompleteGiveEnchantedItem(sender, args);
-            case "withdraw":
-                return tabCompleteWithdraw(sender, args);
-            case "pixelsessentials":
-                return tabCompleteMain(sender, args);
-            default:
-                return completions;
+        int pages = 1;
+        for (String tier : pagesSection.getKeys(false)) {
+            int tierValue = pagesSection.getInt(tier, 0);
+            if (tierValue > pages && player.hasPermission("pixelsessentials.enderchest.pages." + tier)) {
+                pages = tierValue;
+            }
         }
+        return Math.min(pages, ENDERCHEST_MAX_PAGES);
     }
     
     /**
-     * Tab completion for /repair command.
+     * Finds the open view of a player's extended ender chest, whoever is viewing it.
+     * 
+     * @param owner The chest owner's UUID
+     * @return The open session, or null if nobody has this chest open
      */
-    private List<String> tabCompleteRepair(CommandSender sender, String[] args) {
-        List<String> completions = new ArrayList<>();
-        
-        if (args.length == 1) {
-            // First argument - subcommands
-            if (sender.hasPermission("pixelsessentials.repair.hand")) {
-                completions.add("hand");
-            }
-            if (sender.hasPermission("pixelsessentials.repair.all")) {
-                completions.add("all");
-            }
-            if (sender.hasPermission("pixelsessentials.repair.player")) {
-                completions.add("player");
+    private ExtendedEnderChestSession findEnderChestSession(UUID owner) {
+        for (ExtendedEnderChestSession session : openExtendedEnderChests.values()) {
+            if (session.owner.equals(owner)) {
+                return session;
             }
-            
-            return filterCompletions(completions, args[0]);
         }
+        return null;
+    }
+    
+    /**
+     * Opens another player's stored ender chest pages for staff (/pe ec open).
+     * 
+     * <p>Works for offline players. Which pages exist is worked out on an async thread
+     * (highest page file on disk, or the owner's permission tier if online), then the
+     * paged view opens at stored page 1. Pages load in the background like the owner's
+     * own view and every change is saved through {@link #enderChestWriteQueue}. The vanilla
+     * ender chest is not shown.</p>
+     * 
+     * <p>The owner is locked out of their own extended chest while staff have it open
+     * (see {@link #enderChestStaffLocks}), and staff can't open a chest the owner
+     * or another staff member is using.</p>
+     * 
+     * @param staff The staff member
+     * @param owner The chest owner
+     */
+    private void openEnderChestForStaff(Player staff, OfflinePlayer owner) {
+        UUID ownerId = owner.getUniqueId();
         
-        if (args.length == 2 && args[0].equalsIgnoreCase("player")) {
-            // Second argument for player - online player names
-            if (sender.hasPermission("pixelsessentials.repair.player")) {
-                for (Player player : Bukkit.getOnlinePlayers()) {
-                    completions.add(player.getName());
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            int storedPages = 1;
+            for (int page = 2; page <= ENDERCHEST_MAX_PAGES; page++) {
+                if (getEnderChestFile(ownerId, page).exists()) {
+                    storedPages = page;
                 }
             }
+            final int highestStoredPage = storedPages;
             
-            return filterCompletions(completions, args[1]);
-        }
-        
-        return completions;
+            Bukkit.getScheduler().runTask(this, () -> {
+                if (!staff.isOnline()) return;
+                
+                // Checked here, on the main thread, so nothing can open the chest in between
+                if (findEnderChestSession(ownerId) != null || enderChestStaffLocks.containsKey(ownerId)) {
+                    staff.sendMessage(Component.text(owner.getName() + "'s ender chest is already open. Try again when it is closed.", NamedTextColor.RED));
+                    return;
+                }
+                
+                Player onlineOwner = owner.getPlayer();
+                int pageCount = Math.max(highestStoredPage, onlineOwner != null ? getEnderChestPages(onlineOwner) : 1);
+                
+                Inventory view = Bukkit.createInventory(staff, 36,
+                    Component.text(EXTENDED_ENDERCHEST_TITLE + " - " + owner.getName()));
+                ExtendedEnderChestSession session = new ExtendedEnderChestSession(ownerId, view, true, 1, pageCount);
+                
+                // Close whatever the staff member had open first so its close event can't clear our session
+                staff.closeInventory();
+                enderChestStaffLocks.put(ownerId, staff.getUniqueId());
+                enderChestOfflineCacheExpiry.remove(ownerId);
+                showEnderChestPage(staff, session, 1);
+                openExtendedEnderChests.put(staff.getUniqueId(), session);
+                staff.openInventory(view);
+                
+                getLogger().info(staff.getName() + " opened the extended ender chest of " + owner.getName());
+            });
+        });
     }
     
     /**
-     * Tab completion for /home command - shows player's home names.
+     * Releases a staff view after it was closed: unlocks the owner and, for an offline
+     * owner, keeps the pages cached for enderchest.offline-cache-seconds.
+     * 
+     * @param session The closed staff session
      */
-    private List<String> tabCompleteHome(CommandSender sender, String[] args) {
-        List<String> completions = new ArrayList<>();
+    private void releaseStaffEnderChest(ExtendedEnderChestSession session) {
+        UUID owner = session.owner;
+        enderChestStaffLocks.remove(owner);
         
-        if (!(sender instanceof Player)) {
-            return completions;
-        }
+        if (Bukkit.getPlayer(owner) != null) return;
         
-        if (args.length == 1) {
-            Player player = (Player) sender;
-            loadPlayerData(player.getUniqueId());
-            
-            PlayerData data = playerDataCache.get(player.getUniqueId());
-            if (data != null) {
-                completions.addAll(data.homes.keySet());
+        enderChestOfflineCacheExpiry.put(owner, System.currentTimeMillis() + enderChestOfflineCacheSeconds * 1000L);
+        Bukkit.getScheduler().runTaskLater(this, () -> {
+            if (!enderChestWriteQueue.isBusy(owner)) {
+                evictExtendedEnderChest(owner);
             }
-            
-            return filterCompletions(completions, args[0]);
-        }
-        
-        return completions;
+        }, enderChestOfflineCacheSeconds * 20L + 1);
     }
     
     /**
-     * Tab completion for /delhome and /homeinfo - shows player's home names.
+     * Starts reading a stored ender chest page on an async thread.
+     * 
+     * <p>Does nothing if the page is already cached or a read is already running.
+     * The result is handed back to the main thread and published by
+     * {@link #publishExtendedEnderChest}.</p>
+     * 
+     * <p>The legacy playerdata/{uuid}_enderchest.yml fallback is handled by
+     * {@link #readExtendedEnderChest}, so YAML and Base64 decoding also stay off the
+     * main thread.</p>
+     * 
+     * @param key The owner and page to read
      */
-    private List<String> tabCompleteHomeNames(CommandSender sender, String[] args) {
-        return tabCompleteHome(sender, args);
+    private void prefetchExtendedEnderChest(EnderChestPage key) {
+        if (extendedEnderChestCache.containsKey(key) || enderChestLoads.containsKey(key)) {
+            return;
+        }
+        
+        CompletableFuture<ItemStack[]> load = new CompletableFuture<>();
+        enderChestLoads.put(key, load);
+        
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            long start = System.nanoTime();
+            ItemStack[] contents = readExtendedEnderChest(key);
+            load.complete(contents);
+            
+            if (debugMode) {
+                getLogger().info("[DEBUG] ExtendedEnderChest: Read " + key + " in "
+                    + String.format("%.2f ms", (System.nanoTime() - start) / 1_000_000.0));
+            }
+            
+            if (isEnabled()) {
+                Bukkit.getScheduler().runTask(this, () -> publishExtendedEnderChest(key, contents));
+            }
+        });
     }
     
     /**
-     * Tab completion for /autofeed command.
+     * Publishes a finished background read (main thread).
+     * 
+     * <p>Stores the page in {@link #extendedEnderChestCache} and, if it is currently
+     * shown with loading placeholders, swaps the real items in. If the owner logged
+     * off during the read and nobody has the chest open, the result is dropped
+     * instead of cached.</p>
+     * 
+     * @param key The owner and page that was read
+     * @param contents The page's slots read from disk
      */
-    private List<String> tabCompleteAutofeed(CommandSender sender, String[] args) {
-        List<String> completions = new ArrayList<>();
+    private void publishExtendedEnderChest(EnderChestPage key, ItemStack[] contents) {
+        enderChestLoads.remove(key);
         
-        if (args.length == 1) {
-            completions.add("on");
-            completions.add("off");
-            return filterCompletions(completions, args[0]);
+        ExtendedEnderChestSession session = findEnderChestSession(key.owner);
+        if (session == null && Bukkit.getPlayer(key.owner) == null) {
+            return;
         }
         
-        return completions;
+        ItemStack[] published = extendedEnderChestCache.putIfAbsent(key, contents);
+        if (published == null) {
+            published = contents;
+        }
+        
+        if (session != null && session.page == key.page && session.loadedSlots == null) {
+            int offset = session.storageOffset();
+            for (int i = 0; i < 27; i++) {
+                session.inventory.setItem(offset + i, published[i]);
+            }
+            session.setLoaded(published);
+        }
     }
     
-    // ==================================================================================
-    // GIVE ENCHANTED ITEM COMMAND
-    // ==================================================================================
+    /**
+     * Drops all of a player's cached ender chest pages once they're gone and saved.
+     * 
+     * <p>Called on quit when nothing is queued, by the write queue (scheduled onto
+     * the main thread) when it finishes a player's last save, and when the offline
+     * cache period after a staff view runs out. Keeps the entries if the player has
+     * come back online, anyone has the chest open, or the offline cache period after
+     * /pe ec open hasn't ended.</p>
+     * 
+     * @param uuid The player's UUID
+     */
+    private void evictExtendedEnderChest(UUID uuid) {
+        if (Bukkit.getPlayer(uuid) != null || findEnderChestSession(uuid) != null) {
+            return;
+        }
+        Long expiry = enderChestOfflineCacheExpiry.get(uuid);
+        if (expiry != null) {
+            if (System.currentTimeMillis() < expiry) return;
+            enderChestOfflineCacheExpiry.remove(uuid);
+        }
+        extendedEnderChestCache.keySet().removeIf(key -> key.owner.equals(uuid));
+        String filePrefix = uuid.toString() + "_enderchest";
+        enderChestDeltaRecords.keySet().removeIf(name -> name.startsWith(filePrefix));
+    }
     
     /**
-     * Handles the /giveenchanteditem (alias: /gei) command for giving ItemsAdder custom items.
+     * Creates an extended ender chest UI item (loading placeholder or navigation button).
      * 
-     * <p><b>Requires:</b> ItemsAdder plugin to be installed and loaded</p>
-     * <p><b>Permission:</b> pixelsessentials.giveenchanteditem</p>
+     * <p>Tagged with {@link #enderChestUiKey}; the tag also keeps these items from ever
+     * stacking with a player's own items. The click and drag handlers keep them from
+     * leaving the chest.</p>
      * 
-     * <p><b>Usage:</b> /gei &lt;player&gt; &lt;ia_item&gt; [count] [name:Custom_Name] [lore:Custom_Lore] [durability:N] [enchant:level]...</p>
+     * @param material The item type
+     * @param name The display name
+     * @return A new UI item
+     */
+    private ItemStack createEnderChestUiItem(Material material, Component name) {
+        ItemStack item = new ItemStack(material);
+        ItemMeta meta = item.getItemMeta();
+        meta.displayName(name.decoration(TextDecoration.ITALIC, false));
+        meta.getPersistentDataContainer().set(enderChestUiKey, PersistentDataType.BYTE, (byte) 1);
+        item.setItemMeta(meta);
+        return item;
+    }
+    
+    /**
+     * Reads a stored ender chest page from disk, bypassing the cache.
      * 
-     * <p><b>Arguments (flexible order after item):</b></p>
-     * <ul>
-     *   <li><b>player:</b> Target player name (must be online)</li>
-     *   <li><b>ia_item:</b> ItemsAdder item ID (e.g., "fairyset:fairy_helmet")</li>
-     *   <li><b>count:</b> Number of items (1-64, default 1)</li>
-     *   <li><b>name:Name:</b> Custom display name (underscores become spaces, supports &amp; color codes)</li>
-     *   <li><b>lore:Lore:</b> Custom lore line (underscores become spaces, supports &amp; color codes)</li>
-     *   <li><b>durability:N:</b> Set max durability (e.g., "durability:5000" for 5000 max durability)</li>
-     *   <li><b>enchant:level:</b> Enchantment with level (e.g., "protection:30", "mending")</li>
-     * </ul>
+     * <p>Thread-safe; normally called from {@link #prefetchExtendedEnderChest} on an
+     * async thread.</p>
      * 
-     * <p><b>Enchantment Notes:</b></p>
-     * <ul>
-     *   <li>Enchantments without a :level suffix default to level 1</li>
-     *   <li>Uses addUnsafeEnchantment() to allow any level on any item</li>
-     *   <li>Enchantment names use Minecraft namespace keys (e.g., "sharpness", "fire_protection")</li>
-     * </ul>
+     * <p>Prefers the binary file (see {@link #getEnderChestFile}). For page 1 only,
+     * falls back to the legacy {uuid}_enderchest.yml and marks the player in
+     * {@link #legacyEnderChestMigrations} so the next save rewrites it in the binary format.</p>
      * 
-     * <p><b>Example:</b> /gei Craig fairyset:fairy_helmet 1 name:&amp;6&amp;oAzathoth's_Helmet durability:5000 protection:30 mending aqua_affinity</p>
+     * <p>A file that can't be read at all is moved to {name}.bad and the page starts
+     * empty. If it can't be moved, the page is listed in {@link #unreadableEnderChestFiles}
+     * so no save replaces it. Single items that fail to decode are skipped by
+     * {@link #readEnderChestBinary}.</p>
      * 
-     * <p>If target inventory is full, items are dropped at the player's feet.</p>
+     * @param key The owner and page to read
+     * @return ItemStack array of size 27, empty if no file exists or it can't be read
+     */
+    private ItemStack[] readExtendedEnderChest(EnderChestPage key) {
+        UUID uuid = key.owner;
+        File file = getEnderChestFile(uuid, key.page);
+        File legacyFile = getLegacyEnderChestFile(uuid);
+        
+        try {
+            ItemStack[] contents;
+            if (file.exists()) {
+                contents = readEnderChestBinary(file);
+            } else if (key.page == 1 && legacyFile.exists()) {
+                contents = readEnderChestLegacy(legacyFile);
+                legacyEnderChestMigrations.add(uuid);
+                
+                if (debugMode) {
+                    getLogger().info("[DEBUG] ExtendedEnderChest: Read legacy YAML for " + uuid + ", will migrate on next save");
+                }
+            } else {
+                if (debugMode) {
+                    getLogger().info("[DEBUG] ExtendedEnderChest: No file exists for " + key + ", returning empty");
+                }
+                return new ItemStack[27];
+            }
+            
+            if (debugMode) {
+                int itemCount = 0;
+                for (ItemStack item : contents) {
+                    if (item != null) itemCount++;
+                }
+                getLogger().info("[DEBUG] ExtendedEnderChest: Loaded " + itemCount + " items from file for " + key);
+            }
+            
+            return contents;
+            
+        } catch (Exception e) {
+            File unreadable = file.exists() ? file : legacyFile;
+            if (quarantineEnderChestFile(unreadable)) {
+                getLogger().severe("Failed to load extended ender chest " + key + " (" + e.getMessage() + "); moved "
+                    + unreadable.getName() + " to " + unreadable.getName() + ".bad and started the page empty");
+            } else {
+                unreadableEnderChestFiles.put(key, unreadable);
+                getLogger().severe("Failed to load extended ender chest " + key + " (" + e.getMessage() + ") and couldn't move "
+                    + unreadable.getName() + " aside; the page won't be saved until it can be");
+            }
+            return new ItemStack[27];
+        }
+    }
+    
+    /**
+     * Moves an unreadable ender chest file to {name}.bad, keeping it for recovery by hand.
      * 
-     * @param sender The command sender (player or console)
-     * @param args The command arguments
-     * @return true always (command was handled)
+     * @param file The binary or legacy ender chest file
+     * @return true if the file was moved; false if it couldn't be or {name}.bad already exists
      */
-    private boolean handleGiveEnchantedItemCommand(CommandSender sender, String[] args) {
-        // Check permission
-        if (!sender.hasPermission("pixelsessentials.giveenchanteditem")) {
-            sender.sendMessage(Component.text("You don't have permission to use this command.", NamedTextColor.RED));
-            return true;
+    private boolean quarantineEnderChestFile(File file) {
+        File bad = new File(file.getParentFile(), file.getName() + ".bad");
+        if (bad.exists() || !file.renameTo(bad)) {
+            return false;
+        }
+        enderChestDeltaRecords.remove(file.getName());
+        return true;
+    }
+    
+    /**
+     * Saves a stored ender chest page asynchronously.
+     * 
+     * <p>Hands a snapshot to {@link #enderChestWriteQueue}. Writes for the same page are
+     * applied strictly in order, and a snapshot still waiting in the queue is replaced
+     * by a newer one instead of being written, so a slow earlier save can never
+     * overwrite a later one.</p>
+     * 
+     * @param key The owner and page
+     * @param contents The page's slot contents (27 items, already private copies that
+     *                 are never modified afterwards)
+     * @param changedSlots Slots that differ from what is on disk
+     */
+    private void saveExtendedEnderChestAsync(EnderChestPage key, ItemStack[] contents, BitSet changedSlots) {
+        // Item keys need the ItemsAdder API, so they are worked out here on the main thread
+        EnderChestItemIndex index = enderChestItemIndex;
+        Map<String, int[]> itemCounts = index != null ? index.countItems(contents) : null;
+        enderChestWriteQueue.submit(key, contents.clone(), (BitSet) changedSlots.clone(), itemCounts);
+    }
+    
+    /**
+     * Writes a stored ender chest page to disk on the calling thread.
+     * 
+     * <p>Called by {@link EnderChestWriteQueue} on its writer threads. When the file's
+     * record count is known and compaction isn't due, only the changed slots are
+     * encoded and appended as delta records; otherwise the whole page is rewritten.
+     * Also completes any pending legacy YAML migration (page 1 only).</p>
+     * 
+     * @param key The owner and page
+     * @param contents A private copy of the page's slot contents
+     * @param changedSlots Slots that differ from what is on disk
+     * @param itemCounts The page's item index entry, counted on the main thread; null
+     *                   when the item index is disabled
+     * @return true if delta records were appended, false if the file was rewritten
+     * @throws IOException If the file cannot be written, or the page is in
+     *                     {@link #unreadableEnderChestFiles} and still can't be moved aside
+     */
+    private boolean writeExtendedEnderChest(EnderChestPage key, ItemStack[] contents, BitSet changedSlots,
+                                            Map<String, int[]> itemCounts) throws IOException {
+        UUID uuid = key.owner;
+        File unreadable = unreadableEnderChestFiles.get(key);
+        if (unreadable != null) {
+            if (unreadable.exists() && !quarantineEnderChestFile(unreadable)) {
+                throw new IOException(unreadable.getName() + " couldn't be read or moved aside; not saving over it");
+            }
+            unreadableEnderChestFiles.remove(key);
+            getLogger().warning("Moved unreadable " + unreadable.getName() + " to " + unreadable.getName() + ".bad; saving " + key);
         }
         
-        // Check arguments
-        if (args.length < 2) {
-            sender.sendMessage(Component.text("Usage: /gei <player> <ia_item> [count] [name:Name] [lore:Lore] [durability:N] [enchant:level]...", NamedTextColor.RED));
-            sender.sendMessage(Component.text("Example: /gei Craig fairyset:fairy_helmet 1 name:&6&oAzathoth's_Helmet durability:5000 protection:30 mending", NamedTextColor.GRAY));
-            sender.sendMessage(Component.text("Note: Underscores become spaces in name/lore. Enchants without :level default to 1.", NamedTextColor.GRAY));
-            return true;
+        File file = getEnderChestFile(uuid, key.page);
+        boolean migrating = key.page == 1 && legacyEnderChestMigrations.contains(uuid);
+        Integer deltaRecords = enderChestDeltaRecords.get(file.getName());
+        int newRecords = changedSlots.cardinality();
+        
+        boolean append = deltaRecords != null
+            && file.exists()
+            && !migrating
+            && deltaRecords + newRecords <= enderChestCompactAfter;
+        
+        // Encode only what is about to be written; unchanged slots are left null on append
+        byte[][] encoded = new byte[contents.length][];
+        for (int slot = 0; slot < contents.length; slot++) {
+            if (!append || changedSlots.get(slot)) {
+                encoded[slot] = encodeEnderChestItem(contents[slot]);
+            }
         }
         
-        // Get target player
-        String playerName = args[0];
-        Player target = Bukkit.getPlayer(playerName);
+        if (append) {
+            appendEnderChestDelta(file, encoded, changedSlots);
+            enderChestDeltaRecords.put(file.getName(), deltaRecords + newRecords);
+        } else {
+            writeEnderChestBinary(file, encoded);
+            enderChestDeltaRecords.put(file.getName(), 0);
+        }
         
-        if (target == null) {
-            sender.sendMessage(Component.text("Player not found: " + playerName, NamedTextColor.RED));
-            return true;
+        // Keep a restorable copy; reuses the bytes encoded above
+        EnderChestHistory history = enderChestHistory;
+        if (history != null) {
+            history.record(key, contents, encoded);
+        }
+        if (enderChestItemIndex != null && itemCounts != null) {
+            enderChestItemIndex.update(key, itemCounts);
         }
         
-        String itemId = args[1];
+        // Lazy migration: the binary file now holds everything the YAML did
+        if (migrating && legacyEnderChestMigrations.remove(uuid)) {
+            File legacyFile = getLegacyEnderChestFile(uuid);
+            if (legacyFile.exists() && !legacyFile.delete()) {
+                getLogger().warning("Failed to delete migrated legacy ender chest file " + legacyFile.getName());
+            } else if (debugMode) {
+                getLogger().info("[DEBUG] ExtendedEnderChest: Migrated " + uuid + " from YAML to binary format");
+            }
+        }
         
-        // Get the ItemsAdder custom item
-        CustomStack customStack = CustomStack.getInstance(itemId);
-        if (customStack == null) {
-            sender.sendMessage(Component.text("Unknown ItemsAdder item: " + itemId, NamedTextColor.RED));
+        if (debugMode) {
+            int itemCount = 0;
+            for (ItemStack item : contents) {
+                if (item != null) itemCount++;
+            }
+            getLogger().info("[DEBUG] ExtendedEnderChest: Saved " + itemCount + " items for " + key
+                + (append ? " (" + newRecords + " changed slots appended)" : " (full rewrite)"));
+        }
+        return append;
+    }
+    
+    /**
+     * Checks whether two ender chest slot values hold the same item stack.
+     * 
+     * <p>Null and air are both treated as an empty slot. Otherwise uses
+     * {@link ItemStack#equals}, which compares type, amount and all item meta.</p>
+     * 
+     * @param a The slot value as loaded
+     * @param b The slot value now
+     * @return true if saving would write the same item
+     */
+    private static boolean isSameSlotContents(ItemStack a, ItemStack b) {
+        boolean aEmpty = a == null || a.getType().isAir();
+        boolean bEmpty = b == null || b.getType().isAir();
+        if (aEmpty || bEmpty) {
+            return aEmpty == bEmpty;
+        }
+        return a.equals(b);
+    }
+    
+    /**
+     * Handles /pe ec &lt;subcommand&gt; (extended ender chest administration).
+     * 
+     * <p><b>Permission:</b> pixelsessentials.enderchest.admin</p>
+     * 
+     * <p><b>Subcommands:</b></p>
+     * <ul>
+     *   <li><b>stats:</b> Save queue depth, throughput and coalescing counters</li>
+     *   <li><b>history &lt;player&gt; [page]:</b> List saved snapshots, newest first</li>
+     *   <li><b>restore &lt;player&gt; &lt;#&gt;:</b> Put a snapshot from the history list back</li>
+     *   <li><b>find &lt;item&gt;:</b> Players holding an item, from the item index</li>
+     *   <li><b>open &lt;player&gt;:</b> View and edit a (possibly offline) player's stored pages</li>
+     * </ul>
+     * 
+     * @param sender The command sender
+     * @param args The full /pe arguments (args[0] is "ec")
+     * @return true (command always handled)
+     */
+    private boolean handleEnderChestAdminCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("pixelsessentials.enderchest.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to use this command!", NamedTextColor.RED));
             return true;
         }
         
-        // Get the ItemStack from the custom item and CLONE it to break ItemsAdder reference
-        ItemStack itemStack = customStack.getItemStack().clone();
-        if (itemStack == null) {
-            sender.sendMessage(Component.text("Failed to create item: " + itemId, NamedTextColor.RED));
+        if (args.length >= 2 && args[1].equalsIgnoreCase("stats")) {
+            enderChestWriteQueue.report(sender);
+            EnderChestHistory history = enderChestHistory;
+            if (history != null) {
+                Bukkit.getScheduler().runTaskAsynchronously(this, () -> history.report(sender));
+            }
             return true;
         }
         
-        // Parse optional arguments
-        int count = 1;
-        String customName = null;
-        String customLore = null;
-        int customDurability = -1;  // -1 means not set
-        List<String> appliedEnchants = new ArrayList<>();
-        List<String> failedEnchants = new ArrayList<>();
-        
-        for (int i = 2; i < args.length; i++) {
-            String arg = args[i];
-            
-            // Check for name: prefix
-            if (arg.toLowerCase().startsWith("name:")) {
-                customName = arg.substring(5).replace('_', ' ');
-                // Translate color codes
-                customName = ChatColor.translateAlternateColorCodes('&', customName);
-                continue;
+        if (args.length >= 3 && (args[1].equalsIgnoreCase("history") || args[1].equalsIgnoreCase("restore"))) {
+            EnderChestHistory history = enderChestHistory;
+            if (history == null) {
+                sender.sendMessage(Component.text("Ender chest history is disabled (enderchest.history.enabled).", NamedTextColor.RED));
+                return true;
             }
             
-            // Check for lore: prefix
-            if (arg.toLowerCase().startsWith("lore:")) {
-                customLore = arg.substring(5).replace('_', ' ');
-                // Translate color codes
-                customLore = ChatColor.translateAlternateColorCodes('&', customLore);
-                continue;
+            OfflinePlayer owner = resolveEnderChestOwner(args[2]);
+            if (owner == null) {
+                sender.sendMessage(Component.text("Player not found: ", NamedTextColor.RED)
+                    .append(Component.text(args[2], NamedTextColor.YELLOW)));
+                return true;
             }
             
-            // Check for durability: prefix (sets max durability)
-            if (arg.toLowerCase().startsWith("durability:")) {
-                try {
-                    customDurability = Integer.parseInt(arg.substring(11));
-                } catch (NumberFormatException e) {
-                    sender.sendMessage(Component.text("Invalid durability value: " + arg.substring(11), NamedTextColor.RED));
+            if (args[1].equalsIgnoreCase("history")) {
+                int page = 0;
+                if (args.length >= 4) {
+                    try {
+                        page = Math.max(1, Integer.parseInt(args[3]));
+                    } catch (NumberFormatException e) {
+                        sender.sendMessage(Component.text("Invalid page: " + args[3], NamedTextColor.RED));
+                        return true;
+                    }
                 }
-                continue;
+                showEnderChestHistory(sender, history, owner, page);
+                return true;
             }
             
-            // Check if it's a plain number (count)
-            if (arg.matches("^\\d+$")) {
-                try {
-                    count = Integer.parseInt(arg);
-                    if (count < 1) count = 1;
-                    if (count > 64) count = 64;
-                } catch (NumberFormatException e) {
-                    // Ignore, keep default count
-                }
-                continue;
+            if (args.length < 4) {
+                sender.sendMessage(Component.text("Usage: /pe ec restore <player> <#>", NamedTextColor.RED));
+                return true;
             }
-            
-            // Otherwise treat as enchantment
-            String enchantName;
-            int level;
-            
-            if (arg.contains(":")) {
-                // Format: enchant:level
-                String[] parts = arg.split(":");
-                enchantName = parts[0].toLowerCase();
-                try {
-                    level = Integer.parseInt(parts[1]);
-                } catch (NumberFormatException e) {
-                    failedEnchants.add(arg + " (invalid level)");
-                    continue;
-                }
-            } else {
-                // Format: enchant (default to level 1)
-                enchantName = arg.toLowerCase();
-                level = 1;
+            int index;
+            try {
+                index = Integer.parseInt(args[3]);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("Invalid snapshot number: " + args[3], NamedTextColor.RED));
+                return true;
             }
-            
-            // Look up enchantment by name using Registry (1.21+)
-            NamespacedKey key = NamespacedKey.minecraft(enchantName);
-            Enchantment enchantment = Registry.ENCHANTMENT.get(key);
-            
+            restoreEnderChestSnapshot(sender, history, owner, index);
+            return true;
+        }
+        
+        if (args.length >= 3 && args[1].equalsIgnoreCase("find")) {
+            return handleEnderChestFind(sender, args[2]);
+        }
+        
+        if (args.length >= 3 && args[1].equalsIgnoreCase("open")) {
+            if (!(sender instanceof Player)) {
+                sender.sendMessage(Component.text("This command can only be used by players.", NamedTextColor.RED));
+                return true;
+            }
+            OfflinePlayer owner = resolveEnderChestOwner(args[2]);
+            if (owner == null) {
+                sender.sendMessage(Component.text("Player not found: ", NamedTextColor.RED)
+                    .append(Component.text(args[2], NamedTextColor.YELLOW)));
+                return true;
+            }
+            if (owner.getUniqueId().equals(((Player) sender).getUniqueId())) {
+                openExtendedEnderChest((Player) sender);
+                return true;
+            }
+            openEnderChestForStaff((Player) sender, owner);
+            return true;
+        }
+        
+        sender.sendMessage(Component.text("Usage: /pe ec <stats|history|restore|find|open>", NamedTextColor.RED));
+        return true;
+    }
+    
+    /**
+     * Handles /pe ec find &lt;item&gt;: who holds an item in their extended ender chest.
+     * 
+     * <p>Answered entirely from {@link #enderChestItemIndex}; no chest file is read.
+     * The item is an ItemsAdder ID (namespace:id) or a material, with or without the
+     * minecraft: prefix.</p>
+     * 
+     * @param sender The command sender
+     * @param item The item to look for
+     * @return true (command always handled)
+     */
+    private boolean handleEnderChestFind(CommandSender sender, String item) {
+        EnderChestItemIndex index = enderChestItemIndex;
+        if (index == null) {
+            sender.sendMessage(Component.text("The ender chest item index is disabled (enderchest.item-index).", NamedTextColor.RED));
+            return true;
+        }
+        
+        String itemKey = item.toLowerCase(Locale.ROOT);
+        if (!itemKey.contains(":")) {
+            itemKey = "minecraft:" + itemKey;
+        }
+        
+        List<Map.Entry<UUID, int[]>> holders = index.find(itemKey);
+        int totalAmount = 0;
+        for (Map.Entry<UUID, int[]> holder : holders) {
+            totalAmount += holder.getValue()[1];
+        }
+        
+        sender.sendMessage(Component.text("Extended ender chests holding ", NamedTextColor.GOLD)
+            .append(Component.text(itemKey, NamedTextColor.YELLOW))
+            .append(Component.text(" (" + holders.size() + " players, " + totalAmount + " items)", NamedTextColor.GRAY)));
+        if (!index.isBuilt()) {
+            sender.sendMessage(Component.text("Index is still being built (" + index.progress() + " files) - results are partial.", NamedTextColor.YELLOW));
+        }
+        
+        for (int i = 0; i < Math.min(20, holders.size()); i++) {
+            Map.Entry<UUID, int[]> holder = holders.get(i);
+            String name = playerNames.nameOf(holder.getKey());
+            sender.sendMessage(Component.text("#" + (i + 1) + " ", NamedTextColor.YELLOW)
+                .append(Component.text(name != null ? name : holder.getKey().toString(), NamedTextColor.WHITE))
+                .append(Component.text(" - " + holder.getValue()[1] + " items in " + holder.getValue()[0] + " slots", NamedTextColor.GRAY)));
+        }
+        return true;
+    }
+    
+    /**
+     * Resolves a player name for the /pe ec admin commands without a web lookup.
+     * 
+     * @param name The player name
+     * @return The online player, else a known offline player, else null
+     */
+    private OfflinePlayer resolveEnderChestOwner(String name) {
+        Player online = Bukkit.getPlayerExact(name);
+        if (online != null) {
+            return online;
+        }
+        OfflinePlayer offline = Bukkit.getOfflinePlayerIfCached(name);
+        return offline != null && offline.hasPlayedBefore() ? offline : null;
+    }
+    
+    /**
+     * Gets the binary file for one stored ender chest page.
+     * 
+     * <p>Page 1 keeps the original file name so existing chests need no migration.</p>
+     * 
+     * @param uuid The player's UUID
+     * @param page The stored page (1-based)
+     * @return playerdata/{uuid}_enderchest.dat for page 1, otherwise
+     *         playerdata/{uuid}_enderchest_p{page}.dat
+     */
+    private File getEnderChestFile(UUID uuid, int page) {
+        if (page <= 1) {
+            return new File(playerDataFolder, uuid.toString() + "_enderchest.dat");
+        }
+        return new File(playerDataFolder, uuid.toString() + "_enderchest_p" + page + ".dat");
+    }
+    
+    /**
+     * Lists a player's ender chest snapshots, newest first (/pe ec history).
+     * 
+     * <p>Runs the history lookup on an async thread since the manifests may still be
+     * loading, then replies from the main thread. The numbers shown are what /pe ec restore takes; they refer to the
+     * all-pages list, so filtering by page keeps each snapshot's number.</p>
+     * 
+     * @param sender The command sender
+     * @param history The history store
+     * @param owner The chest owner
+     * @param page Only this stored page, or 0 for all pages
+     */
+    private void showEnderChestHistory(CommandSender sender, EnderChestHistory history, OfflinePlayer owner, int page) {
+        UUID uuid = owner.getUniqueId();
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            List<EnderChestSnapshot> snapshots = history.getSnapshots(uuid, 0);
+            
+            Bukkit.getScheduler().runTask(this, () -> {
+                DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+                
+                sender.sendMessage(Component.text("Ender chest history for ", NamedTextColor.GOLD)
+                    .append(Component.text(String.valueOf(owner.getName()), NamedTextColor.YELLOW))
+                    .append(Component.text(" (" + snapshots.size() + " snapshots)", NamedTextColor.GRAY)));
+                
+                int shown = 0;
+                for (int i = 0; i < snapshots.size() && shown < 20; i++) {
+                    EnderChestSnapshot snapshot = snapshots.get(i);
+                    if (page != 0 && snapshot.page != page) continue;
+                    shown++;
+                    sender.sendMessage(Component.text("#" + (i + 1) + " ", NamedTextColor.YELLOW)
+                        .append(Component.text(format.format(Instant.ofEpochMilli(snapshot.timestamp)), NamedTextColor.WHITE))
+                        .append(Component.text(" page " + snapshot.page, NamedTextColor.AQUA))
+                        .append(Component.text(" - " + snapshot.itemCount() + " stacks", NamedTextColor.GRAY)));
+                }
+                if (shown == 0) {
+                    sender.sendMessage(Component.text("No snapshots recorded.", NamedTextColor.YELLOW));
+                }
+            });
+        });
+    }
+    
+    /**
+     * Restores a snapshot from /pe ec history into the owner's stored page.
+     * 
+     * <p>Blobs are read and deserialized on an async thread; all replies are sent from
+     * the main thread. Back on the main thread,
+     * anyone viewing the owner's chest has it closed (committing their view first), the
+     * cache is updated if the page is cached, and the whole page is saved through the
+     * write queue. The restore therefore becomes a new snapshot itself and can be undone.</p>
+     * 
+     * @param sender The command sender
+     * @param history The history store
+     * @param owner The chest owner
+     * @param index Snapshot number from the history list (1 = newest)
+     */
+    private void restoreEnderChestSnapshot(CommandSender sender, EnderChestHistory history, OfflinePlayer owner, int index) {
+        UUID uuid = owner.getUniqueId();
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            List<EnderChestSnapshot> snapshots = history.getSnapshots(uuid, 0);
+            if (index < 1 || index > snapshots.size()) {
+                Bukkit.getScheduler().runTask(this, () -> sender.sendMessage(Component.text(
+                    "No snapshot #" + index + " (see /pe ec history " + owner.getName() + ")", NamedTextColor.RED)));
+                return;
+            }
+            EnderChestSnapshot snapshot = snapshots.get(index - 1);
+            ItemStack[] contents = history.loadContents(snapshot);
+            
+            Bukkit.getScheduler().runTask(this, () -> {
+                // Close any open view of this chest so it can't save over the restore
+                for (Map.Entry<UUID, ExtendedEnderChestSession> open : new ArrayList<>(openExtendedEnderChests.entrySet())) {
+                    Player viewer = Bukkit.getPlayer(open.getKey());
+                    if (open.getValue().owner.equals(uuid) && viewer != null) {
+                        viewer.closeInventory();
+                        viewer.sendMessage(Component.text("This ender chest was restored by staff.", NamedTextColor.YELLOW));
+                    }
+                }
+                
+                EnderChestPage key = new EnderChestPage(uuid, snapshot.page);
+                if (owner.isOnline() || extendedEnderChestCache.containsKey(key)) {
+                    extendedEnderChestCache.put(key, contents);
+                }
+                BitSet allSlots = new BitSet(contents.length);
+                allSlots.set(0, contents.length);
+                saveExtendedEnderChestAsync(key, contents, allSlots);
+                
+                getLogger().info(sender.getName() + " restored ender chest page " + snapshot.page + " of "
+                    + owner.getName() + " to snapshot from " + new Date(snapshot.timestamp));
+                sender.sendMessage(Component.text("Restored page " + snapshot.page + " of ", NamedTextColor.GREEN)
+                    .append(Component.text(String.valueOf(owner.getName()), NamedTextColor.YELLOW))
+                    .append(Component.text(" (" + snapshot.itemCount() + " stacks).", NamedTextColor.GREEN)));
+            });
+        });
+    }
+    
+    /**
+     * Gets the legacy (pre-binary) extended ender chest file for a player.
+     * 
+     * @param uuid The player's UUID
+     * @return playerdata/{uuid}_enderchest.yml
+     */
+    private File getLegacyEnderChestFile(UUID uuid) {
+        return new File(playerDataFolder, uuid.toString() + "_enderchest.yml");
+    }
+    
+    /**
+     * Writes an ItemStack array to a length-prefixed binary file.
+     * 
+     * <p><b>File format</b> (big-endian, via DataOutputStream):</p>
+     * <pre>
+     * int    magic    0x50454543 ("PEEC")
+     * byte   version  2
+     * int    slot count (27)
+     * repeated for each non-empty slot, then for each appended delta:
+     *   short  slot index
+     *   byte   flags (bit 0 = payload is deflate-compressed)
+     *   int    payload length (0 = slot is now empty)
+     *   byte[] payload (ItemStack.serializeAsBytes, optionally deflated)
+     * </pre>
+     * 
+     * <p>Empty slots are simply omitted from the snapshot. Records are replayed in order,
+     * so a later record for a slot replaces an earlier one (see
+     * {@link #appendEnderChestDelta}). The file is written to a temp file first and
+     * moved over the old one so a crash mid-write never leaves a half-written chest.</p>
+     * 
+     * @param file The destination file
+     * @param encoded Every slot's item bytes from {@link #encodeEnderChestItem} (empty slots are skipped)
+     * @throws IOException If writing fails
+     */
+    private void writeEnderChestBinary(File file, byte[][] encoded) throws IOException {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(ENDERCHEST_FILE_MAGIC);
+            out.writeByte(ENDERCHEST_FILE_VERSION);
+            out.writeInt(encoded.length);
+            
+            for (int slot = 0; slot < encoded.length; slot++) {
+                if (encoded[slot].length == 0) continue;
+                
+                writeEnderChestRecord(out, slot, encoded[slot]);
+            }
+        }
+        
+        Files.move(tempFile.toPath(), file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Appends delta records for the changed slots to an existing binary ender chest file.
+     * 
+     * <p>Unchanged slots are neither encoded nor written, so a chest full of large
+     * items (shulker boxes, written books) only pays for the slots the player touched.
+     * A cleared slot is written as a zero-length record. If the server dies mid-append,
+     * {@link #readEnderChestBinary} drops the torn trailing record, keeps the rest, and
+     * leaves the file out of {@link #enderChestDeltaRecords} so the next save rewrites
+     * it in full instead of appending after the torn bytes.</p>
+     * 
+     * @param file An existing version 2 ender chest file
+     * @param encoded Item bytes per slot; only entries for changed slots need to be set
+     * @param changedSlots The slots to append records for
+     * @throws IOException If writing fails
+     */
+    private void appendEnderChestDelta(File file, byte[][] encoded, BitSet changedSlots) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            for (int slot = changedSlots.nextSetBit(0); slot >= 0; slot = changedSlots.nextSetBit(slot + 1)) {
+                writeEnderChestRecord(out, slot, encoded[slot]);
+            }
+        }
+    }
+    
+    /**
+     * Encodes one ender chest item with Paper's binary item format.
+     * 
+     * @param item The item, or null/air
+     * @return ItemStack.serializeAsBytes output, or an empty array for an empty slot
+     */
+    private static byte[] encodeEnderChestItem(ItemStack item) {
+        if (item == null || item.getType().isAir()) {
+            return new byte[0];
+        }
+        return item.serializeAsBytes();
+    }
+    
+    /**
+     * Writes one slot record (see {@link #writeEnderChestBinary} for the layout).
+     * 
+     * @param out The stream to write to
+     * @param slot The slot index
+     * @param encoded The item bytes, or an empty array for a "slot cleared" record
+     * @throws IOException If writing fails
+     */
+    private void writeEnderChestRecord(DataOutputStream out, int slot, byte[] encoded) throws IOException {
+        byte[] payload = encoded;
+        byte flags = 0;
+        
+        if (payload.length > 0) {
+            if (enderChestCompression) {
+                byte[] compressed = deflate(payload);
+                // Paper's item bytes are already compressed NBT, so only keep it if it helped
+                if (compressed.length < payload.length) {
+                    payload = compressed;
+                    flags |= ENDERCHEST_FLAG_DEFLATED;
+                }
+            }
+        }
+        
+        out.writeShort(slot);
+        out.writeByte(flags);
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+    
+    /**
+     * Reads an ItemStack array written by {@link #writeEnderChestBinary}.
+     * 
+     * <p>Replays every record in order, so appended deltas override the snapshot.
+     * A truncated final record (crash during an append), or one whose length runs past
+     * the end of the file, ends the replay. For current-version files that end on a
+     * record boundary, the number of records beyond the snapshot is stored in
+     * {@link #enderChestDeltaRecords} so the next save can append instead of rewriting.
+     * A file with a torn tail is removed from it instead, so the next save rewrites
+     * the whole file.</p>
+     * 
+     * <p>A record whose item fails to decode (e.g. written by a newer server version)
+     * leaves just its slot empty. The file is copied to {name}.bad once, so the item
+     * can still be recovered after a later save compacts the record away.</p>
+     * 
+     * @param file The binary ender chest file
+     * @return ItemStack array of the stored slot count (null elements for empty slots)
+     * @throws IOException If the file is unreadable or not in the expected format
+     */
+    private ItemStack[] readEnderChestBinary(File file) throws IOException {
+        return readEnderChestBinary(file, true);
+    }
+    
+    /**
+     * Reads an ItemStack array written by {@link #writeEnderChestBinary}.
+     * 
+     * @param file The binary ender chest file
+     * @param trackDeltas Whether to record the file's delta count in {@link #enderChestDeltaRecords}
+     *                    (false for bulk scans that never save the file)
+     * @return ItemStack array of the stored slot count (null elements for empty slots)
+     * @throws IOException If the file is unreadable or not in the expected format
+     * @see #readEnderChestBinary(File)
+     */
+    private ItemStack[] readEnderChestBinary(File file, boolean trackDeltas) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != ENDERCHEST_FILE_MAGIC) {
+                throw new IOException("Not an ender chest file: " + file.getName());
+            }
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > ENDERCHEST_FILE_VERSION) {
+                throw new IOException("Unsupported ender chest file version " + version + ": " + file.getName());
+            }
+            
+            int size = in.readInt();
+            if (size < 0 || size > ENDERCHEST_MAX_SLOTS) {
+                throw new IOException("Invalid slot count " + size + ": " + file.getName());
+            }
+            ItemStack[] items = new ItemStack[Math.max(27, size)];
+            int records = 0;
+            int undecodable = 0;
+            
+            // Offset just past the last complete record (header is 9 bytes)
+            long length = file.length();
+            long position = 9;
+            while (position < length) {
+                int slot;
+                byte flags;
+                byte[] payload;
+                try {
+                    slot = in.readShort();
+                    flags = in.readByte();
+                    int payloadLength = in.readInt();
+                    if (payloadLength < 0 || payloadLength > length - position - 7) break;
+                    payload = new byte[payloadLength];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                position += 7 + payload.length;
+                records++;
+                
+                if (slot < 0 || slot >= items.length) continue;
+                if (payload.length == 0) {
+                    items[slot] = null;
+                    continue;
+                }
+                try {
+                    if ((flags & ENDERCHEST_FLAG_DEFLATED) != 0) {
+                        payload = inflate(payload);
+                    }
+                    items[slot] = ItemStack.deserializeBytes(payload);
+                } catch (Exception e) {
+                    items[slot] = null;
+                    undecodable++;
+                }
+            }
+            
+            if (undecodable > 0) {
+                File bad = new File(file.getParentFile(), file.getName() + ".bad");
+                boolean copied = false;
+                if (!bad.exists()) {
+                    try {
+                        Files.copy(file.toPath(), bad.toPath());
+                        copied = true;
+                    } catch (IOException e) {
+                        getLogger().warning("Failed to copy " + file.getName() + " to " + bad.getName() + ": " + e.getMessage());
+                    }
+                }
+                getLogger().warning("Skipped " + undecodable + " unreadable items in " + file.getName()
+                    + (copied ? "; the original file was copied to " + bad.getName() : ""));
+            }
+            
+            if (position < length) {
+                getLogger().warning("Ignoring " + (length - position) + " bytes of incomplete records at the end of " + file.getName());
+                if (trackDeltas) {
+                    // Never append after the torn bytes; the next save rewrites the file
+                    enderChestDeltaRecords.remove(file.getName());
+                }
+            } else if (trackDeltas && version == ENDERCHEST_FILE_VERSION) {
+                // Anything beyond one record per occupied slot came from appends
+                int occupied = 0;
+                for (ItemStack item : items) {
+                    if (item != null) occupied++;
+                }
+                enderChestDeltaRecords.put(file.getName(), Math.max(0, records - occupied));
+            }
+            return items;
+        }
+    }
+    
+    /**
+     * Reads a legacy YAML ender chest file (Base64-encoded BukkitObjectOutputStream data).
+     * 
+     * @param file The legacy {uuid}_enderchest.yml file
+     * @return ItemStack array of size 27 (may contain null elements)
+     * @throws IOException If deserialization fails
+     */
+    private ItemStack[] readEnderChestLegacy(File file) throws IOException {
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+        String base64 = config.getString("contents");
+        
+        if (base64 == null || base64.isEmpty()) {
+            return new ItemStack[27];
+        }
+        
+        ItemStack[] contents = itemStackArrayFromBase64(base64);
+        if (contents.length < 27) {
+            contents = Arrays.copyOf(contents, 27);
+        }
+        return contents;
+    }
+    
+    /**
+     * Compresses bytes with java.util.zip deflate.
+     * 
+     * @param data The bytes to compress
+     * @return The compressed bytes
+     */
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    /**
+     * Decompresses bytes produced by {@link #deflate(byte[])}.
+     * 
+     * @param data The compressed bytes
+     * @return The original bytes
+     * @throws IOException If the data is not valid deflate output
+     */
+    private static byte[] inflate(byte[] data) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 2);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated compressed item data");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed item data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    /**
+     * Deserializes an ItemStack array from a Base64 string.
+     * 
+     * <p>Uses BukkitObjectInputStream for proper deserialization of all
+     * ItemStack data including enchantments, lore, PDC, and NBT. Only used to
+     * read legacy {uuid}_enderchest.yml files during migration.</p>
+     * 
+     * @param base64 The Base64-encoded string to deserialize
+     * @return The deserialized ItemStack array
+     * @throws IOException If deserialization fails
+     */
+    private ItemStack[] itemStackArrayFromBase64(String base64) throws IOException {
+        byte[] bytes = Base64.getDecoder().decode(base64);
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+        try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream)) {
+            int size = dataInput.readInt();
+            ItemStack[] items = new ItemStack[size];
+            for (int i = 0; i < size; i++) {
+                try {
+                    items[i] = (ItemStack) dataInput.readObject();
+                } catch (ClassNotFoundException e) {
+                    items[i] = null;
+                }
+            }
+            return items;
+        }
+    }
+    
+    // ==================================================================================
+    // TAB COMPLETION
+    // ==================================================================================
+    
+    /**
+     * Provides tab completion for all plugin commands.
+     * 
+     * @param sender The command sender
+     * @param command The command object
+     * @param alias The command alias used
+     * @param args The current arguments
+     * @return List of tab completion options
+     */
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        List<String> completions = new ArrayList<>();
+        String cmdName = command.getName().toLowerCase();
+        
+        switch (cmdName) {
+            case "repair":
+                return tabCompleteRepair(sender, args);
+            case "home":
+            case "homes":
+                return tabCompleteHome(sender, args);
+            case "sethome":
+                // No tab completion needed for sethome
+                return completions;
+            case "delhome":
+            case "homeinfo":
+                return tabCompleteHomeNames(sender, args);
+            case "autofeed":
+                return tabCompleteAutofeed(sender, args);
+            case "giveenchanteditem":
+                return tabCompleteGiveEnchantedItem(sender, args);
+            case "withdraw":
+                return tabCompleteWithdraw(sender, args);
+            case "pixelsessentials":
+                return tabCompleteMain(sender, args);
+            default:
+                return completions;
+        }
+    }
+    
+    /**
+     * Tab completion for /repair command.
+     */
+    private List<String> tabCompleteRepair(CommandSender sender, String[] args) {
+        List<String> completions = new ArrayList<>();
+        
+        if (args.length == 1) {
+            // First argument - subcommands
+            if (sender.hasPermission("pixelsessentials.repair.hand")) {
+                completions.add("hand");
+            }
+            if (sender.hasPermission("pixelsessentials.repair.all")) {
+                completions.add("all");
+            }
+            if (sender.hasPermission("pixelsessentials.repair.player")) {
+                completions.add("player");
+            }
+            
+            return filterCompletions(completions, args[0]);
+        }
+        
+        if (args.length == 2 && args[0].equalsIgnoreCase("player")) {
+            // Second argument for player - online player names
+            if (sender.hasPermission("pixelsessentials.repair.player")) {
+                for (Player player : Bukkit.getOnlinePlayers()) {
+                    completions.add(player.getName());
+                }
+            }
+            
+            return filterCompletions(completions, args[1]);
+        }
+        
+        return completions;
+    }
+    
+    /**
+     * Tab completion for /home command - shows player's home names.
+     */
+    private List<String> tabCompleteHome(CommandSender sender, String[] args) {
+        List<String> completions = new ArrayList<>();
+        
+        if (!(sender instanceof Player)) {
+            return completions;
+        }
+        
+        if (args.length == 1) {
+            Player player = (Player) sender;
+            loadPlayerData(player.getUniqueId());
+            
+            PlayerData data = playerDataCache.get(player.getUniqueId());
+            if (data != null) {
+                completions.addAll(data.homes.keySet());
+            }
+            
+            return filterCompletions(completions, args[0]);
+        }
+        
+        return completions;
+    }
+    
+    /**
+     * Tab completion for /delhome and /homeinfo - shows player's home names.
+     */
+    private List<String> tabCompleteHomeNames(CommandSender sender, String[] args) {
+        return tabCompleteHome(sender, args);
+    }
+    
+    /**
+     * Tab completion for /autofeed command.
+     */
+    private List<String> tabCompleteAutofeed(CommandSender sender, String[] args) {
+        List<String> completions = new ArrayList<>();
+        
+        if (args.length == 1) {
+            completions.add("on");
+            completions.add("off");
+            return filterCompletions(completions, args[0]);
+        }
+        
+        return completions;
+    }
+    
+    // ==================================================================================
+    // GIVE ENCHANTED ITEM COMMAND
+    // ==================================================================================
+    
+    /**
+     * Handles the /giveenchanteditem (alias: /gei) command for giving ItemsAdder custom items.
+     * 
+     * <p><b>Requires:</b> ItemsAdder plugin to be installed and loaded</p>
+     * <p><b>Permission:</b> pixelsessentials.giveenchanteditem</p>
+     * 
+     * <p><b>Usage:</b> /gei &lt;player&gt; &lt;ia_item&gt; [count] [name:Custom_Name] [lore:Custom_Lore] [durability:N] [enchant:level]...</p>
+     * 
+     * <p><b>Arguments (flexible order after item):</b></p>
+     * <ul>
+     *   <li><b>player:</b> Target player name (must be online)</li>
+     *   <li><b>ia_item:</b> ItemsAdder item ID (e.g., "fairyset:fairy_helmet")</li>
+     *   <li><b>count:</b> Number of items (1-64, default 1)</li>
+     *   <li><b>name:Name:</b> Custom display name (underscores become spaces, supports &amp; color codes)</li>
+     *   <li><b>lore:Lore:</b> Custom lore line (underscores become spaces, supports &amp; color codes)</li>
+     *   <li><b>durability:N:</b> Set max durability (e.g., "durability:5000" for 5000 max durability)</li>
+     *   <li><b>enchant:level:</b> Enchantment with level (e.g., "protection:30", "mending")</li>
+     * </ul>
+     * 
+     * <p><b>Enchantment Notes:</b></p>
+     * <ul>
+     *   <li>Enchantments without a :level suffix default to level 1</li>
+     *   <li>Uses addUnsafeEnchantment() to allow any level on any item</li>
+     *   <li>Enchantment names use Minecraft namespace keys (e.g., "sharpness", "fire_protection")</li>
+     * </ul>
+     * 
+     * <p><b>Example:</b> /gei Craig fairyset:fairy_helmet 1 name:&amp;6&amp;oAzathoth's_Helmet durability:5000 protection:30 mending aqua_affinity</p>
+     * 
+     * <p>If target inventory is full, items are dropped at the player's feet.</p>
+     * 
+     * @param sender The command sender (player or console)
+     * @param args The command arguments
+     * @return true always (command was handled)
+     */
+    private boolean handleGiveEnchantedItemCommand(CommandSender sender, String[] args) {
+        // Check permission
+        if (!sender.hasPermission("pixelsessentials.giveenchanteditem")) {
+            sender.sendMessage(Component.text("You don't have permission to use this command.", NamedTextColor.RED));
+            return true;
+        }
+        
+        // Check arguments
+        if (args.length < 2) {
+            sender.sendMessage(Component.text("Usage: /gei <player> <ia_item> [count] [name:Name] [lore:Lore] [durability:N] [enchant:level]...", NamedTextColor.RED));
+            sender.sendMessage(Component.text("Example: /gei Craig fairyset:fairy_helmet 1 name:&6&oAzathoth's_Helmet durability:5000 protection:30 mending", NamedTextColor.GRAY));
+            sender.sendMessage(Component.text("Note: Underscores become spaces in name/lore. Enchants without :level default to 1.", NamedTextColor.GRAY));
+            return true;
+        }
+        
+        // Get target player
+        String playerName = args[0];
+        Player target = Bukkit.getPlayer(playerName);
+        
+        if (target == null) {
+            sender.sendMessage(Component.text("Player not found: " + playerName, NamedTextColor.RED));
+            return true;
+        }
+        
+        String itemId = args[1];
+        
+        // Get the ItemsAdder custom item
+        CustomStack customStack = CustomStack.getInstance(itemId);
+        if (customStack == null) {
+            sender.sendMessage(Component.text("Unknown ItemsAdder item: " + itemId, NamedTextColor.RED));
+            return true;
+        }
+        
+        // Get the ItemStack from the custom item and CLONE it to break ItemsAdder reference
+        ItemStack itemStack = customStack.getItemStack().clone();
+        if (itemStack == null) {
+            sender.sendMessage(Component.text("Failed to create item: " + itemId, NamedTextColor.RED));
+            return true;
+        }
+        
+        // Parse optional arguments
+        int count = 1;
+        String customName = null;
+        String customLore = null;
+        int customDurability = -1;  // -1 means not set
+        List<String> appliedEnchants = new ArrayList<>();
+        List<String> failedEnchants = new ArrayList<>();
+        
+        for (int i = 2; i < args.length; i++) {
+            String arg = args[i];
+            
+            // Check for name: prefix
+            if (arg.toLowerCase().startsWith("name:")) {
+                customName = arg.substring(5).replace('_', ' ');
+                // Translate color codes
+                customName = ChatColor.translateAlternateColorCodes('&', customName);
+                continue;
+            }
+            
+            // Check for lore: prefix
+            if (arg.toLowerCase().startsWith("lore:")) {
+                customLore = arg.substring(5).replace('_', ' ');
+                // Translate color codes
+                customLore = ChatColor.translateAlternateColorCodes('&', customLore);
+                continue;
+            }
+            
+            // Check for durability: prefix (sets max durability)
+            if (arg.toLowerCase().startsWith("durability:")) {
+                try {
+                    customDurability = Integer.parseInt(arg.substring(11));
+                } catch (NumberFormatException e) {
+                    sender.sendMessage(Component.text("Invalid durability value: " + arg.substring(11), NamedTextColor.RED));
+                }
+                continue;
+            }
+            
+            // Check if it's a plain number (count)
+            if (arg.matches("^\\d+$")) {
+                try {
+                    count = Integer.parseInt(arg);
+                    if (count < 1) count = 1;
+                    if (count > 64) count = 64;
+                } catch (NumberFormatException e) {
+                    // Ignore, keep default count
+                }
+                continue;
+            }
+            
+            // Otherwise treat as enchantment
+            String enchantName;
+            int level;
+            
+            if (arg.contains(":")) {
+                // Format: enchant:level
+                String[] parts = arg.split(":");
+                enchantName = parts[0].toLowerCase();
+                try {
+                    level = Integer.parseInt(parts[1]);
+                } catch (NumberFormatException e) {
+                    failedEnchants.add(arg + " (invalid level)");
+                    continue;
+                }
+            } else {
+                // Format: enchant (default to level 1)
+                enchantName = arg.toLowerCase();
+                level = 1;
+            }
+            
+            // Look up enchantment by name using Registry (1.21+)
+            NamespacedKey key = NamespacedKey.minecraft(enchantName);
+            Enchantment enchantment = Registry.ENCHANTMENT.get(key);
+            
             if (enchantment == null) {
                 failedEnchants.add(arg + " (unknown enchantment)");
                 continue;
             }
-            
-            // Apply enchantment (unsafe to allow any level)
-            itemStack.addUnsafeEnchantment(enchantment, level);
-            appliedEnchants.add(enchantName + ":" + level);
+            
+            // Apply enchantment (unsafe to allow any level)
+            itemStack.addUnsafeEnchantment(enchantment, level);
+            appliedEnchants.add(enchantName + ":" + level);
+        }
+        
+        // Apply ALL meta modifications in one shot
+        ItemMeta meta = itemStack.getItemMeta();
+        if (meta != null) {
+            // Apply custom name
+            if (customName != null) {
+                meta.setDisplayName(customName);
+            }
+            
+            // Apply custom lore
+            if (customLore != null) {
+                List<String> loreList = new ArrayList<>();
+                List<String> existingLore = meta.getLore();
+                if (existingLore != null) {
+                    loreList.addAll(existingLore);
+                }
+                loreList.add(customLore);
+                meta.setLore(loreList);
+            }
+            
+            // Set meta ONCE at the end
+            itemStack.setItemMeta(meta);
+        }
+        
+        // Apply custom max durability using Data Component API (Paper 1.21+)
+        if (customDurability > 0) {
+            itemStack.setData(io.papermc.paper.datacomponent.DataComponentTypes.MAX_DAMAGE, customDurability);
+        }
+        
+        // Set count
+        itemStack.setAmount(count);
+        
+        // Give the item to the target player
+        HashMap<Integer, ItemStack> leftover = target.getInventory().addItem(itemStack);
+        
+        if (!leftover.isEmpty()) {
+            // Inventory full, drop at player's feet
+            for (ItemStack drop : leftover.values()) {
+                target.getWorld().dropItemNaturally(target.getLocation(), drop);
+            }
+            sender.sendMessage(Component.text(target.getName() + "'s inventory full - item dropped at their feet.", NamedTextColor.YELLOW));
+        }
+        
+        // Send result message
+        StringBuilder msg = new StringBuilder();
+        msg.append("Given ").append(target.getName()).append(" ").append(count).append("x ").append(itemId);
+        
+        if (customName != null) {
+            msg.append(" named \"").append(customName).append("\"");
+        }
+        
+        if (customDurability > 0) {
+            msg.append(" with ").append(customDurability).append(" max durability");
+        }
+        
+        if (!appliedEnchants.isEmpty()) {
+            msg.append(" with enchantments: ").append(String.join(", ", appliedEnchants));
+        }
+        
+        sender.sendMessage(Component.text(msg.toString(), NamedTextColor.GREEN));
+        
+        if (!failedEnchants.isEmpty()) {
+            sender.sendMessage(Component.text("Failed to apply: " + String.join(", ", failedEnchants), NamedTextColor.RED));
+        }
+        
+        return true;
+    }
+    
+    // ==================================================================================
+    // WITHDRAW COMMAND HANDLERS
+    // ==================================================================================
+    
+    /**
+     * Handles the /withdraw command to create bank notes from player balance.
+     * 
+     * <p>Supports amount suffixes: K (thousands), M (millions), B (billions), T (trillions)</p>
+     * <p>Examples: /withdraw 5000, /withdraw 5.2M, /withdraw 1.5B</p>
+     * 
+     * @param sender The command sender (must be a player)
+     * @param args Command arguments - expects one argument: the amount
+     * @return true if command was handled
+     */
+    private boolean handleWithdrawCommand(CommandSender sender, String[] args) {
+        // Must be a player
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(Component.text("This command can only be used by players.", NamedTextColor.RED));
+            return true;
+        }
+        
+        Player player = (Player) sender;
+        
+        // Check permission
+        if (!player.hasPermission("pixelsessentials.withdraw")) {
+            player.sendMessage(Component.text("You don't have permission to use this command.", NamedTextColor.RED));
+            return true;
+        }
+        
+        // Check economy
+        if (economy == null) {
+            player.sendMessage(Component.text("Economy system is not available.", NamedTextColor.RED));
+            return true;
+        }
+        
+        // Check arguments
+        if (args.length < 1) {
+            player.sendMessage(Component.text("Usage: /withdraw <amount>", NamedTextColor.RED));
+            player.sendMessage(Component.text("Examples: /withdraw 5000, /withdraw 5.2M, /withdraw 1.5B", NamedTextColor.GRAY));
+            return true;
+        }
+        
+        // Parse amount with K/M/B/T suffixes
+        double amount = parseWithdrawAmount(args[0]);
+        if (amount < 0) {
+            player.sendMessage(Component.text("Invalid amount: " + args[0], NamedTextColor.RED));
+            player.sendMessage(Component.text("Examples: 5000, 5.2M, 1.5B, 2T", NamedTextColor.GRAY));
+            return true;
+        }
+        
+        // Load config limits
+        double minAmount = getConfig().getDouble("withdraw.min", 10);
+        double maxAmount = getConfig().getDouble("withdraw.max", 100000000000000.0);
+        double feePercent = getConfig().getDouble("withdraw.fee-percent", 0.0);
+        
+        // Validate min/max
+        if (amount < minAmount) {
+            player.sendMessage(Component.text("Minimum withdrawal amount is $" + formatAmountWithCommas(minAmount), NamedTextColor.RED));
+            return true;
+        }
+        
+        if (amount > maxAmount) {
+            player.sendMessage(Component.text("Maximum withdrawal amount is $" + formatAmountWithCommas(maxAmount), NamedTextColor.RED));
+            return true;
+        }
+        
+        // Calculate fee (charged on top)
+        double fee = amount * (feePercent / 100.0);
+        double totalDeduction = amount + fee;
+        
+        // Check player balance
+        double balance = economy.getBalance(player);
+        if (balance < totalDeduction) {
+            if (fee > 0) {
+                player.sendMessage(Component.text("Insufficient funds. You need $" + formatAmountWithCommas(totalDeduction) + 
+                    " ($" + formatAmountWithCommas(amount) + " + $" + formatAmountWithCommas(fee) + " fee)", NamedTextColor.RED));
+            } else {
+                player.sendMessage(Component.text("Insufficient funds. You need $" + formatAmountWithCommas(totalDeduction), NamedTextColor.RED));
+            }
+            return true;
+        }
+        
+        // Deduct from player
+        economy.withdrawPlayer(player, totalDeduction);
+        recordRankings(player, "balance");
+        
+        // Create bank note
+        ItemStack bankNote = createBankNote(amount, player.getName());
+        
+        // Give to player (drop if inventory full)
+        HashMap<Integer, ItemStack> leftover = player.getInventory().addItem(bankNote);
+        if (!leftover.isEmpty()) {
+            for (ItemStack drop : leftover.values()) {
+                player.getWorld().dropItemNaturally(player.getLocation(), drop);
+            }
+            player.sendMessage(Component.text("Inventory full - bank note dropped at your feet.", NamedTextColor.YELLOW));
+        }
+        
+        // Success message
+        if (fee > 0) {
+            player.sendMessage(Component.text("Withdrew $" + formatAmountWithCommas(amount) + 
+                " (fee: $" + formatAmountWithCommas(fee) + ")", NamedTextColor.GREEN));
+        } else {
+            player.sendMessage(Component.text("Withdrew $" + formatAmountWithCommas(amount), NamedTextColor.GREEN));
+        }
+        
+        if (debugMode) {
+            getLogger().info("[DEBUG] Withdraw: " + player.getName() + " withdrew $" + amount + " (fee: $" + fee + ")");
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Parses a withdraw amount string with optional K/M/B/T suffix.
+     * 
+     * <p>Supported formats:</p>
+     * <ul>
+     *   <li>Plain number: 5000 -> 5000</li>
+     *   <li>K suffix: 5K or 5.2K -> 5000 or 5200</li>
+     *   <li>M suffix: 5M or 5.2M -> 5000000 or 5200000</li>
+     *   <li>B suffix: 5B or 5.2B -> 5000000000 or 5200000000</li>
+     *   <li>T suffix: 5T or 1.9T -> 5000000000000 or 1900000000000</li>
+     * </ul>
+     * 
+     * @param input The amount string to parse
+     * @return The parsed amount, or -1 if invalid
+     */
+    private double parseWithdrawAmount(String input) {
+        if (input == null || input.isEmpty()) {
+            return -1;
+        }
+        
+        input = input.toUpperCase().trim();
+        
+        double multiplier = 1;
+        String numPart = input;
+        
+        // Check for suffix
+        if (input.endsWith("K")) {
+            multiplier = 1_000;
+            numPart = input.substring(0, input.length() - 1);
+        } else if (input.endsWith("M")) {
+            multiplier = 1_000_000;
+            numPart = input.substring(0, input.length() - 1);
+        } else if (input.endsWith("B")) {
+            multiplier = 1_000_000_000;
+            numPart = input.substring(0, input.length() - 1);
+        } else if (input.endsWith("T")) {
+            multiplier = 1_000_000_000_000L;
+            numPart = input.substring(0, input.length() - 1);
+        }
+        
+        try {
+            double value = Double.parseDouble(numPart);
+            if (value <= 0) {
+                return -1;
+            }
+            return value * multiplier;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Formats an amount with commas for display.
+     * 
+     * @param amount The amount to format
+     * @return Formatted string with commas (e.g., "1,234,567")
+     */
+    private String formatAmountWithCommas(double amount) {
+        // Use NumberFormat for locale-aware comma formatting
+        NumberFormat formatter = NumberFormat.getNumberInstance();
+        formatter.setMaximumFractionDigits(2);
+        formatter.setMinimumFractionDigits(0);
+        return formatter.format(amount);
+    }
+    
+    /**
+     * Creates a bank note ItemStack with the specified value.
+     * 
+     * <p>The bank note has:</p>
+     * <ul>
+     *   <li>Custom display name from config</li>
+     *   <li>Lore with amount (comma-formatted) and player name placeholders</li>
+     *   <li>Optional glow effect (enchant + hide enchants flag)</li>
+     *   <li>PDC data storing the value and unique ID (for unstackability)</li>
+     * </ul>
+     * 
+     * @param amount The monetary value of the note
+     * @param playerName The name of the player who created the note
+     * @return The created bank note ItemStack
+     */
+    private ItemStack createBankNote(double amount, String playerName) {
+        // Get material from config
+        String materialName = getConfig().getString("bank-note.material", "PAPER");
+        Material material = Material.getMaterial(materialName.toUpperCase());
+        if (material == null) {
+            material = Material.PAPER;
+        }
+        
+        ItemStack note = new ItemStack(material, 1);
+        ItemMeta meta = note.getItemMeta();
+        
+        if (meta != null) {
+            // Set display name
+            String name = getConfig().getString("bank-note.name", "&aBank Note");
+            name = ChatColor.translateAlternateColorCodes('&', name);
+            meta.setDisplayName(name);
+            
+            // Set lore with placeholders
+            List<String> configLore = getConfig().getStringList("bank-note.lore");
+            List<String> lore = new ArrayList<>();
+            String formattedAmount = formatAmountWithCommas(amount);
+            
+            for (String line : configLore) {
+                line = line.replace("%amount%", formattedAmount);
+                line = line.replace("%player%", playerName);
+                line = ChatColor.translateAlternateColorCodes('&', line);
+                lore.add(line);
+            }
+            meta.setLore(lore);
+            
+            // Add glow effect if enabled
+            if (getConfig().getBoolean("bank-note.glow", true)) {
+                meta.addEnchant(Enchantment.LUCK_OF_THE_SEA, 1, true);
+                meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
+            }
+            
+            // Store value in PDC
+            PersistentDataContainer pdc = meta.getPersistentDataContainer();
+            pdc.set(bankNoteValueKey, PersistentDataType.DOUBLE, amount);
+            
+            // Store unique ID to make notes unstackable
+            pdc.set(bankNoteUniqueKey, PersistentDataType.STRING, UUID.randomUUID().toString());
+            
+            note.setItemMeta(meta);
+        }
+        
+        return note;
+    }
+    
+    /**
+     * Handles bank note redemption when a player right-clicks with a bank note.
+     * 
+     * <p>Called from {@link #onPlayerInteract} when detecting a right-click
+     * with an item that has bank note PDC data.</p>
+     * 
+     * @param player The player redeeming the note
+     * @param item The bank note item being redeemed
+     * @return true if the note was successfully redeemed
+     */
+    private boolean redeemBankNote(Player player, ItemStack item) {
+        if (economy == null) {
+            player.sendMessage(Component.text("Economy system is not available.", NamedTextColor.RED));
+            return false;
+        }
+        
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) {
+            return false;
+        }
+        
+        PersistentDataContainer pdc = meta.getPersistentDataContainer();
+        if (!pdc.has(bankNoteValueKey, PersistentDataType.DOUBLE)) {
+            return false;
+        }
+        
+        double value = pdc.get(bankNoteValueKey, PersistentDataType.DOUBLE);
+        
+        // Deposit to player
+        economy.depositPlayer(player, value);
+        recordRankings(player, "balance");
+        
+        // Remove one note from stack
+        if (item.getAmount() > 1) {
+            item.setAmount(item.getAmount() - 1);
+        } else {
+            player.getInventory().setItemInMainHand(null);
+        }
+        
+        player.sendMessage(Component.text("Redeemed bank note for $" + formatAmountWithCommas(value), NamedTextColor.GREEN));
+        
+        if (debugMode) {
+            getLogger().info("[DEBUG] BankNote: " + player.getName() + " redeemed $" + value);
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Tab completion for /withdraw command.
+     * Suggests common amounts and suffix examples.
+     */
+    private List<String> tabCompleteWithdraw(CommandSender sender, String[] args) {
+        List<String> completions = new ArrayList<>();
+        
+        if (!sender.hasPermission("pixelsessentials.withdraw")) {
+            return completions;
+        }
+        
+        if (args.length == 1) {
+            String partial = args[0].toLowerCase();
+            
+            // Suggest common amounts
+            String[] suggestions = {"100", "1000", "10000", "100K", "500K", "1M", "5M", "10M", "100M", "1B"};
+            for (String suggestion : suggestions) {
+                if (suggestion.toLowerCase().startsWith(partial)) {
+                    completions.add(suggestion);
+                }
+            }
+        }
+        
+        return completions;
+    }
+    
+    /**
+     * Tab completion for /giveenchanteditem command.
+     * 
+     * <p>Provides completion for player names, count, name:, lore:, and enchantment names.</p>
+     */
+    private List<String> tabCompleteGiveEnchantedItem(CommandSender sender, String[] args) {
+        List<String> completions = new ArrayList<>();
+        
+        if (!sender.hasPermission("pixelsessentials.giveenchanteditem")) {
+            return completions;
+        }
+        
+        if (args.length == 1) {
+            // First argument - player names
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                completions.add(player.getName());
+            }
+            return filterCompletions(completions, args[0]);
+        }
+        
+        if (args.length == 2) {
+            // Second argument - item ID (no completion, user types it)
+            return completions;
+        }
+        
+        if (args.length >= 3) {
+            String currentArg = args[args.length - 1].toLowerCase();
+            
+            // Suggest name:, lore:, and durability: prefixes
+            if ("name:".startsWith(currentArg)) {
+                completions.add("name:");
+            }
+            if ("lore:".startsWith(currentArg)) {
+                completions.add("lore:");
+            }
+            if ("durability:".startsWith(currentArg)) {
+                completions.add("durability:");
+            }
+            
+            // Suggest common counts
+            if (currentArg.isEmpty() || currentArg.matches("^\\d*$")) {
+                completions.add("1");
+                completions.add("16");
+                completions.add("32");
+                completions.add("64");
+            }
+            
+            // Suggest common enchantment names
+            String[] commonEnchants = {
+                "sharpness", "smite", "bane_of_arthropods", "knockback", "fire_aspect",
+                "looting", "sweeping_edge", "efficiency", "silk_touch", "unbreaking",
+                "fortune", "power", "punch", "flame", "infinity", "luck_of_the_sea",
+                "lure", "loyalty", "impaling", "riptide", "channeling", "multishot",
+                "quick_charge", "piercing", "mending", "vanishing_curse", "binding_curse",
+                "protection", "fire_protection", "feather_falling", "blast_protection",
+                "projectile_protection", "respiration", "aqua_affinity", "thorns",
+                "depth_strider", "frost_walker", "soul_speed", "swift_sneak"
+            };
+            
+            // If user hasn't typed a colon yet, suggest enchantment names
+            if (!currentArg.contains(":") || currentArg.startsWith("name:") || currentArg.startsWith("lore:")) {
+                for (String enchant : commonEnchants) {
+                    if (enchant.startsWith(currentArg)) {
+                        completions.add(enchant + ":");
+                        completions.add(enchant); // Also suggest without colon (defaults to level 1)
+                    }
+                }
+            } else {
+                // User has typed enchant:, suggest levels
+                String enchantPart = currentArg.split(":")[0];
+                for (int level = 1; level <= 10; level++) {
+                    completions.add(enchantPart + ":" + level);
+                }
+            }
+            
+            return filterCompletions(completions, currentArg);
+        }
+        
+        return completions;
+    }
+    
+    /**
+     * Tab completion for /pixelsessentials command.
+     * Only shows commands the player has permission for.
+     */
+    private List<String> tabCompleteMain(CommandSender sender, String[] args) {
+        List<String> completions = new ArrayList<>();
+        
+        if (args.length == 1) {
+            if (sender.hasPermission("pixelsessentials.reload")) {
+                completions.add("reload");
+            }
+            if (sender.hasPermission("pixelsessentials.debug")) {
+                completions.add("debug");
+                completions.add("recipes");
+            }
+            if (sender.hasPermission("pixelsessentials.rank")) {
+                completions.add("rank");
+            }
+            if (sender.hasPermission("pixelsessentials.show")) {
+                completions.add("show");
+                completions.add("updatesigns");
+            }
+            if (sender.hasPermission("pixelsessentials.deaths")) {
+                completions.add("deaths");
+            }
+            if (sender.hasPermission("pixelsessentials.enderchest.admin")) {
+                completions.add("ec");
+            }
+            if (sender.hasPermission("pixelsessentials.leaderboard.history")) {
+                completions.add("leaderboard");
+            }
+
+            return filterCompletions(completions, args[0]);
+        }
+
+        if (args[0].equalsIgnoreCase("leaderboard") && sender.hasPermission("pixelsessentials.leaderboard.history")) {
+            if (args.length == 2) {
+                completions.add("history");
+                return filterCompletions(completions, args[1]);
+            }
+            if (args.length == 3 && args[1].equalsIgnoreCase("history")) {
+                completions.addAll(leaderboards.keySet());
+                return filterCompletions(completions, args[2]);
+            }
+            return completions;
+        }
+
+        if (args[0].equalsIgnoreCase("ec") && sender.hasPermission("pixelsessentials.enderchest.admin")) {
+            if (args.length == 2) {
+                completions.add("stats");
+                completions.add("history");
+                completions.add("restore");
+                completions.add("find");
+                completions.add("open");
+                return filterCompletions(completions, args[1]);
+            }
+            if (args.length == 3 && args[1].equalsIgnoreCase("find")) {
+                if (enderChestItemIndex != null) {
+                    completions.addAll(enderChestItemIndex.itemKeys());
+                }
+                return filterCompletions(completions, args[2]);
+            }
+            if (args.length == 3 && !args[1].equalsIgnoreCase("stats")) {
+                for (Player online : Bukkit.getOnlinePlayers()) {
+                    completions.add(online.getName());
+                }
+                return filterCompletions(completions, args[2]);
+            }
+            return completions;
+        }
+
+        if (args[0].equalsIgnoreCase("deaths") && sender.hasPermission("pixelsessentials.deaths")) {
+            if (args.length == 2) {
+                completions.add("hotspots");
+                return filterCompletions(completions, args[1]);
+            }
+            if (args.length == 3) {
+                completions.addAll(deathHotspots.keySet());
+                return filterCompletions(completions, args[2]);
+            }
+            return completions;
+        }
+        
+        if (args.length == 2 && args[0].equalsIgnoreCase("debug")) {
+            if (sender.hasPermission("pixelsessentials.debug")) {
+                completions.add("on");
+                completions.add("off");
+            }
+            return filterCompletions(completions, args[1]);
+        }
+        
+        if (args.length == 2 && args[0].equalsIgnoreCase("show")) {
+            if (sender.hasPermission("pixelsessentials.show")) {
+                // Suggest common placement numbers
+                completions.add("1");
+                completions.add("2");
+                completions.add("3");
+                completions.add("4");
+                completions.add("5");
+                completions.add("10");
+            }
+            return filterCompletions(completions, args[1]);
+        }
+        
+        if ((args.length == 2 || args.length == 3) && args[0].equalsIgnoreCase("rank")) {
+            if (sender.hasPermission("pixelsessentials.rank")) {
+                completions.addAll(leaderboards.keySet());
+                if (sender.hasPermission("pixelsessentials.rank.others")) {
+                    for (Player online : Bukkit.getOnlinePlayers()) {
+                        completions.add(online.getName());
+                    }
+                }
+            }
+            return filterCompletions(completions, args[args.length - 1]);
+        }
+        
+        if (args.length == 3 && args[0].equalsIgnoreCase("show")) {
+            if (sender.hasPermission("pixelsessentials.show")) {
+                completions.addAll(leaderboards.keySet());
+            }
+            return filterCompletions(completions, args[2]);
+        }
+        
+        return completions;
+    }
+    
+    /**
+     * Filters completions based on what the user has typed so far.
+     */
+    private List<String> filterCompletions(List<String> completions, String partial) {
+        return completions.stream()
+            .filter(s -> s.toLowerCase().startsWith(partial.toLowerCase()))
+            .toList();
+    }
+    
+    // ==================================================================================
+    // LEADERBOARD SIGN METHODS
+    // ==================================================================================
+    
+    /**
+     * Loads the sign registry and starts tracking the signs in loaded worlds.
+     * 
+     * <p>Signs in worlds that aren't loaded stay in {@link #leaderboardSignStore} and
+     * are picked up by {@link #onLeaderboardSignWorldLoad}.</p>
+     */
+    private void loadLeaderboardSigns() {
+        leaderboardSigns.clear();
+        leaderboardSignsByChunk.clear();
+        renderedLeaderboardSigns.clear();
+        
+        int dormant = 0;
+        for (Map.Entry<SignPosition, LeaderboardSign> entry : leaderboardSignStore.load().entrySet()) {
+            World world = Bukkit.getWorld(entry.getKey().worldName);
+            if (world != null) {
+                attachLeaderboardSign(entry.getKey().toLocation(world), entry.getValue());
+            } else {
+                dormant++;
+            }
+        }
+        
+        getServer().getConsoleSender().sendMessage(Component.text("[PixelsEssentials] Loaded " + leaderboardSigns.size() + " leaderboard signs"
+            + (dormant > 0 ? " (" + dormant + " more in worlds not loaded)" : ""), NamedTextColor.GREEN));
+    }
+    
+    /**
+     * Starts tracking the leaderboard signs of a world that just loaded.
+     * 
+     * @param event The WorldLoadEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLeaderboardSignWorldLoad(WorldLoadEvent event) {
+        World world = event.getWorld();
+        for (Map.Entry<SignPosition, LeaderboardSign> entry : leaderboardSignStore.inWorld(world.getName())) {
+            attachLeaderboardSign(entry.getKey().toLocation(world), entry.getValue());
+        }
+    }
+    
+    /**
+     * Stops tracking the leaderboard signs of a world that is unloading. They stay
+     * registered and come back when the world loads again.
+     * 
+     * @param event The WorldUnloadEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLeaderboardSignWorldUnload(WorldUnloadEvent event) {
+        Map<Long, Set<Location>> chunks = leaderboardSignsByChunk.get(event.getWorld().getUID());
+        if (chunks == null) return;
+        
+        List<Location> signs = new ArrayList<>();
+        for (Set<Location> chunk : chunks.values()) {
+            signs.addAll(chunk);
+        }
+        for (Location location : signs) {
+            detachLeaderboardSign(location);
+        }
+    }
+    
+    /**
+     * Starts the leaderboard sign scheduler.
+     * 
+     * <p>Signs are updated every signUpdateInterval seconds (default 60), spread evenly
+     * over the interval by {@link LeaderboardSignScheduler}. The first pass starts after
+     * 1 second to give the server time to fully load.</p>
+     */
+    private void startSignUpdateTask() {
+        leaderboardSignScheduler.start(20L);
+    }
+    
+    /**
+     * Updates all leaderboard signs in loaded chunks at once.
+     * 
+     * <p>Used by /pe updatesigns. Regular updates go through
+     * {@link #leaderboardSignScheduler} instead, which spreads them over several ticks.</p>
+     */
+    private void updateAllLeaderboardSigns() {
+        if (debugMode) {
+            getLogger().info("Updating " + leaderboardSigns.size() + " leaderboard signs...");
+        }
+        
+        List<Location> loaded = collectLoadedLeaderboardSigns();
+        
+        long written = leaderboardSignUpdatesWritten;
+        for (Location loc : loaded) {
+            LeaderboardSign sign = leaderboardSigns.get(loc);
+            if (sign != null) {
+                updateLeaderboardSign(loc, sign);
+            }
+        }
+        
+        if (debugMode) {
+            getLogger().info("[DEBUG] Leaderboard signs: " + (leaderboardSignUpdatesWritten - written) + " written, "
+                + (loaded.size() - (leaderboardSignUpdatesWritten - written)) + " unchanged, "
+                + (leaderboardSigns.size() - loaded.size()) + " in unloaded chunks");
+        }
+    }
+    
+    /**
+     * Lists the leaderboard signs in currently loaded chunks.
+     * 
+     * <p>The rest are drawn by {@link #onLeaderboardSignChunkLoad} when their chunk loads.
+     * Returns a copy, since updating can remove destroyed signs.</p>
+     * 
+     * @return Sign locations in loaded chunks
+     */
+    private List<Location> collectLoadedLeaderboardSigns() {
+        List<Location> loaded = new ArrayList<>();
+        for (Map.Entry<UUID, Map<Long, Set<Location>>> worldEntry : leaderboardSignsByChunk.entrySet()) {
+            World world = Bukkit.getWorld(worldEntry.getKey());
+            if (world == null) continue;
+            for (Map.Entry<Long, Set<Location>> chunkEntry : worldEntry.getValue().entrySet()) {
+                long key = chunkEntry.getKey();
+                if (world.isChunkLoaded((int) key, (int) (key >>> 32))) {
+                    loaded.addAll(chunkEntry.getValue());
+                }
+            }
+        }
+        return loaded;
+    }
+    
+    /**
+     * Draws the leaderboard signs in a chunk as it loads.
+     * 
+     * <p>Signs in unloaded chunks are skipped by regular updates, so this
+     * brings them up to date as soon as someone can see them. Runs on the next tick,
+     * once the chunk has finished loading.</p>
+     * 
+     * @param event The ChunkLoadEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLeaderboardSignChunkLoad(ChunkLoadEvent event) {
+        Map<Long, Set<Location>> chunks = leaderboardSignsByChunk.get(event.getWorld().getUID());
+        if (chunks == null) return;
+        
+        Set<Location> signs = chunks.get(event.getChunk().getChunkKey());
+        if (signs == null) return;
+        
+        List<Location> pending = new ArrayList<>(signs);
+        Bukkit.getScheduler().runTask(this, () -> {
+            for (Location loc : pending) {
+                // Redraw for certain; this is also when missing sign blocks are noticed
+                renderedLeaderboardSigns.remove(loc);
+                LeaderboardSign sign = leaderboardSigns.get(loc);
+                if (sign != null) {
+                    updateLeaderboardSign(loc, sign);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Registers a leaderboard sign, replacing any sign already at that location, and
+     * records it in the persistent registry.
+     * 
+     * @param location Sign block location
+     * @param sign Leaderboard and place to show
+     */
+    private void addLeaderboardSign(Location location, LeaderboardSign sign) {
+        attachLeaderboardSign(location, sign);
+        leaderboardSignStore.add(SignPosition.of(location), sign);
+    }
+    
+    /**
+     * Unregisters a leaderboard sign and records the removal in the persistent registry.
+     * 
+     * @param location Sign block location
+     */
+    private void removeLeaderboardSign(Location location) {
+        detachLeaderboardSign(location);
+        leaderboardSignStore.remove(SignPosition.of(location));
+    }
+    
+    /**
+     * Starts tracking a leaderboard sign in a loaded world, without persisting anything.
+     * 
+     * @param location Sign block location
+     * @param sign Leaderboard and place to show
+     */
+    private void attachLeaderboardSign(Location location, LeaderboardSign sign) {
+        Leaderboard board = leaderboards.get(sign.source);
+        if (board != null) {
+            board.requireDepth(sign.place);
+        }
+        leaderboardSigns.put(location, sign);
+        renderedLeaderboardSigns.remove(location);
+        leaderboardSignsByChunk
+            .computeIfAbsent(location.getWorld().getUID(), world -> new HashMap<>())
+            .computeIfAbsent(getSignChunkKey(location), chunk -> new HashSet<>())
+            .add(location);
+    }
+    
+    /**
+     * Stops tracking a leaderboard sign, without persisting anything.
+     * 
+     * @param location Sign block location
+     */
+    private void detachLeaderboardSign(Location location) {
+        leaderboardSigns.remove(location);
+        renderedLeaderboardSigns.remove(location);
+        
+        Map<Long, Set<Location>> chunks = leaderboardSignsByChunk.get(location.getWorld().getUID());
+        if (chunks == null) return;
+        long key = getSignChunkKey(location);
+        Set<Location> signs = chunks.get(key);
+        if (signs != null && signs.remove(location) && signs.isEmpty()) {
+            chunks.remove(key);
+            if (chunks.isEmpty()) {
+                leaderboardSignsByChunk.remove(location.getWorld().getUID());
+            }
+        }
+    }
+    
+    /**
+     * Gets the key of the chunk containing a block, as used by {@link #leaderboardSignsByChunk}.
+     * 
+     * @param location Block location
+     * @return Chunk key (x in the low 32 bits, z in the high 32 bits)
+     */
+    private static long getSignChunkKey(Location location) {
+        return Chunk.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+    
+    /**
+     * Updates a specific leaderboard sign.
+     * 
+     * <p>Sign format:</p>
+     * <pre>
+     * Line 1: "BALANCE" (gold, bold), or the leaderboard's title
+     * Line 2: "#1" (yellow)
+     * Line 3: "PlayerName" (green)
+     * Line 4: "$1.23 M" (aqua), formatted by the leaderboard
+     * </pre>
+     * 
+     * <p>Does nothing if the sign's chunk isn't loaded, so a sign is only ever
+     * removed after its block was actually seen not to be a sign. Also does nothing,
+     * without reading the block, if the sign already shows this text
+     * ({@link #renderedLeaderboardSigns}), or if its leaderboard no longer exists
+     * (left as last drawn, in case the source comes back).</p>
+     * 
+     * @param location Sign location
+     * @param spec Leaderboard and place shown on the sign
+     */
+    private void updateLeaderboardSign(Location location, LeaderboardSign spec) {
+        // Never load a chunk for a sign; it is drawn when its chunk loads
+        if (!location.getWorld().isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4)) {
+            return;
+        }
+        
+        Leaderboard board = leaderboards.get(spec.source);
+        if (board == null) return;
+        
+        int place = spec.place;
+        RankingSnapshot ranking = board.snapshot.get();
+        RenderedLeaderboardSign rendered = renderedLeaderboardSigns.get(location);
+        
+        UUID uuid = null;
+        double value = 0;
+        String playerName = null;
+        if (ranking.size() >= place) {
+            uuid = ranking.uuid(place - 1);
+            value = ranking.value(place - 1);
+            
+            String name = playerNames.nameOf(uuid);
+            playerName = name != null ? name : "Unknown";
+        }
+        
+        // Same player, name and exact value: nothing to do, not even formatting
+        if (rendered != null && rendered.place == place && Objects.equals(rendered.uuid, uuid)
+                && Objects.equals(rendered.name, playerName) && rendered.value == value) {
+            leaderboardSignUpdatesAvoided++;
+            return;
+        }
+        
+        String valueText = uuid != null ? board.formatValue(value) : null;
+        RenderedLeaderboardSign next = new RenderedLeaderboardSign(place, uuid, playerName, value, valueText);
+        
+        // Value moved but still formats the same (e.g. "$1.23 M")
+        if (rendered != null && rendered.place == place && Objects.equals(rendered.uuid, uuid)
+                && Objects.equals(rendered.name, playerName) && Objects.equals(rendered.valueText, valueText)) {
+            renderedLeaderboardSigns.put(location, next);
+            leaderboardSignUpdatesAvoided++;
+            return;
+        }
+        
+        BlockState state = location.getBlock().getState();
+        if (!(state instanceof Sign)) {
+            // Sign was destroyed, remove from tracking
+            removeLeaderboardSign(location);
+            return;
+        }
+        Sign sign = (Sign) state;
+        
+        sign.getSide(Side.FRONT).line(0, board.header);
+        sign.getSide(Side.FRONT).line(1, getLeaderboardSignPlaceLine(place));
+        if (uuid != null) {
+            sign.getSide(Side.FRONT).line(2, Component.text(playerName, NamedTextColor.GREEN));
+            sign.getSide(Side.FRONT).line(3, Component.text(valueText, NamedTextColor.AQUA));
+        } else {
+            // No player at this position yet
+            sign.getSide(Side.FRONT).line(2, LEADERBOARD_SIGN_NO_PLAYER);
+            sign.getSide(Side.FRONT).line(3, board.emptyValueLine);
+        }
+        
+        sign.update();
+        renderedLeaderboardSigns.put(location, next);
+        leaderboardSignUpdatesWritten++;
+    }
+    
+    /**
+     * Gets the prebuilt "#N" line for a place.
+     * 
+     * @param place Placement number (1 or more)
+     * @return "#N" in yellow
+     */
+    private Component getLeaderboardSignPlaceLine(int place) {
+        if (place > leaderboardSignPlaceLines.length) {
+            leaderboardSignPlaceLines = Arrays.copyOf(leaderboardSignPlaceLines, Math.max(place, leaderboardSignPlaceLines.length * 2));
+        }
+        Component line = leaderboardSignPlaceLines[place - 1];
+        if (line == null) {
+            line = Component.text("#" + place, NamedTextColor.YELLOW);
+            leaderboardSignPlaceLines[place - 1] = line;
+        }
+        return line;
+    }
+    
+    /**
+     * Unregisters a leaderboard sign as soon as it is broken.
+     * 
+     * <p>Unchanged signs are not looked at by {@link #updateLeaderboardSign}, so this is
+     * where most removals are noticed. Signs lost some other way (explosions, a
+     * support block broken) are found when their text next changes or their
+     * chunk loads.</p>
+     * 
+     * @param event The BlockBreakEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeaderboardSignBreak(BlockBreakEvent event) {
+        Location location = event.getBlock().getLocation();
+        if (leaderboardSigns.containsKey(location)) {
+            removeLeaderboardSign(location);
+        }
+    }
+    
+    /**
+     * Creates the {@link #leaderboards}: balance, when Vault economy is available, plus
+     * each source under leaderboard.sources in config.yml.
+     * 
+     * <p><b>Source types:</b></p>
+     * <ul>
+     *   <li><b>playtime:</b> time played (the PLAY_ONE_MINUTE statistic, in ticks)</li>
+     *   <li><b>statistic:</b> any untyped vanilla statistic, e.g. PLAYER_KILLS</li>
+     *   <li><b>homes:</b> number of homes set</li>
+     *   <li><b>placeholder:</b> a numeric PlaceholderAPI placeholder, online players only</li>
+     * </ul>
+     * 
+     * <p>Invalid sources are logged and skipped. Read at startup only.</p>
+     */
+    private void loadLeaderboards() {
+        Map<String, Leaderboard> boards = new LinkedHashMap<>();
+        if (economy != null) {
+            boards.put("balance", new Leaderboard("balance", "balance", null, null, BALANCE_SIGN_HEADER,
+                "money", balanceSampleInterval, balanceReconcileInterval));
+        }
+        
+        ConfigurationSection sources = getConfig().getConfigurationSection("leaderboard.sources");
+        if (sources != null) {
+            for (String key : sources.getKeys(false)) {
+                ConfigurationSection section = sources.getConfigurationSection(key);
+                String id = key.toLowerCase(Locale.ROOT);
+                if (section == null || id.equals("balance") || boards.containsKey(id)) {
+                    getLogger().warning("Ignoring leaderboard source '" + key + "': invalid or duplicate id");
+                    continue;
+                }
+                
+                String type = section.getString("type", id).toLowerCase(Locale.ROOT);
+                Statistic statistic = null;
+                String placeholder = null;
+                String format = "number";
+                switch (type) {
+                    case "playtime":
+                        statistic = Statistic.PLAY_ONE_MINUTE;
+                        format = "hours";
+                        break;
+                    case "statistic":
+                        try {
+                            statistic = Statistic.valueOf(section.getString("statistic", "").toUpperCase(Locale.ROOT));
+                        } catch (IllegalArgumentException e) {
+                            statistic = null;
+                        }
+                        if (statistic == null || statistic.getType() != Statistic.Type.UNTYPED) {
+                            getLogger().warning("Ignoring leaderboard source '" + key + "': needs an untyped statistic (e.g. PLAYER_KILLS)");
+                            continue;
+                        }
+                        break;
+                    case "homes":
+                        break;
+                    case "placeholder":
+                        placeholder = section.getString("placeholder");
+                        if (placeholder == null || getServer().getPluginManager().getPlugin("PlaceholderAPI") == null) {
+                            getLogger().warning("Ignoring leaderboard source '" + key + "': needs PlaceholderAPI and a placeholder");
+                            continue;
+                        }
+                        break;
+                    default:
+                        getLogger().warning("Ignoring leaderboard source '" + key + "': unknown type '" + type + "'");
+                        continue;
+                }
+                
+                format = section.getString("format", format).toLowerCase(Locale.ROOT);
+                Component header = LegacyComponentSerializer.legacyAmpersand().deserialize(
+                    section.getString("title", "&6&l" + id.toUpperCase(Locale.ROOT)));
+                int refresh = Math.max(1, section.getInt("refresh", 30));
+                int rescan = type.equals("placeholder") ? 0 : Math.max(0, section.getInt("rescan", balanceReconcileInterval));
+                boards.put(id, new Leaderboard(id, type, statistic, placeholder, header, format, refresh, rescan));
+            }
+        }
+        
+        leaderboards = Collections.unmodifiableMap(boards);
+        
+        // Signs were attached before the leaderboards existed
+        for (LeaderboardSign sign : leaderboardSigns.values()) {
+            Leaderboard board = boards.get(sign.source);
+            if (board != null) {
+                board.requireDepth(sign.place);
+            }
+        }
+    }
+    
+    /**
+     * Starts the maintenance tasks of every leaderboard: the sampled online refresh at
+     * the leaderboard's own cadence and the periodic full rescan (which also runs once
+     * right away to fill the index), plus one shared once-a-second snapshot publisher.
+     */
+    private void startLeaderboardTasks() {
+        for (Leaderboard board : leaderboards.values()) {
+            for (Player online : Bukkit.getOnlinePlayers()) {
+                recordRanking(board, online);
+            }
+            
+            Bukkit.getScheduler().runTaskTimer(this, () -> sampleLeaderboard(board),
+                20L * board.refreshSeconds, 20L * board.refreshSeconds);
+            if (board.rescanMinutes > 0) {
+                Bukkit.getScheduler().runTaskTimer(this, () -> rescanLeaderboard(board),
+                    0L, 20L * 60 * board.rescanMinutes);
+            }
+        }
+        
+        Bukkit.getScheduler().runTaskTimer(this, () -> {
+            for (Leaderboard board : leaderboards.values()) {
+                // Also republish when a new sign or placeholder needs a deeper snapshot
+                if (board.dirty || board.snapshot.get().size() < Math.min(rankingSnapshotDepth(board), board.index.size())) {
+                    publishRankingSnapshot(board);
+                }
+            }
+        }, 20L, 20L);
+    }
+    
+    /**
+     * Re-reads one player's value into a leaderboard's index.
+     * 
+     * <p>Does nothing if the source can't read this player right now (e.g. a
+     * statistic for a player who isn't online). Must be called on the main thread.</p>
+     * 
+     * @param board The leaderboard
+     * @param player The player
+     */
+    private void recordRanking(Leaderboard board, OfflinePlayer player) {
+        double value = board.read(player);
+        if (Double.isNaN(value)) return;
+        
+        UUID uuid = player.getUniqueId();
+        if (board.index.update(uuid, value)) {
+            board.dirty = true;
+        }
+        if (board.touchedDuringRescan != null) {
+            board.touchedDuringRescan.add(uuid);
+        }
+    }
+    
+    /**
+     * Re-reads one player on every leaderboard of a type.
+     * 
+     * <p>Called after anything this plugin does to a ranked value (withdraw and
+     * redeem for balance, sethome and delhome for homes) and on join.</p>
+     * 
+     * @param player The player
+     * @param type Leaderboard type, or null for all leaderboards
+     */
+    private void recordRankings(OfflinePlayer player, String type) {
+        for (Leaderboard board : leaderboards.values()) {
+            if (type == null || board.type.equals(type)) {
+                recordRanking(board, player);
+            }
+        }
+    }
+    
+    /**
+     * Records a quitting player's last values, and drops them from online-only
+     * (placeholder) leaderboards.
+     * 
+     * @param player The quitting player
+     */
+    private void recordRankingsOnQuit(Player player) {
+        for (Leaderboard board : leaderboards.values()) {
+            if (board.type.equals("placeholder")) {
+                if (board.index.update(player.getUniqueId(), 0)) {
+                    board.dirty = true;
+                }
+            } else {
+                recordRanking(board, player);
+            }
+        }
+    }
+    
+    /**
+     * Refreshes the next {@link #leaderboardSampleSize} online players on a leaderboard.
+     * 
+     * <p>Works through the online players round-robin, so with S players online each
+     * one is re-read every S / sample-size samples. Catches changes made elsewhere
+     * (shops, jobs, /pay, statistics going up) without reading everyone every time.</p>
+     * 
+     * @param board The leaderboard
+     */
+    private void sampleLeaderboard(Leaderboard board) {
+        if (board.sampleQueue.isEmpty()) {
+            for (Player online : Bukkit.getOnlinePlayers()) {
+                board.sampleQueue.add(online.getUniqueId());
+            }
+        }
+        
+        for (int i = 0; i < leaderboardSampleSize && !board.sampleQueue.isEmpty(); i++) {
+            Player player = Bukkit.getPlayer(board.sampleQueue.poll());
+            if (player != null) {
+                recordRanking(board, player);
+            }
+        }
+    }
+    
+    /**
+     * Publishes the top of a leaderboard's index as its new snapshot.
+     * 
+     * <p>Deep enough for the leaderboard's highest-placed sign and its placeholders
+     * (at least 10), so every sign reads its place from the snapshot by index. Called
+     * on the main thread once a second while the index has changed, and right after
+     * a rescan.</p>
+     * 
+     * @param board The leaderboard
+     */
+    private void publishRankingSnapshot(Leaderboard board) {
+        RankingSnapshot snapshot = board.index.snapshot(rankingSnapshotDepth(board));
+        playerNames.resolve(snapshot);
+        board.snapshot.set(snapshot);
+        board.dirty = false;
+    }
+    
+    /**
+     * Gets how many ranks a leaderboard's published snapshot must hold.
+     * 
+     * @param board The leaderboard
+     * @return {@link Leaderboard#snapshotDepth}: the highest place among its signs or
+     *         requested by placeholders, at least 10
+     */
+    private int rankingSnapshotDepth(Leaderboard board) {
+        return board.snapshotDepth.get();
+    }
+    
+    /**
+     * Rescans every player on a leaderboard and replaces its index with the result.
+     * 
+     * <p>This is the only full pass over all players. Values are read on a worker
+     * thread if the source allows it ({@link Leaderboard#offlineThreadSafe()}),
+     * otherwise on the main thread a slice per tick, into a primitive
+     * {@link RankingScan}. The replacement index and the new top-K snapshot are then
+     * built from it on a worker thread and swapped in on the main thread. Players
+     * recorded while the scan ran keep their newer value. Does nothing if a scan of
+     * this leaderboard is already running. A scan that throws is abandoned through
+     * {@link #abandonRescan}, keeping the current index.</p>
+     * 
+     * @param board The leaderboard
+     */
+    private void rescanLeaderboard(Leaderboard board) {
+        if (board.rescanMinutes <= 0 || board.touchedDuringRescan != null) return;
+        
+        board.touchedDuringRescan = new HashSet<>();
+        long start = System.nanoTime();
+        
+        int depth = rankingSnapshotDepth(board);
+        
+        Consumer<RankingScan> rank = scanned ->
+            Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+                try {
+                    RankingIndex rebuilt = RankingIndex.of(scanned);
+                    RankingSnapshot top = scanned.topK(depth);
+                    LeaderboardHistory history = leaderboardHistory;
+                    if (history != null) {
+                        history.record(board.id, scanned);
+                    }
+                    if (isEnabled()) {
+                        Bukkit.getScheduler().runTask(this, () -> swapRankingIndex(board, rebuilt, top, start));
+                    }
+                } catch (Exception e) {
+                    if (isEnabled()) {
+                        Bukkit.getScheduler().runTask(this, () -> abandonRescan(board, e));
+                    }
+                }
+            });
+        
+        if (board.offlineThreadSafe()) {
+            Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+                RankingScan scanned;
+                try {
+                    OfflinePlayer[] players = Bukkit.getOfflinePlayers();
+                    scanned = new RankingScan(players.length);
+                    for (OfflinePlayer player : players) {
+                        scanRanking(board, player, scanned);
+                    }
+                } catch (Exception e) {
+                    if (isEnabled()) {
+                        Bukkit.getScheduler().runTask(this, () -> abandonRescan(board, e));
+                    }
+                    return;
+                }
+                rank.accept(scanned);
+            });
+            return;
+        }
+        
+        OfflinePlayer[] players = Bukkit.getOfflinePlayers();
+        RankingScan scanned = new RankingScan(players.length);
+        new BukkitRunnable() {
+            private int next = 0;
+            
+            @Override
+            public void run() {
+                long sliceStart = System.nanoTime();
+                long budget = leaderboardScanBudgetMicros * 1000L;
+                int end = Math.min(next + leaderboardScanSlice, players.length);
+                try {
+                    while (next < end) {
+                        scanRanking(board, players[next++], scanned);
+                        if (System.nanoTime() - sliceStart >= budget) break;
+                    }
+                } catch (Exception e) {
+                    cancel();
+                    abandonRescan(board, e);
+                    return;
+                }
+                if (next >= players.length) {
+                    cancel();
+                    rank.accept(scanned);
+                }
+            }
+        }.runTaskTimer(this, 0L, 1L);
+    }
+    
+    /**
+     * Gives up on a rescan that threw, keeping the leaderboard's current index (main thread).
+     * 
+     * <p>Clears {@link Leaderboard#touchedDuringRescan} so the next scheduled rescan
+     * can run and recordings stop collecting into it.</p>
+     * 
+     * @param board The leaderboard
+     * @param error What the scan threw
+     */
+    private void abandonRescan(Leaderboard board, Exception error) {
+        board.touchedDuringRescan = null;
+        getLogger().warning("Leaderboard '" + board.id + "' rescan failed, keeping the current ranking: " + error);
+    }
+    
+    /**
+     * Reads one player's value into a rescan result.
+     * 
+     * @param board The leaderboard being rescanned
+     * @param player Any player from Bukkit.getOfflinePlayers()
+     * @param scanned Receives the value if positive
+     */
+    private void scanRanking(Leaderboard board, OfflinePlayer player, RankingScan scanned) {
+        if (player.hasPlayedBefore() || player.isOnline()) {
+            double value = board.readOffline(player);
+            if (value > 0) {
+                scanned.add(player.getUniqueId(), value);
+            }
+        }
+    }
+    
+    /**
+     * Replaces a leaderboard's live index with one rebuilt from a full rescan (main thread).
+     * 
+     * @param board The leaderboard
+     * @param rebuilt The index built from the scan
+     * @param top The scan's top-K snapshot, published as is unless players were recorded meanwhile
+     * @param start System.nanoTime() when the scan started
+     */
+    private void swapRankingIndex(Leaderboard board, RankingIndex rebuilt, RankingSnapshot top, long start) {
+        // Carry over players recorded during the scan; the live value is the newer one
+        boolean touched = !board.touchedDuringRescan.isEmpty();
+        for (UUID uuid : board.touchedDuringRescan) {
+            rebuilt.update(uuid, board.index.get(uuid));
+        }
+        board.touchedDuringRescan = null;
+        
+        board.index = rebuilt;
+        if (touched || top.size() < rankingSnapshotDepth(board)) {
+            publishRankingSnapshot(board);
+        } else {
+            playerNames.resolve(top);
+            board.snapshot.set(top);
+            board.dirty = false;
+        }
+        leaderboardSignScheduler.requestPass();
+        
+        if (debugMode) {
+            getLogger().info("[DEBUG] Leaderboard '" + board.id + "' rebuilt: " + rebuilt.size() + " ranked players in "
+                + (System.nanoTime() - start) / 1_000_000 + "ms");
+        }
+    }
+    
+    /**
+     * Handles /pe leaderboard history [leaderboard] [count].
+     * 
+     * <p><b>Permission:</b> pixelsessentials.leaderboard.history</p>
+     * 
+     * <p>Lists the newest samples recorded by {@link LeaderboardHistory} (default 10,
+     * at most 50), newest first: players ranked, total, median, Gini coefficient and
+     * the #1 player. The history files are read on an async thread and the results
+     * sent from the main thread.</p>
+     * 
+     * @param sender The command sender
+     * @param args The full /pe arguments (args[0] is "leaderboard")
+     * @return true (command always handled)
+     */
+    private boolean handleLeaderboardCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("pixelsessentials.leaderboard.history")) {
+            sender.sendMessage(Component.text("You don't have permission to use this command!", NamedTextColor.RED));
+            return true;
+        }
+        if (args.length < 2 || !args[1].equalsIgnoreCase("history")) {
+            sender.sendMessage(Component.text("Usage: /pe leaderboard history [leaderboard] [count]", NamedTextColor.RED));
+            return true;
+        }
+        LeaderboardHistory history = leaderboardHistory;
+        if (history == null) {
+            sender.sendMessage(Component.text("Leaderboard history is disabled (leaderboard.history.enabled).", NamedTextColor.RED));
+            return true;
+        }
+        
+        Leaderboard board = leaderboards.get("balance");
+        int count = 10;
+        for (int i = 2; i < args.length; i++) {
+            Leaderboard named = leaderboards.get(args[i].toLowerCase(Locale.ROOT));
+            if (named != null) {
+                board = named;
+                continue;
+            }
+            try {
+                count = Math.max(1, Math.min(50, Integer.parseInt(args[i])));
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("Unknown leaderboard: " + args[i], NamedTextColor.RED));
+                return true;
+            }
+        }
+        if (board == null) {
+            sender.sendMessage(Component.text("No leaderboards are available.", NamedTextColor.RED));
+            return true;
+        }
+        
+        Leaderboard shown = board;
+        int limit = count;
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            List<HistorySample> samples = history.read(shown.id, limit);
+            Bukkit.getScheduler().runTask(this, () -> {
+                DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+                
+                sender.sendMessage(Component.text("Leaderboard history for ", NamedTextColor.GOLD)
+                    .append(Component.text(shown.id, NamedTextColor.YELLOW))
+                    .append(Component.text(" (" + samples.size() + " newest samples)", NamedTextColor.GRAY)));
+                if (samples.isEmpty()) {
+                    sender.sendMessage(Component.text("No samples recorded yet; one is taken after each full rescan.", NamedTextColor.YELLOW));
+                    return;
+                }
+                
+                for (HistorySample sample : samples) {
+                    Component line = Component.text(format.format(Instant.ofEpochSecond(sample.timestamp)) + " ", NamedTextColor.WHITE)
+                        .append(Component.text(String.format("%,d", sample.ranked) + " ranked", NamedTextColor.GRAY))
+                        .append(Component.text("  total ", NamedTextColor.GRAY))
+                        .append(Component.text(shown.formatValue(sample.total / 100.0), NamedTextColor.AQUA))
+                        .append(Component.text("  median ", NamedTextColor.GRAY))
+                        .append(Component.text(shown.formatValue(sample.median / 100.0), NamedTextColor.AQUA))
+                        .append(Component.text("  Gini ", NamedTextColor.GRAY))
+                        .append(Component.text(String.format("%.3f", sample.gini / 1_000_000.0), NamedTextColor.AQUA));
+                    if (sample.top.length > 0) {
+                        String name = playerNames.nameOf(sample.top[0]);
+                        line = line.append(Component.text("  #1 ", NamedTextColor.YELLOW))
+                            .append(Component.text(name != null ? name : sample.top[0].toString().substring(0, 8), NamedTextColor.GREEN))
+                            .append(Component.text(" " + shown.formatValue(sample.topValues[0] / 100.0), NamedTextColor.AQUA));
+                    }
+                    sender.sendMessage(line);
+                }
+            });
+        });
+        return true;
+    }
+    
+    /**
+     * Shows a player's rank on a leaderboard (/pe rank).
+     * 
+     * <p>Read straight from the live {@link RankingIndex} on the main thread: the rank,
+     * the {@link #RANK_WINDOW} players either side, and the median, top 10% and top 1%
+     * thresholds are each an O(log n) walk of its order-statistic tree.</p>
+     * 
+     * @param sender Receives the output
+     * @param board The leaderboard
+     * @param target The player to show
+     */
+    private void showLeaderboardRank(CommandSender sender, Leaderboard board, OfflinePlayer target) {
+        RankingIndex index = board.index;
+        int rank = index.rankOf(target.getUniqueId());
+        String targetName = playerNames.nameOf(target.getUniqueId());
+        if (targetName == null) targetName = "Unknown";
+        if (rank == 0) {
+            sender.sendMessage(Component.text(targetName + " isn't ranked on " + board.id + " yet.", NamedTextColor.YELLOW));
+            return;
+        }
+        
+        int total = index.size();
+        sender.sendMessage(Component.text(targetName + " on " + board.id + ": ", NamedTextColor.GOLD)
+            .append(Component.text("#" + String.format("%,d", rank), NamedTextColor.AQUA))
+            .append(Component.text(" of " + String.format("%,d", total)
+                + String.format(" (top %.2f%%)", 100.0 * rank / total), NamedTextColor.GRAY)));
+        
+        // Ranks are unique, so the window's places just count up from its first rank
+        int from = Math.max(0, rank - 1 - RANK_WINDOW);
+        int place = from;
+        for (RankingEntry entry : index.range(from, 2 * RANK_WINDOW + 1)) {
+            place++;
+            String name = playerNames.nameOf(entry.uuid);
+            boolean self = entry.uuid.equals(target.getUniqueId());
+            sender.sendMessage(Component.text("  #" + String.format("%,d", place) + " ", NamedTextColor.YELLOW)
+                .append(Component.text(name != null ? name : "Unknown", self ? NamedTextColor.GREEN : NamedTextColor.WHITE))
+                .append(Component.text("  " + board.formatValue(entry.value), NamedTextColor.AQUA)));
+        }
+        
+        sender.sendMessage(Component.text("Median: ", NamedTextColor.GRAY)
+            .append(Component.text(board.formatValue(index.valueAtFraction(0.5)), NamedTextColor.AQUA))
+            .append(Component.text("  Top 10%: ", NamedTextColor.GRAY))
+            .append(Component.text(board.formatValue(index.valueAtFraction(0.1)), NamedTextColor.AQUA))
+            .append(Component.text("  Top 1%: ", NamedTextColor.GRAY))
+            .append(Component.text(board.formatValue(index.valueAtFraction(0.01)), NamedTextColor.AQUA)));
+    }
+    
+    /**
+     * Counts the homes saved in a player's data file, for rescans of homes leaderboards.
+     * 
+     * <p>Parses the file directly instead of going through {@link #playerDataCache},
+     * so it is safe on a worker thread. {@link #savePlayerData} replaces the file
+     * atomically, so a save on the main thread can't be caught half-written.</p>
+     * 
+     * @param uuid The player's UUID
+     * @return Number of homes, or 0 if the player has no data file
+     */
+    private int countSavedHomes(UUID uuid) {
+        File playerFile = new File(playerDataFolder, uuid.toString() + ".yml");
+        if (!playerFile.exists()) return 0;
+        
+        ConfigurationSection homes = YamlConfiguration.loadConfiguration(playerFile).getConfigurationSection("homes");
+        return homes != null ? homes.getKeys(false).size() : 0;
+    }
+    
+    /**
+     * Formats a balance value for display on signs.
+     * 
+     * <p>Format rules:</p>
+     * <ul>
+     *   <li>Under 1 million: Integer with commas (e.g., "12,375")</li>
+     *   <li>Millions: X.XX M (e.g., "35.45 M")</li>
+     *   <li>Billions: X.XX B (e.g., "135.22 B")</li>
+     *   <li>Trillions+: X.XX T (e.g., "1.36 T")</li>
+     * </ul>
+     * 
+     * @param balance The balance to format
+     * @return The formatted balance string
+     */
+    private String formatBalanceForSign(double balance) {
+        if (balance < 0) {
+            return "-" + formatBalanceForSign(-balance);
+        }
+        
+        final double TRILLION = 1_000_000_000_000.0;
+        final double BILLION = 1_000_000_000.0;
+        final double MILLION = 1_000_000.0;
+        
+        if (balance >= TRILLION) {
+            return String.format("%.2f T", balance / TRILLION);
+        } else if (balance >= BILLION) {
+            return String.format("%.2f B", balance / BILLION);
+        } else if (balance >= MILLION) {
+            return String.format("%.2f M", balance / MILLION);
+        } else {
+            return String.format("%,d", (long) balance);
+        }
+    }
+    
+    // ==================================================================================
+    // INTERNAL DATA CLASSES
+    // ==================================================================================
+    
+    /**
+     * Internal data class storing all persistent data for a single player.
+     * 
+     * <p>This class serves as the in-memory representation of a player's YAML data file.
+     * Instances are cached in {@link #playerDataCache} and persisted to disk via
+     * {@link #savePlayerData(UUID)}.</p>
+     * 
+     * <p><b>Data Stored:</b></p>
+     * <ul>
+     *   <li><b>homes:</b> Map of home names to locations (lowercase keys)</li>
+     *   <li><b>lastTeleportLocation:</b> Position before most recent teleport</li>
+     *   <li><b>lastDeathLocation:</b> Position of most recent death</li>
+     *   <li><b>lastWasDeath:</b> Flag indicating if /back should use death or teleport location</li>
+     *   <li><b>logoutLocation:</b> Position when player quit (for analytics/spawn-on-join)</li>
+     *   <li><b>autofeedEnabled:</b> Per-player toggle for automatic hunger restoration</li>
+     * </ul>
+     * 
+     * <p><b>YAML File Mapping:</b></p>
+     * <pre>
+     * homes:              -> homes Map
+     * lastteleportlocation: -> lastTeleportLocation
+     * lastdeathlocation:    -> lastDeathLocation
+     * last-was-death:       -> lastWasDeath
+     * logoutlocation:       -> logoutLocation
+     * autofeed:             -> autofeedEnabled
+     * </pre>
+     */
+    private static class PlayerData {
+        /**
+         * Map of home name (lowercase) to location data.
+         * Keys are always lowercase for case-insensitive matching.
+         * Empty map by default, never null.
+         */
+        Map<String, LocationData> homes = new HashMap<>();
+        
+        /**
+         * Location before the player's most recent teleport.
+         * Set by {@link #onPlayerTeleport} for /back command functionality.
+         * May be null if player hasn't teleported yet.
+         */
+        LocationData lastTeleportLocation;
+        
+        /**
+         * Location where the player most recently died.
+         * Set by {@link #onPlayerDeath} for /back command functionality.
+         * May be null if player hasn't died yet.
+         */
+        LocationData lastDeathLocation;
+        
+        /**
+         * Flag indicating whether the most recent /back-able event was a death.
+         * 
+         * <p>When true, /back will attempt to use lastDeathLocation (requires ondeath permission).
+         * When false, /back will use lastTeleportLocation.</p>
+         * 
+         * <p>This flag is set to true in {@link #setLastDeathLocation} and
+         * false in {@link #setLastTeleportLocation}.</p>
+         */
+        boolean lastWasDeath = false;
+        
+        /**
+         * Location where the player was when they logged out.
+         * Set by {@link #onPlayerQuit} for future features or analytics.
+         * May be null if player data was created before first quit.
+         */
+        LocationData logoutLocation;
+        
+        /**
+         * Whether automatic hunger restoration is enabled for this player.
+         * 
+         * <p>Default: true (enabled for new players)</p>
+         * <p>Toggled via /autofeed on|off command</p>
+         * <p>Requires pixelsessentials.autofeed permission to actually trigger</p>
+         */
+        boolean autofeedEnabled = true;
+    }
+    
+    /**
+     * Immutable data class storing a serializable location with world identification.
+     * 
+     * <p>This class contains all information needed to teleport a player to a saved location.
+     * It stores both world UUID (primary, reliable across renames) and world name
+     * (fallback, human-readable for display/debugging).</p>
+     * 
+     * <p><b>World Resolution:</b> When converting to a Bukkit Location via {@link #toLocation()},
+     * the world is first looked up by UUID. If not found (world deleted/recreated), falls back
+     * to lookup by name. Returns null if neither succeeds.</p>
+     * 
+     * <p><b>YAML Storage Format:</b></p>
+     * <pre>
+     * somepath:
+     *   world: "550e8400-e29b-41d4-a716-446655440000"
+     *   world-name: "world"
+     *   x: 100.5
+     *   y: 64.0
+     *   z: -200.3
+     *   yaw: 90.0
+     *   pitch: 0.0
+     * </pre>
+     * 
+     * <p><b>Immutability:</b> All fields are final and set at construction time.
+     * This ensures thread-safety and prevents accidental modification of saved locations.</p>
+     */
+    private static class LocationData {
+        /**
+         * The UUID of the world as a string.
+         * Primary identifier used for world resolution in {@link #toLocation()}.
+         * More reliable than world name since UUIDs persist across world renames.
+         */
+        final String worldUuid;
+        
+        /**
+         * The human-readable name of the world.
+         * Used for display purposes and as fallback if UUID lookup fails.
+         * Stored for debugging and when world is recreated with new UUID.
+         */
+        final String worldName;
+        
+        /**
+         * X coordinate in the world (east-west position).
+         * Stored as double for sub-block precision.
+         */
+        final double x;
+        
+        /**
+         * Y coordinate in the world (vertical position/height).
+         * Stored as double for sub-block precision.
+         * Valid range typically 0-320 in modern Minecraft.
+         */
+        final double y;
+        
+        /**
+         * Z coordinate in the world (north-south position).
+         * Stored as double for sub-block precision.
+         */
+        final double z;
+        
+        /**
+         * Yaw (horizontal rotation) in degrees.
+         * 0 = south, 90 = west, 180 = north, 270 = east.
+         * Range: -180 to 180 or 0 to 360 depending on source.
+         */
+        final float yaw;
+        
+        /**
+         * Pitch (vertical rotation/look angle) in degrees.
+         * 0 = horizontal, -90 = straight up, 90 = straight down.
+         */
+        final float pitch;
+        
+        /**
+         * Constructs a new immutable LocationData instance.
+         * 
+         * @param worldUuid World UUID as string (from World.getUID().toString())
+         * @param worldName World name (from World.getName())
+         * @param x X coordinate (east-west)
+         * @param y Y coordinate (height)
+         * @param z Z coordinate (north-south)
+         * @param yaw Horizontal rotation in degrees
+         * @param pitch Vertical rotation in degrees
+         */
+        LocationData(String worldUuid, String worldName, double x, double y, double z, float yaw, float pitch) {
+            this.worldUuid = worldUuid;
+            this.worldName = worldName;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.yaw = yaw;
+            this.pitch = pitch;
+        }
+        
+        /**
+         * Creates a LocationData from a Bukkit Location.
+         * 
+         * @param location The Bukkit Location
+         * @return LocationData object
+         */
+        static LocationData fromLocation(Location location) {
+            World world = location.getWorld();
+            return new LocationData(
+                world.getUID().toString(),
+                world.getName(),
+                location.getX(),
+                location.getY(),
+                location.getZ(),
+                location.getYaw(),
+                location.getPitch()
+            );
+        }
+        
+        /**
+         * Converts this location data to a Bukkit Location.
+         * 
+         * <p>First tries to find the world by UUID, then falls back to world name.</p>
+         * 
+         * @return Location object, or null if world doesn't exist
+         */
+        Location toLocation() {
+            World bukkitWorld = null;
+            
+            // First try to find by UUID
+            try {
+                UUID uuid = UUID.fromString(worldUuid);
+                bukkitWorld = Bukkit.getWorld(uuid);
+            } catch (IllegalArgumentException e) {
+                // Invalid UUID, try by name
+            }
+            
+            // Fallback to world name
+            if (bukkitWorld == null) {
+                bukkitWorld = Bukkit.getWorld(worldName);
+            }
+            
+            if (bukkitWorld == null) {
+                return null;
+            }
+            
+            return new Location(bukkitWorld, x, y, z, yaw, pitch);
+        }
+    }
+
+    /**
+     * Identifies one stored extended ender chest page: owner UUID plus page number.
+     * 
+     * <p>Used as the key for {@link #extendedEnderChestCache}, background loads and the
+     * write queue, so every page is loaded, cached and saved independently.</p>
+     */
+    private static final class EnderChestPage {
+        
+        /** UUID of the player who owns the page */
+        final UUID owner;
+        
+        /** Stored page number (1-based; the vanilla ender chest is never stored) */
+        final int page;
+        
+        EnderChestPage(UUID owner, int page) {
+            this.owner = owner;
+            this.page = page;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EnderChestPage)) return false;
+            EnderChestPage other = (EnderChestPage) o;
+            return page == other.page && owner.equals(other.owner);
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * owner.hashCode() + page;
+        }
+        
+        @Override
+        public String toString() {
+            return owner + "#" + page;
+        }
+    }
+    
+    /**
+     * An extended ender chest a player currently has open.
+     * 
+     * <p>Keeps the shown page's slots as they were loaded, so committing the page can
+     * work out which slots changed without reading the file. Only accessed on the
+     * main thread.</p>
+     * 
+     * <p><b>Layouts:</b> the classic view (54 slots) always shows the vanilla chest in
+     * slots 0-26 and stored page 1 in slots 27-53. The paged view (36 slots) shows one
+     * page in slots 0-26, where page 0 is the vanilla chest, and navigation in 27-35.
+     * Staff views (/pe ec open) are paged views of the stored pages only; the viewer is
+     * then not the owner.</p>
+     */
+    private static class ExtendedEnderChestSession {
+        
+        /** UUID of the player whose chest this is */
+        final UUID owner;
+        
+        /** The inventory shown to the player, reused for every page */
+        final Inventory inventory;
+        
+        /** Whether this is the 36-slot paged view */
+        final boolean paged;
+        
+        /** Lowest page this view can show: 0 in the owner's paged view, 1 otherwise */
+        final int firstPage;
+        
+        /** Highest stored page this view can show */
+        final int pageCount;
+        
+        /** Page currently shown (0 = vanilla, owner's paged view only) */
+        int page;
+        
+        /** Shown stored page's slots (27) as loaded; null while loading or on page 0 */
+        ItemStack[] loadedSlots;
+        
+        ExtendedEnderChestSession(UUID owner, Inventory inventory, boolean paged, int firstPage, int pageCount) {
+            this.owner = owner;
+            this.inventory = inventory;
+            this.paged = paged;
+            this.firstPage = firstPage;
+            this.pageCount = pageCount;
+        }
+        
+        /**
+         * First inventory slot of the shown stored page.
+         * 
+         * @return 0 in the paged view, 27 in the classic view
+         */
+        int storageOffset() {
+            return paged ? 0 : 27;
+        }
+        
+        /**
+         * Whether the shown stored page is still being read (slots hold placeholders).
+         * 
+         * @return true while clicks must be blocked
+         */
+        boolean isLoading() {
+            return page > 0 && loadedSlots == null;
+        }
+        
+        /**
+         * Records the stored page slots now shown in the inventory.
+         * 
+         * @param slots The page's slots (copied; the caller's array is not kept)
+         */
+        void setLoaded(ItemStack[] slots) {
+            this.loadedSlots = slots.clone();
+        }
+    }
+    
+    /**
+     * Rolling history of extended ender chest pages, stored in a content-addressed blob store.
+     * 
+     * <p><b>Layout</b> (under plugins/PixelsEssentials/ecblobs/):</p>
+     * <ul>
+     *   <li><b>{hh}/{sha256}:</b> One blob per distinct item, the raw Paper item bytes,
+     *       named by their SHA-256 hash and fanned out by the first two hex digits.
+     *       An item that sits unchanged in many snapshots, or in many players' chests,
+     *       is stored once.</li>
+     *   <li><b>manifests/{uuid}.dat:</b> The player's snapshots, each a timestamp, page
+     *       number and one blob hash per slot. Rewritten (temp file + move) when the
+     *       player's history changes.</li>
+     * </ul>
+     * 
+     * <p><b>Retention:</b> bounded by the total size of all blobs
+     * (enderchest.history.max-size-mb), not by snapshot count. When over budget, the
+     * oldest snapshot on the server is dropped, except that the newest snapshot of each
+     * page is always kept. Blobs no longer referenced by any snapshot are deleted.
+     * A save replaces the page's newest snapshot instead of adding one while the
+     * snapshot before it is younger than enderchest.history.min-interval, so a page
+     * being edited continuously still keeps one snapshot per interval.</p>
+     * 
+     * <p><b>Threading:</b> the maps and reference counts are guarded by this object's
+     * lock, which is not held for file writes. {@link #record} runs on the ender chest
+     * writer threads in parallel: it hashes and writes blobs before taking the lock (a
+     * blob is named by its content, so writing one twice is harmless) and rewrites
+     * manifests after releasing it, under a per-player lock so they land in order.
+     * Commands call in from async tasks. The manifests are read on first use
+     * ({@link #ensureLoaded()}), which onEnable triggers from an async task.</p>
+     */
+    private class EnderChestHistory {
+        
+        /** Root of the blob store */
+        private final File blobFolder;
+        
+        /** Per-player manifest folder */
+        private final File manifestFolder;
+        
+        /** Byte budget for all blobs together */
+        private volatile long maxBytes;
+        
+        /** Minimum spacing between the snapshots a page keeps */
+        private volatile long minIntervalMillis;
+        
+        /** Snapshots per player, oldest first */
+        private final Map<UUID, List<EnderChestSnapshot>> snapshots = new HashMap<>();
+        
+        /** Every snapshot on the server, oldest first, so eviction never rescans the players */
+        private final TreeSet<EnderChestSnapshot> byAge = new TreeSet<>(
+            Comparator.comparingLong((EnderChestSnapshot s) -> s.timestamp).thenComparingLong(s -> s.sequence));
+        
+        /** Tie-breaker for {@link #byAge}, assigned in creation order */
+        private long nextSequence;
+        
+        /** Per-player locks ordering manifest rewrites, taken without this object's lock */
+        private final Map<UUID, Object> manifestLocks = new ConcurrentHashMap<>();
+        
+        /** Size in bytes of every stored blob */
+        private final Map<String, Long> blobSizes = new HashMap<>();
+        
+        /** Number of snapshot slots referencing each blob */
+        private final Map<String, Integer> blobRefs = new HashMap<>();
+        
+        /** Sum of {@link #blobSizes} */
+        private long totalBytes;
+        
+        /** Whether the manifests have been read */
+        private boolean loaded;
+        
+        EnderChestHistory(File blobFolder, long maxBytes, long minIntervalMillis) {
+            this.blobFolder = blobFolder;
+            this.manifestFolder = new File(blobFolder, "manifests");
+            this.maxBytes = maxBytes;
+            this.minIntervalMillis = minIntervalMillis;
+        }
+        
+        /**
+         * Applies new retention settings (from /pe reload).
+         * 
+         * @param maxBytes Byte budget for all blobs
+         * @param minIntervalMillis Minimum time between kept snapshots of a page
+         */
+        void configure(long maxBytes, long minIntervalMillis) {
+            this.maxBytes = maxBytes;
+            this.minIntervalMillis = minIntervalMillis;
+        }
+        
+        /**
+         * Reads all manifests, rebuilds reference counts and sizes, and deletes blobs
+         * left unreferenced (e.g. by a crash between writing a blob and its manifest).
+         */
+        void ensureLoaded() {
+            Set<UUID> changed;
+            synchronized (this) {
+                if (loaded) return;
+                loaded = true;
+                changed = load();
+            }
+            for (UUID uuid : changed) {
+                writeManifest(uuid);
+            }
+        }
+        
+        /**
+         * Does the work of {@link #ensureLoaded()}. Caller holds the lock.
+         * 
+         * @return Players whose manifests changed by evicting over budget
+         */
+        private Set<UUID> load() {
+            long start = System.currentTimeMillis();
+            manifestFolder.mkdirs();
+            
+            File[] manifests = manifestFolder.listFiles((dir, name) -> name.endsWith(".dat"));
+            if (manifests != null) {
+                for (File manifest : manifests) {
+                    try {
+                        UUID uuid = UUID.fromString(manifest.getName().substring(0, manifest.getName().length() - 4));
+                        List<EnderChestSnapshot> list = readManifest(uuid, manifest);
+                        if (list.isEmpty()) continue;
+                        snapshots.put(uuid, list);
+                        byAge.addAll(list);
+                        for (EnderChestSnapshot snapshot : list) {
+                            for (String hash : snapshot.hashes) {
+                                if (hash != null) blobRefs.merge(hash, 1, Integer::sum);
+                            }
+                        }
+                    } catch (Exception e) {
+                        getLogger().warning("Skipping unreadable ender chest history " + manifest.getName() + ": " + e.getMessage());
+                    }
+                }
+            }
+            
+            // Size referenced blobs; anything else in the store is garbage
+            int missing = 0;
+            for (String hash : blobRefs.keySet()) {
+                File blob = getBlobFile(hash);
+                if (!blob.exists()) {
+                    // Left out of blobSizes so the next save containing this item rewrites it
+                    missing++;
+                    continue;
+                }
+                blobSizes.put(hash, blob.length());
+                totalBytes += blob.length();
+            }
+            int orphans = 0;
+            File[] buckets = blobFolder.listFiles((dir, name) -> name.length() == 2);
+            if (buckets != null) {
+                for (File bucket : buckets) {
+                    File[] blobs = bucket.listFiles();
+                    if (blobs == null) continue;
+                    for (File blob : blobs) {
+                        if (!blobRefs.containsKey(blob.getName()) && blob.delete()) {
+                            orphans++;
+                        }
+                    }
+                }
+            }
+            
+            if (missing > 0) {
+                getLogger().warning("Ender chest history references " + missing + " missing item blobs; those slots will restore empty");
+            }
+            getLogger().info("Loaded ender chest history: " + countSnapshots() + " snapshots, "
+                + blobSizes.size() + " item blobs (" + (totalBytes / 1024) + " KB)"
+                + (orphans > 0 ? ", removed " + orphans + " unreferenced blobs" : "")
+                + " in " + (System.currentTimeMillis() - start) + "ms");
+            
+            return evictOverBudget();
+        }
+        
+        /**
+         * Records a snapshot of a page that was just saved.
+         * 
+         * <p>Slots whose bytes were already encoded for the save are hashed directly;
+         * unchanged slots of a delta save reuse the hashes of the page's previous
+         * snapshot, so nothing is encoded twice.</p>
+         * 
+         * @param key The owner and page
+         * @param contents The page's contents as saved
+         * @param encoded Item bytes from the save; null for slots that weren't encoded
+         */
+        void record(EnderChestPage key, ItemStack[] contents, byte[][] encoded) {
+            ensureLoaded();
+            
+            // The write queue saves one page at a time, so this stays the page's newest
+            // snapshot until this call adds the next one
+            String[] latestHashes;
+            synchronized (this) {
+                EnderChestSnapshot latest = newestSnapshots(key)[0];
+                latestHashes = latest != null ? latest.hashes : null;
+            }
+            
+            // Hash and write blobs without the lock
+            String[] hashes = new String[contents.length];
+            Map<String, byte[]> blobs = new HashMap<>();
+            try {
+                for (int slot = 0; slot < contents.length; slot++) {
+                    byte[] bytes = encoded[slot];
+                    if (bytes == null) {
+                        if (latestHashes != null && slot < latestHashes.length) {
+                            hashes[slot] = latestHashes[slot];
+                            continue;
+                        }
+                        bytes = encodeEnderChestItem(contents[slot]);
+                    }
+                    if (bytes.length == 0) continue;
+                    
+                    hashes[slot] = sha256(bytes);
+                    if (blobs.put(hashes[slot], bytes) == null && !getBlobFile(hashes[slot]).exists()) {
+                        writeBlob(hashes[slot], bytes);
+                    }
+                }
+            } catch (IOException e) {
+                getLogger().warning("Failed to record ender chest history for " + key + ": " + e.getMessage());
+                return;
+            }
+            
+            Set<UUID> changed;
+            synchronized (this) {
+                changed = addSnapshot(key, hashes, blobs);
+            }
+            for (UUID uuid : changed) {
+                writeManifest(uuid);
+            }
+        }
+        
+        /**
+         * Finds a page's newest snapshot and the one before it. Caller holds the lock.
+         * 
+         * @param key The owner and page
+         * @return {newest, previous}, either of which may be null
+         */
+        private EnderChestSnapshot[] newestSnapshots(EnderChestPage key) {
+            EnderChestSnapshot[] found = new EnderChestSnapshot[2];
+            List<EnderChestSnapshot> list = snapshots.get(key.owner);
+            if (list == null) return found;
+            for (int i = list.size() - 1; i >= 0 && found[1] == null; i--) {
+                if (list.get(i).page != key.page) continue;
+                found[found[0] == null ? 0 : 1] = list.get(i);
+            }
+            return found;
+        }
+        
+        /**
+         * Adds a recorded snapshot to the maps and applies retention. Caller holds the lock.
+         * 
+         * @param key The owner and page
+         * @param hashes Blob hash per slot
+         * @param blobs Bytes of the blobs this save hashed, by hash
+         * @return Players whose manifests need rewriting
+         */
+        private Set<UUID> addSnapshot(EnderChestPage key, String[] hashes, Map<String, byte[]> blobs) {
+            EnderChestSnapshot[] newest = newestSnapshots(key);
+            EnderChestSnapshot latest = newest[0];
+            EnderChestSnapshot previous = newest[1];
+            if (latest != null && Arrays.equals(latest.hashes, hashes)) {
+                return new HashSet<>();
+            }
+            
+            for (Map.Entry<String, byte[]> blob : blobs.entrySet()) {
+                if (!registerBlob(blob.getKey(), blob.getValue())) {
+                    return new HashSet<>();
+                }
+            }
+            
+            List<EnderChestSnapshot> list = snapshots.computeIfAbsent(key.owner, k -> new ArrayList<>());
+            long now = System.currentTimeMillis();
+            EnderChestSnapshot snapshot = new EnderChestSnapshot(key.owner, nextSequence++, now, key.page, hashes);
+            addReferences(snapshot);
+            
+            // Rapid saves replace the newest snapshot rather than piling up, but only while
+            // the snapshot kept before it is younger than the interval. Measuring from that
+            // fixed snapshot (not the one being replaced) means continuous edits still leave
+            // one snapshot behind per interval instead of sliding the window forever.
+            if (latest != null && previous != null && now - previous.timestamp < minIntervalMillis) {
+                list.remove(latest);
+                byAge.remove(latest);
+                releaseReferences(latest);
+            }
+            list.add(snapshot);
+            byAge.add(snapshot);
+            
+            Set<UUID> changed = evictOverBudget();
+            changed.add(key.owner);
+            return changed;
+        }
+        
+        /**
+         * Gets a player's snapshots, newest first.
+         * 
+         * @param uuid The player's UUID
+         * @param page Only this page, or 0 for all pages
+         * @return A copy of the matching snapshots
+         */
+        synchronized List<EnderChestSnapshot> getSnapshots(UUID uuid, int page) {
+            ensureLoaded();
+            List<EnderChestSnapshot> result = new ArrayList<>();
+            List<EnderChestSnapshot> list = snapshots.get(uuid);
+            if (list != null) {
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    if (page == 0 || list.get(i).page == page) {
+                        result.add(list.get(i));
+                    }
+                }
+            }
+            return result;
+        }
+        
+        /**
+         * Rebuilds the items of a snapshot from the blob store. Reads files only, so
+         * it runs without the lock.
+         * 
+         * @param snapshot The snapshot to rebuild
+         * @return The page contents (slots whose blob is missing come back empty)
+         */
+        ItemStack[] loadContents(EnderChestSnapshot snapshot) {
+            ItemStack[] items = new ItemStack[snapshot.hashes.length];
+            for (int slot = 0; slot < items.length; slot++) {
+                String hash = snapshot.hashes[slot];
+                if (hash == null) continue;
+                try {
+                    items[slot] = ItemStack.deserializeBytes(Files.readAllBytes(getBlobFile(hash).toPath()));
+                } catch (Exception e) {
+                    getLogger().warning("Could not restore item blob " + hash + ": " + e.getMessage());
+                }
+            }
+            return items;
+        }
+        
+        /**
+         * Total snapshots across all players.
+         * 
+         * @return Snapshot count
+         */
+        synchronized int countSnapshots() {
+            int count = 0;
+            for (List<EnderChestSnapshot> list : snapshots.values()) {
+                count += list.size();
+            }
+            return count;
+        }
+        
+        /**
+         * Sends store size metrics to a command sender (/pe ec stats).
+         * 
+         * @param sender The sender to report to
+         */
+        synchronized void report(CommandSender sender) {
+            sender.sendMessage(Component.text("History: ", NamedTextColor.GRAY)
+                .append(Component.text(countSnapshots() + " snapshots, " + blobSizes.size() + " item blobs", NamedTextColor.AQUA))
+                .append(Component.text("  Size: ", NamedTextColor.GRAY))
+                .append(Component.text((totalBytes / 1024) + " / " + (maxBytes / 1024) + " KB", NamedTextColor.AQUA)));
+        }
+        
+        /**
+         * Drops the oldest snapshots on the server until the blob store fits its budget.
+         * The newest snapshot of every page is never dropped. Caller holds the lock.
+         * 
+         * @return Players whose manifests need rewriting
+         */
+        private Set<UUID> evictOverBudget() {
+            Set<UUID> changed = new HashSet<>();
+            
+            // One pass in age order: dropping a snapshot never makes an older one the newest
+            // of its page, so snapshots skipped here stay ineligible for the rest of the pass
+            Iterator<EnderChestSnapshot> oldestFirst = byAge.iterator();
+            while (totalBytes > maxBytes && oldestFirst.hasNext()) {
+                EnderChestSnapshot oldest = oldestFirst.next();
+                List<EnderChestSnapshot> list = snapshots.get(oldest.owner);
+                int index = list.indexOf(oldest);
+                if (!hasNewerSnapshot(list, index)) continue;
+                
+                oldestFirst.remove();
+                list.remove(index);
+                releaseReferences(oldest);
+                changed.add(oldest.owner);
+            }
+            return changed;
+        }
+        
+        /**
+         * Whether a later snapshot of the same page exists in a player's list.
+         */
+        private boolean hasNewerSnapshot(List<EnderChestSnapshot> list, int index) {
+            int page = list.get(index).page;
+            for (int i = index + 1; i < list.size(); i++) {
+                if (list.get(i).page == page) return true;
+            }
+            return false;
+        }
+        
+        /**
+         * Writes a blob file. The temp file is unique per call, so threads storing the
+         * same item at once don't collide.
+         */
+        private void writeBlob(String hash, byte[] bytes) throws IOException {
+            File blob = getBlobFile(hash);
+            blob.getParentFile().mkdirs();
+            Path tempFile = Files.createTempFile(blob.getParentFile().toPath(), hash, ".tmp");
+            Files.write(tempFile, bytes);
+            Files.move(tempFile, blob.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        
+        /**
+         * Counts a blob written by {@link #record} in {@link #blobSizes} unless it already
+         * is. Caller holds the lock.
+         * 
+         * <p>Rewrites the file if an eviction deleted it between {@link #record} writing
+         * it and taking the lock.</p>
+         * 
+         * @return false if the blob couldn't be rewritten
+         */
+        private boolean registerBlob(String hash, byte[] bytes) {
+            if (blobSizes.containsKey(hash)) return true;
+            
+            if (!getBlobFile(hash).exists()) {
+                try {
+                    writeBlob(hash, bytes);
+                } catch (IOException e) {
+                    getLogger().warning("Failed to store ender chest history blob " + hash + ": " + e.getMessage());
+                    return false;
+                }
+            }
+            blobSizes.put(hash, (long) bytes.length);
+            totalBytes += bytes.length;
+            return true;
+        }
+        
+        private void addReferences(EnderChestSnapshot snapshot) {
+            for (String hash : snapshot.hashes) {
+                if (hash != null) blobRefs.merge(hash, 1, Integer::sum);
+            }
+        }
+        
+        /**
+         * Decrements a dropped snapshot's blob references and deletes unreferenced blobs.
+         */
+        private void releaseReferences(EnderChestSnapshot snapshot) {
+            for (String hash : snapshot.hashes) {
+                if (hash == null) continue;
+                Integer refs = blobRefs.merge(hash, -1, Integer::sum);
+                if (refs != null && refs <= 0) {
+                    blobRefs.remove(hash);
+                    Long size = blobSizes.remove(hash);
+                    if (size != null) totalBytes -= size;
+                    getBlobFile(hash).delete();
+                }
+            }
+        }
+        
+        private File getBlobFile(String hash) {
+            return new File(new File(blobFolder, hash.substring(0, 2)), hash);
+        }
+        
+        /**
+         * Rewrites a player's manifest, or deletes it when the player has no snapshots.
+         * 
+         * <p>Format: int magic 0x50454548 ("PEEH"), byte version 1, then per snapshot:
+         * long timestamp, short page, short slot count, and per slot a byte hash length
+         * (0 = empty, 32 = SHA-256) followed by the hash bytes.</p>
+         * 
+         * <p>Called without this object's lock. The list is copied under the player's
+         * manifest lock, so whichever call writes last writes the newest state.</p>
+         */
+        private void writeManifest(UUID uuid) {
+            synchronized (manifestLocks.computeIfAbsent(uuid, k -> new Object())) {
+                List<EnderChestSnapshot> list;
+                synchronized (this) {
+                    List<EnderChestSnapshot> current = snapshots.get(uuid);
+                    if (current == null || current.isEmpty()) {
+                        snapshots.remove(uuid);
+                        list = null;
+                    } else {
+                        list = new ArrayList<>(current);
+                    }
+                }
+                
+                File file = new File(manifestFolder, uuid + ".dat");
+                if (list == null) {
+                    file.delete();
+                } else {
+                    writeManifest(uuid, file, list);
+                }
+            }
+        }
+        
+        private void writeManifest(UUID uuid, File file, List<EnderChestSnapshot> list) {
+            manifestFolder.mkdirs();
+            File tempFile = new File(manifestFolder, uuid + ".dat.tmp");
+            HexFormat hex = HexFormat.of();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(ENDERCHEST_HISTORY_MAGIC);
+                out.writeByte(1);
+                for (EnderChestSnapshot snapshot : list) {
+                    out.writeLong(snapshot.timestamp);
+                    out.writeShort(snapshot.page);
+                    out.writeShort(snapshot.hashes.length);
+                    for (String hash : snapshot.hashes) {
+                        if (hash == null) {
+                            out.writeByte(0);
+                        } else {
+                            byte[] digest = hex.parseHex(hash);
+                            out.writeByte(digest.length);
+                            out.write(digest);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                getLogger().warning("Failed to write ender chest history for " + uuid + ": " + e.getMessage());
+                return;
+            }
+            try {
+                Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                getLogger().warning("Failed to replace ender chest history for " + uuid + ": " + e.getMessage());
+            }
+        }
+        
+        private List<EnderChestSnapshot> readManifest(UUID uuid, File file) throws IOException {
+            List<EnderChestSnapshot> list = new ArrayList<>();
+            HexFormat hex = HexFormat.of();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != ENDERCHEST_HISTORY_MAGIC || in.readUnsignedByte() != 1) {
+                    throw new IOException("Not an ender chest history file");
+                }
+                while (true) {
+                    long timestamp;
+                    try {
+                        timestamp = in.readLong();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    int page = in.readShort();
+                    String[] hashes = new String[in.readShort()];
+                    for (int slot = 0; slot < hashes.length; slot++) {
+                        int length = in.readUnsignedByte();
+                        if (length == 0) continue;
+                        byte[] digest = new byte[length];
+                        in.readFully(digest);
+                        hashes[slot] = hex.formatHex(digest);
+                    }
+                    list.add(new EnderChestSnapshot(uuid, nextSequence++, timestamp, page, hashes));
+                }
+            }
+            return list;
+        }
+        
+        private String sha256(byte[] bytes) {
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+    
+    /**
+     * One saved version of an extended ender chest page in {@link EnderChestHistory}.
+     */
+    private static class EnderChestSnapshot {
+        
+        /** The chest's owner */
+        final UUID owner;
+        
+        /** Creation order, breaking timestamp ties in the history's age queue */
+        final long sequence;
+        
+        /** Epoch millis when the page was saved */
+        final long timestamp;
+        
+        /** Stored page number */
+        final int page;
+        
+        /** Blob hash per slot (null = empty slot) */
+        final String[] hashes;
+        
+        EnderChestSnapshot(UUID owner, long sequence, long timestamp, int page, String[] hashes) {
+            this.owner = owner;
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.page = page;
+            this.hashes = hashes;
+        }
+        
+        /**
+         * Number of non-empty slots.
+         * 
+         * @return Item stack count
+         */
+        int itemCount() {
+            int count = 0;
+            for (String hash : hashes) {
+                if (hash != null) count++;
+            }
+            return count;
+        }
+    }
+    
+    /**
+     * Inverted index over all extended ender chests: item key to the players holding it.
+     * 
+     * <p><b>Item key:</b> the ItemsAdder namespaced ID for custom items, otherwise the
+     * material key (e.g. minecraft:diamond). Only top-level slots are indexed, not the
+     * contents of shulker boxes or bundles; vanilla ender chest slots are not indexed.</p>
+     * 
+     * <p><b>Maintenance:</b> {@link #update} is called by the writer threads after every
+     * page save. It replaces that page's previous contribution, so the index follows
+     * the data without ever rescanning. {@link #build()} fills in pages nobody has
+     * saved yet by reading every chest file on a small pool of threads; a page already
+     * indexed by a save is newer than anything the scan read, so the scan result is
+     * dropped for it.</p>
+     * 
+     * <p><b>Threading:</b> the ItemsAdder API is main thread only, and only items with
+     * metadata can be custom items. Saves count their items on the main thread before
+     * queueing the write. The scan indexes pages of plain items itself and hands pages
+     * with metadata to the main thread, which keys {@link #ENDERCHEST_INDEX_RESOLVE_PER_TICK}
+     * of them per tick.</p>
+     * 
+     * <p>All maps are guarded by this object's lock. Items are turned into keys
+     * outside the lock.</p>
+     */
+    private class EnderChestItemIndex {
+        
+        /** Item key -> owner -> {slots, total amount} */
+        private final Map<String, Map<UUID, int[]>> holders = new HashMap<>();
+        
+        /** Each indexed page's contribution: item key -> {slots, total amount} */
+        private final Map<EnderChestPage, Map<String, int[]>> pages = new HashMap<>();
+        
+        /** Chest files read by the initial scan so far */
+        private final AtomicInteger scanned = new AtomicInteger();
+        
+        /** Chest files found by the initial scan */
+        private volatile int scanTotal = -1;
+        
+        /** Whether the initial scan has finished */
+        private volatile boolean built;
+        
+        /** Whether ItemsAdder is installed, so custom items get their own key */
+        private final boolean itemsAdder = Bukkit.getPluginManager().getPlugin("ItemsAdder") != null;
+        
+        /** Scanned pages waiting for the main thread to key their items */
+        private final ConcurrentLinkedQueue<Map.Entry<EnderChestPage, ItemStack[]>> unresolved = new ConcurrentLinkedQueue<>();
+        
+        /** Whether every chest file has been read (some pages may still be unresolved) */
+        private volatile boolean scanFinished;
+        
+        /** Scan start, for the completion log line */
+        private long buildStart;
+        
+        /** Writer threads used by the scan, for the completion log line */
+        private int buildThreads;
+        
+        /**
+         * Re-indexes a page that was just saved (writer thread).
+         * 
+         * @param key The owner and page
+         * @param counts The page's item counts from {@link #countItems}, taken on the main thread
+         */
+        void update(EnderChestPage key, Map<String, int[]> counts) {
+            synchronized (this) {
+                apply(key, counts);
+            }
+        }
+        
+        /**
+         * Scans every extended ender chest file in parallel (async thread).
+         * 
+         * <p>Uses half the available processors (at least one). Files are parsed by name:
+         * {uuid}_enderchest.dat is page 1, {uuid}_enderchest_p{N}.dat is page N, and a
+         * legacy {uuid}_enderchest.yml counts as page 1 when no .dat exists.</p>
+         */
+        void build() {
+            buildStart = System.currentTimeMillis();
+            File[] files = playerDataFolder.listFiles((dir, name) -> name.contains("_enderchest"));
+            if (files == null) files = new File[0];
+            scanTotal = files.length;
+            
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            buildThreads = threads;
+            AtomicInteger threadId = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "PixelsEssentials-EnderChestIndex-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            
+            for (File file : files) {
+                pool.execute(() -> {
+                    try {
+                        scanFile(file);
+                    } catch (Exception e) {
+                        getLogger().warning("Item index skipped " + file.getName() + ": " + e.getMessage());
+                    } finally {
+                        scanned.incrementAndGet();
+                    }
+                });
+            }
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            
+            scanFinished = true;
+            if (unresolved.isEmpty()) {
+                finishBuild();
+            } else if (isEnabled()) {
+                Bukkit.getScheduler().runTaskTimer(PixelsEssentials.this, this::resolveScanned, 1L, 1L);
+            }
+        }
+        
+        /**
+         * Keys a batch of scanned pages that hold items with metadata (main thread).
+         * 
+         * @param task This repeating task, cancelled once nothing is left
+         */
+        private void resolveScanned(BukkitTask task) {
+            for (int i = 0; i < ENDERCHEST_INDEX_RESOLVE_PER_TICK; i++) {
+                Map.Entry<EnderChestPage, ItemStack[]> page = unresolved.poll();
+                if (page == null) {
+                    task.cancel();
+                    finishBuild();
+                    return;
+                }
+                Map<String, int[]> counts = countItems(page.getValue());
+                synchronized (this) {
+                    if (!pages.containsKey(page.getKey())) {
+                        apply(page.getKey(), counts);
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Marks the index complete and logs the scan summary.
+         */
+        private void finishBuild() {
+            built = true;
+            synchronized (this) {
+                getLogger().info("Indexed " + pages.size() + " ender chest pages (" + holders.size()
+                    + " distinct items) in " + (System.currentTimeMillis() - buildStart) + "ms using " + buildThreads + " threads");
+            }
+        }
+        
+        /**
+         * Reads one chest file for the initial scan and indexes it unless a save got there first.
+         */
+        private void scanFile(File file) throws IOException {
+            String name = file.getName();
+            int separator = name.indexOf("_enderchest");
+            UUID owner;
+            try {
+                owner = UUID.fromString(name.substring(0, separator));
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+            String suffix = name.substring(separator + "_enderchest".length());
+            
+            int page;
+            ItemStack[] contents;
+            if (suffix.equals(".dat")) {
+                page = 1;
+                contents = readEnderChestBinary(file, false);
+            } else if (suffix.startsWith("_p") && suffix.endsWith(".dat")) {
+                page = Integer.parseInt(suffix.substring(2, suffix.length() - 4));
+                contents = readEnderChestBinary(file, false);
+            } else if (suffix.equals(".yml") && !getEnderChestFile(owner, 1).exists()) {
+                page = 1;
+                contents = readEnderChestLegacy(file);
+            } else {
+                return;
+            }
+            
+            EnderChestPage key = new EnderChestPage(owner, page);
+            if (itemsAdder && hasItemMeta(contents)) {
+                // Might hold custom items, which only the main thread can identify
+                unresolved.add(new AbstractMap.SimpleEntry<>(key, contents));
+                return;
+            }
+            Map<String, int[]> counts = countItems(contents);
+            synchronized (this) {
+                if (!pages.containsKey(key)) {
+                    apply(key, counts);
+                }
+            }
+        }
+        
+        /**
+         * Finds everyone holding an item, most slots first.
+         * 
+         * @param itemKey The item key
+         * @return Owner UUID to {slots, total amount}, copied
+         */
+        synchronized List<Map.Entry<UUID, int[]>> find(String itemKey) {
+            Map<UUID, int[]> owners = holders.get(itemKey);
+            List<Map.Entry<UUID, int[]>> result = new ArrayList<>();
+            if (owners != null) {
+                for (Map.Entry<UUID, int[]> entry : owners.entrySet()) {
+                    result.add(new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getValue().clone()));
+                }
+            }
+            result.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+            return result;
+        }
+        
+        /**
+         * All item keys currently in the index (for tab completion).
+         * 
+         * @return A copy of the key set
+         */
+        synchronized Set<String> itemKeys() {
+            return new HashSet<>(holders.keySet());
+        }
+        
+        /**
+         * Whether the initial scan has finished.
+         * 
+         * @return true once every chest file has been read
+         */
+        boolean isBuilt() {
+            return built;
+        }
+        
+        /**
+         * Initial scan progress for status messages.
+         * 
+         * @return "read/total" files
+         */
+        String progress() {
+            return scanned.get() + "/" + Math.max(0, scanTotal);
+        }
+        
+        /**
+         * Replaces a page's contribution to {@link #holders}. Caller holds the lock.
+         */
+        private void apply(EnderChestPage key, Map<String, int[]> counts) {
+            Map<String, int[]> previous = pages.put(key, counts);
+            if (previous != null) {
+                for (Map.Entry<String, int[]> entry : previous.entrySet()) {
+                    adjust(entry.getKey(), key.owner, -entry.getValue()[0], -entry.getValue()[1]);
+                }
+            }
+            for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+                adjust(entry.getKey(), key.owner, entry.getValue()[0], entry.getValue()[1]);
+            }
         }
         
-        // Apply ALL meta modifications in one shot
-        ItemMeta meta = itemStack.getItemMeta();
-        if (meta != null) {
-            // Apply custom name
-            if (customName != null) {
-                meta.setDisplayName(customName);
+        private void adjust(String itemKey, UUID owner, int slots, int amount) {
+            Map<UUID, int[]> owners = holders.computeIfAbsent(itemKey, k -> new HashMap<>());
+            int[] totals = owners.computeIfAbsent(owner, k -> new int[2]);
+            totals[0] += slots;
+            totals[1] += amount;
+            if (totals[0] <= 0) {
+                owners.remove(owner);
+                if (owners.isEmpty()) {
+                    holders.remove(itemKey);
+                }
+            }
+        }
+        
+        /**
+         * Whether any slot of a page holds an item with metadata.
+         */
+        private boolean hasItemMeta(ItemStack[] contents) {
+            for (ItemStack item : contents) {
+                if (item != null && item.hasItemMeta()) return true;
+            }
+            return false;
+        }
+        
+        /**
+         * Counts slots and total amount per item key in one page. Main thread only when
+         * ItemsAdder is installed and the page holds items with metadata.
+         * 
+         * @param contents The page's contents
+         * @return Item key -> {slots, total amount}
+         */
+        Map<String, int[]> countItems(ItemStack[] contents) {
+            Map<String, int[]> counts = new HashMap<>();
+            for (ItemStack item : contents) {
+                if (item == null || item.getType().isAir()) continue;
+                int[] totals = counts.computeIfAbsent(itemKey(item), k -> new int[2]);
+                totals[0]++;
+                totals[1] += item.getAmount();
+            }
+            return counts;
+        }
+        
+        /**
+         * Gets the index key of an item.
+         * 
+         * @param item A non-empty item
+         * @return The ItemsAdder namespaced ID, or the material key
+         */
+        String itemKey(ItemStack item) {
+            if (itemsAdder && item.hasItemMeta()) {
+                CustomStack custom = CustomStack.byItemStack(item);
+                if (custom != null) {
+                    return custom.getNamespacedID().toLowerCase(Locale.ROOT);
+                }
+            }
+            return item.getType().getKey().toString();
+        }
+    }
+    
+    /**
+     * One ranked metric: where its values come from, its index and its published snapshot.
+     * 
+     * <p>Every leaderboard runs on the same engine. Values are recorded as they change
+     * ({@link #recordRanking}), online players are re-read a few at a time every
+     * {@link #refreshSeconds} ({@link #sampleLeaderboard}), and sources that can read
+     * offline players are fully rescanned every {@link #rescanMinutes}
+     * ({@link #rescanLeaderboard}). Signs and placeholders only ever read
+     * {@link #snapshot}.</p>
+     * 
+     * <p>Configuration is immutable. The index, dirty flag, sample queue and rescan
+     * state are main thread only.</p>
+     */
+    private class Leaderboard {
+        
+        /** Key in {@link #leaderboards}, as used by /pe show and signs.log */
+        final String id;
+        
+        /** balance, playtime, statistic, homes or placeholder */
+        final String type;
+        
+        /** Statistic read by playtime and statistic sources, otherwise null */
+        final Statistic statistic;
+        
+        /** Placeholder read by placeholder sources (e.g. "%mcmmo_power_level%"), otherwise null */
+        final String placeholder;
+        
+        /** Sign line 1 */
+        final Component header;
+        
+        /** How values are drawn: money, hours (from ticks) or number */
+        final String format;
+        
+        /** Sign line 4 for an empty place */
+        final Component emptyValueLine;
+        
+        /** Seconds between samples of online players */
+        final int refreshSeconds;
+        
+        /** Minutes between full rescans, 0 for none */
+        final int rescanMinutes;
+        
+        /** Every known positive value, kept sorted */
+        RankingIndex index = new RankingIndex();
+        
+        /** The top of {@link #index}, replaced as a whole by {@link #publishRankingSnapshot} */
+        final AtomicReference<RankingSnapshot> snapshot =
+            new AtomicReference<>(RankingSnapshot.EMPTY);
+        
+        /** Set when {@link #index} changed since the last published snapshot */
+        boolean dirty = false;
+        
+        /**
+         * Ranks every published snapshot holds: at least 10, the highest place of any
+         * sign on this leaderboard, and the deepest rank placeholders have asked for
+         * (up to {@link #leaderboardPlaceholderDepth}).
+         * 
+         * <p>Only grows, through {@link #requireDepth}, which may be called from any
+         * thread; an atomic max, so a smaller request racing a larger one can't win.
+         * When it grows the next once-a-second publish goes deeper; nothing recomputes
+         * it otherwise.</p>
+         */
+        final AtomicInteger snapshotDepth = new AtomicInteger(10);
+        
+        /** Online players still to be sampled this round; refilled when empty */
+        final ArrayDeque<UUID> sampleQueue = new ArrayDeque<>();
+        
+        /**
+         * Players recorded while a rescan was running, or null when none is.
+         * 
+         * <p>The scan read these players at some unknown point, so their values are
+         * copied from the live index into the rebuilt one.</p>
+         */
+        Set<UUID> touchedDuringRescan = null;
+        
+        Leaderboard(String id, String type, Statistic statistic, String placeholder, Component header,
+                    String format, int refreshSeconds, int rescanMinutes) {
+            this.id = id;
+            this.type = type;
+            this.statistic = statistic;
+            this.placeholder = placeholder;
+            this.header = header;
+            this.format = format;
+            this.emptyValueLine = LegacyComponentSerializer.legacyAmpersand().deserialize("&7" + formatValue(0));
+            this.refreshSeconds = refreshSeconds;
+            this.rescanMinutes = rescanMinutes;
+        }
+        
+        /**
+         * Reads a player's current value on the main thread.
+         * 
+         * @param player The player
+         * @return The value, or NaN if it can't be read now (the index is left alone)
+         */
+        double read(OfflinePlayer player) {
+            Player online = player.getPlayer();
+            switch (type) {
+                case "balance":
+                    return economy != null ? economy.getBalance(player) : Double.NaN;
+                case "playtime":
+                case "statistic":
+                    return online != null ? online.getStatistic(statistic) : Double.NaN;
+                case "homes":
+                    PlayerData data = playerDataCache.get(player.getUniqueId());
+                    return data != null ? data.homes.size() : Double.NaN;
+                case "placeholder":
+                    return online != null ? parseRankingValue(PlaceholderAPI.setPlaceholders(online, placeholder)) : Double.NaN;
+                default:
+                    return Double.NaN;
+            }
+        }
+        
+        /**
+         * Reads any player's value during a rescan, on a worker thread if
+         * {@link #offlineThreadSafe()}, otherwise on the main thread.
+         * 
+         * @param player The player
+         * @return The value, or NaN if unknown
+         */
+        double readOffline(OfflinePlayer player) {
+            switch (type) {
+                case "balance":
+                    return economy.getBalance(player);
+                case "playtime":
+                case "statistic":
+                    return player.getStatistic(statistic);
+                case "homes":
+                    return countSavedHomes(player.getUniqueId());
+                default:
+                    return Double.NaN;
+            }
+        }
+        
+        /**
+         * Whether {@link #readOffline} may run on a worker thread.
+         * 
+         * @return true for homes (plain file reads), and for balance when
+         *         {@link #balanceAsyncEconomy} is set
+         */
+        boolean offlineThreadSafe() {
+            return type.equals("homes") || (type.equals("balance") && balanceAsyncEconomy);
+        }
+        
+        /**
+         * Makes future snapshots hold at least this many ranks, for placeholders.
+         * 
+         * @param depth Ranks wanted (capped at {@link #leaderboardPlaceholderDepth})
+         */
+        void requestPlaceholderDepth(int depth) {
+            requireDepth(Math.min(depth, leaderboardPlaceholderDepth));
+        }
+        
+        /**
+         * Makes future snapshots hold at least this many ranks.
+         * 
+         * @param depth Ranks wanted
+         */
+        void requireDepth(int depth) {
+            snapshotDepth.accumulateAndGet(depth, Math::max);
+        }
+        
+        /**
+         * Formats a value for sign line 4.
+         * 
+         * @param value The value
+         * @return e.g. "$1.23 M", "12.5 h" or "1,024"
+         */
+        String formatValue(double value) {
+            switch (format) {
+                case "money":
+                    return "$" + formatBalanceForSign(value);
+                case "hours":
+                    return String.format("%,.1f h", value / 72000.0);
+                default:
+                    return value == Math.rint(value) ? String.format("%,d", (long) value) : String.format("%,.2f", value);
+            }
+        }
+    }
+    
+    /**
+     * Parses a placeholder's output as a number, ignoring thousands separators.
+     * 
+     * @param text Placeholder output, e.g. "1,234" or "12.5"
+     * @return The number, or NaN if the output isn't numeric
+     */
+    private static double parseRankingValue(String text) {
+        try {
+            return Double.parseDouble(text.replace(",", "").trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+    
+    /**
+     * Time series of each leaderboard, one sample per full rescan, for charting how
+     * values (e.g. wealth) are spread over time.
+     * 
+     * <p>A sample holds the top {@link #leaderboardHistoryTop} players and values, and
+     * aggregates over every ranked player: count, total, median and the Gini
+     * coefficient. Samples are taken on the rescan's worker thread from the
+     * {@link RankingScan}, so they cost the main thread nothing, and at most once per
+     * {@link #leaderboardHistoryInterval} minutes.</p>
+     * 
+     * <p><b>Storage:</b> history/&lt;leaderboard&gt;.dat, append-only. Each record is
+     * delta-encoded against the record before it in the same file: a few bytes for
+     * the time and aggregates, and per place a back-reference to the previous
+     * sample's place holding the same player (a UUID is only written when a player is
+     * new to the top) plus the change in value. Values are stored in hundredths.</p>
+     * 
+     * <p><b>Record format</b> (varints are unsigned LEB128, signed ones zigzag-encoded):</p>
+     * <pre>
+     * varint  length of the rest of the record
+     * varint  seconds since the previous record (epoch seconds for a file's first)
+     * svarint change in players ranked
+     * svarint change in total
+     * svarint change in median
+     * svarint change in Gini (millionths)
+     * varint  places recorded
+     * per place:
+     *   varint  0 = new player, followed by 16 bytes of UUID;
+     *           k = the player at place k of the previous record
+     *   svarint change in value from the previous record's same place (else from 0)
+     * </pre>
+     * 
+     * <p><b>Rotation:</b> once a file reaches half of leaderboard.history.max-size-kb,
+     * it becomes &lt;leaderboard&gt;.old.dat (replacing the previous one) and a new file
+     * starts, so each leaderboard uses at most that much disk and keeps at least the
+     * newer half of its history. If the file can be neither renamed nor deleted,
+     * samples are skipped until it can.</p>
+     * 
+     * <p>Queries stream each file through a small buffer and decode it in one forward
+     * pass, keeping only the samples asked for. A torn record at the end of a file (e.g. from a crash
+     * mid-write) ends the pass and is cut off before the next append.</p>
+     */
+    private class LeaderboardHistory {
+        
+        /** Folder holding the history files */
+        private final File folder;
+        
+        /** Disk budget per leaderboard, both files together */
+        private final long maxBytes;
+        
+        /** Last record written per leaderboard (the delta base), loaded from the file on first use */
+        private final Map<String, HistorySample> last = new HashMap<>();
+        
+        LeaderboardHistory(File folder, long maxBytes) {
+            this.folder = folder;
+            this.maxBytes = maxBytes;
+        }
+        
+        /**
+         * Records a sample from a finished rescan, unless the last one is too recent (worker thread).
+         * 
+         * @param id The leaderboard id
+         * @param scanned Every ranked player's value
+         */
+        synchronized void record(String id, RankingScan scanned) {
+            long now = System.currentTimeMillis() / 1000;
+            File file = getFile(id, false);
+            HistorySample previous = last.containsKey(id) ? last.get(id) : loadLast(file);
+            // A little slack so rescans on the same cadence as the interval aren't skipped
+            if (previous != null && now - previous.timestamp < leaderboardHistoryInterval * 60L - 30) {
+                last.put(id, previous);
+                return;
             }
             
-            // Apply custom lore
-            if (customLore != null) {
-                List<String> loreList = new ArrayList<>();
-                List<String> existingLore = meta.getLore();
-                if (existingLore != null) {
-                    loreList.addAll(existingLore);
+            HistorySample sample = HistorySample.of(now, scanned, leaderboardHistoryTop);
+            
+            if (file.length() >= maxBytes / 2) {
+                File old = getFile(id, true);
+                old.delete();
+                if (!file.renameTo(old) && !file.delete()) {
+                    // A file's first record has no delta base; appended to the old records
+                    // it would throw off the decoding of everything after it
+                    getLogger().warning("Failed to rotate " + file.getName() + ", skipping this history sample for " + id);
+                    last.put(id, previous);
+                    return;
                 }
-                loreList.add(customLore);
-                meta.setLore(loreList);
+                previous = null;
             }
             
-            // Set meta ONCE at the end
-            itemStack.setItemMeta(meta);
+            byte[] encoded = sample.encode(previous);
+            folder.mkdirs();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+                writeVarLong(out, encoded.length);
+                out.write(encoded);
+                last.put(id, sample);
+            } catch (IOException e) {
+                last.remove(id);
+                getLogger().warning("Failed to write leaderboard history for " + id + ": " + e.getMessage());
+            }
         }
         
-        // Apply custom max durability using Data Component API (Paper 1.21+)
-        if (customDurability > 0) {
-            itemStack.setData(io.papermc.paper.datacomponent.DataComponentTypes.MAX_DAMAGE, customDurability);
+        /**
+         * Reads the newest samples of a leaderboard (async thread).
+         * 
+         * @param id The leaderboard id
+         * @param count Samples wanted
+         * @return Up to count samples, newest first
+         */
+        synchronized List<HistorySample> read(String id, int count) {
+            ArrayDeque<HistorySample> newest = new ArrayDeque<>(count);
+            for (File file : new File[] {getFile(id, true), getFile(id, false)}) {
+                decode(file, sample -> {
+                    if (newest.size() == count) {
+                        newest.removeFirst();
+                    }
+                    newest.addLast(sample);
+                });
+            }
+            List<HistorySample> result = new ArrayList<>(newest);
+            Collections.reverse(result);
+            return result;
         }
         
-        // Set count
-        itemStack.setAmount(count);
+        /**
+         * Finds the last complete record of a file, cutting off a torn one after it.
+         * 
+         * @return The last sample, or null if the file has none
+         */
+        private HistorySample loadLast(File file) {
+            HistorySample[] lastSample = new HistorySample[1];
+            long end = decode(file, sample -> lastSample[0] = sample);
+            if (file.exists() && file.length() > end) {
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(end);
+                } catch (IOException e) {
+                    getLogger().warning("Failed to repair " + file.getName() + ": " + e.getMessage());
+                }
+            }
+            return lastSample[0];
+        }
         
-        // Give the item to the target player
-        HashMap<Integer, ItemStack> leftover = target.getInventory().addItem(itemStack);
+        /**
+         * Decodes every complete record of a file in order.
+         * 
+         * <p>The file is streamed and decoded one record at a time, so only the current
+         * record is held in memory however large leaderboard.history.max-size-kb is. It
+         * is not memory-mapped: a mapping stays open until it is garbage collected, and on
+         * Windows that blocks the truncation and rotation {@link #record} does to the
+         * same file.</p>
+         * 
+         * @param file The history file
+         * @param consumer Receives each sample
+         * @return Offset just past the last complete record
+         */
+        private long decode(File file, Consumer<HistorySample> consumer) {
+            if (!file.exists() || file.length() == 0) return 0;
+            
+            long fileLength = file.length();
+            long end = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                byte[] record = new byte[256];
+                HistorySample previous = null;
+                while (end < fileLength) {
+                    long length = readVarLong(in);
+                    long recordEnd = end + varLongSize(length) + length;
+                    if (length < 0 || recordEnd > fileLength) break;
+                    if (length > record.length) {
+                        record = new byte[(int) Math.max(length, record.length * 2L)];
+                    }
+                    in.readFully(record, 0, (int) length);
+                    previous = HistorySample.decode(ByteBuffer.wrap(record, 0, (int) length), previous);
+                    end = recordEnd;
+                    consumer.accept(previous);
+                }
+            } catch (EOFException e) {
+                // A torn record ends the file; everything before it is kept
+            } catch (IOException e) {
+                getLogger().warning("Failed to read " + file.getName() + ": " + e.getMessage());
+            } catch (RuntimeException e) {
+                // So does a damaged one
+            }
+            return end;
+        }
         
-        if (!leftover.isEmpty()) {
-            // Inventory full, drop at player's feet
-            for (ItemStack drop : leftover.values()) {
-                target.getWorld().dropItemNaturally(target.getLocation(), drop);
+        /**
+         * Gets a leaderboard's current or rotated history file.
+         */
+        private File getFile(String id, boolean old) {
+            return new File(folder, id + (old ? ".old.dat" : ".dat"));
+        }
+    }
+    
+    /**
+     * One {@link LeaderboardHistory} sample. Values are in hundredths, the Gini
+     * coefficient in millionths. Immutable.
+     */
+    private static final class HistorySample {
+        
+        /** Epoch seconds */
+        final long timestamp;
+        
+        /** Players with a positive value */
+        final long ranked;
+        
+        final long total;
+        final long median;
+        final long gini;
+        
+        /** Top players, highest first */
+        final UUID[] top;
+        
+        /** Their values */
+        final long[] topValues;
+        
+        HistorySample(long timestamp, long ranked, long total, long median, long gini, UUID[] top, long[] topValues) {
+            this.timestamp = timestamp;
+            this.ranked = ranked;
+            this.total = total;
+            this.median = median;
+            this.gini = gini;
+            this.top = top;
+            this.topValues = topValues;
+        }
+        
+        /**
+         * Takes a sample of a rescan.
+         * 
+         * <p>Sorts a copy of the values, O(n log n). The Gini coefficient is
+         * (2 &Sigma; i&middot;x<sub>i</sub>) / (n &Sigma; x) &minus; (n + 1) / n over the
+         * values in ascending order, i from 1: 0 when everyone has the same, close
+         * to 1 when one player has nearly everything.</p>
+         * 
+         * @param timestamp Epoch seconds
+         * @param scanned Every ranked player's value
+         * @param places Top places to keep
+         */
+        static HistorySample of(long timestamp, RankingScan scanned, int places) {
+            int n = scanned.size();
+            double[] values = new double[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = scanned.value(i);
             }
-            sender.sendMessage(Component.text(target.getName() + "'s inventory full - item dropped at their feet.", NamedTextColor.YELLOW));
+            Arrays.sort(values);
+            
+            double total = 0;
+            double weighted = 0;
+            for (int i = 0; i < n; i++) {
+                total += values[i];
+                weighted += (i + 1) * values[i];
+            }
+            double median = n == 0 ? 0 : (n % 2 == 1 ? values[n / 2] : (values[n / 2 - 1] + values[n / 2]) / 2);
+            double gini = n == 0 || total <= 0 ? 0 : 2 * weighted / (n * total) - (n + 1.0) / n;
+            
+            RankingSnapshot ranking = scanned.topK(places);
+            UUID[] top = new UUID[ranking.size()];
+            long[] topValues = new long[ranking.size()];
+            for (int i = 0; i < top.length; i++) {
+                top[i] = ranking.uuid(i);
+                topValues[i] = Math.round(ranking.value(i) * 100);
+            }
+            return new HistorySample(timestamp, n, Math.round(total * 100), Math.round(median * 100),
+                Math.round(gini * 1_000_000), top, topValues);
+        }
+        
+        /**
+         * Encodes this sample as a delta from the previous record (without the length prefix).
+         * 
+         * @param previous The previous record in the file, or null to start a file
+         */
+        byte[] encode(HistorySample previous) {
+            HistorySample base = previous != null ? previous : EMPTY;
+            Map<UUID, Integer> basePlaces = new HashMap<>();
+            for (int i = 0; i < base.top.length; i++) {
+                basePlaces.put(base.top[i], i + 1);
+            }
+            
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + top.length * 6);
+            DataOutputStream out = new DataOutputStream(bytes);
+            try {
+                writeVarLong(out, timestamp - base.timestamp);
+                writeVarLong(out, zigzag(ranked - base.ranked));
+                writeVarLong(out, zigzag(total - base.total));
+                writeVarLong(out, zigzag(median - base.median));
+                writeVarLong(out, zigzag(gini - base.gini));
+                writeVarLong(out, top.length);
+                for (int i = 0; i < top.length; i++) {
+                    Integer place = basePlaces.get(top[i]);
+                    writeVarLong(out, place != null ? place : 0);
+                    if (place == null) {
+                        out.writeLong(top[i].getMostSignificantBits());
+                        out.writeLong(top[i].getLeastSignificantBits());
+                    }
+                    writeVarLong(out, zigzag(topValues[i] - (i < base.topValues.length ? base.topValues[i] : 0)));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+        
+        /**
+         * Decodes one record written by {@link #encode}.
+         * 
+         * @param in The record's bytes
+         * @param previous The record before it in the file, or null for a file's first
+         * @return The sample
+         */
+        static HistorySample decode(ByteBuffer in, HistorySample previous) {
+            HistorySample base = previous != null ? previous : EMPTY;
+            long timestamp = base.timestamp + readVarLong(in);
+            long ranked = base.ranked + unzigzag(readVarLong(in));
+            long total = base.total + unzigzag(readVarLong(in));
+            long median = base.median + unzigzag(readVarLong(in));
+            long gini = base.gini + unzigzag(readVarLong(in));
+            int places = (int) readVarLong(in);
+            
+            UUID[] top = new UUID[places];
+            long[] topValues = new long[places];
+            for (int i = 0; i < places; i++) {
+                int place = (int) readVarLong(in);
+                top[i] = place == 0 ? new UUID(in.getLong(), in.getLong()) : base.top[place - 1];
+                topValues[i] = (i < base.topValues.length ? base.topValues[i] : 0) + unzigzag(readVarLong(in));
+            }
+            return new HistorySample(timestamp, ranked, total, median, gini, top, topValues);
         }
         
-        // Send result message
-        StringBuilder msg = new StringBuilder();
-        msg.append("Given ").append(target.getName()).append(" ").append(count).append("x ").append(itemId);
+        /** Delta base for the first record of a file */
+        private static final HistorySample EMPTY = new HistorySample(0, 0, 0, 0, 0, new UUID[0], new long[0]);
+    }
+    
+    /**
+     * Writes an unsigned LEB128 varint: 7 bits per byte, low bits first.
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+    
+    /**
+     * Reads an unsigned LEB128 varint written by {@link #writeVarLong} from a stream.
+     * 
+     * @throws EOFException If the stream ends inside the varint
+     */
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+    
+    /**
+     * Bytes {@link #writeVarLong} takes for a value.
+     */
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+    
+    /**
+     * Reads an unsigned LEB128 varint written by {@link #writeVarLong}.
+     */
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+    
+    /** Maps signed to unsigned so small negative deltas stay small varints */
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    /** Inverse of {@link #zigzag} */
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    /**
+     * UUID to last known player name, for everything that prints a ranked or indexed
+     * player: leaderboard signs, placeholders, /pe rank and /pe ec find.
+     * 
+     * <p>{@link Bukkit#getOfflinePlayer(UUID)}.getName() for an offline player goes
+     * through the server's profile cache and may read their player data file. Here a
+     * name is a single map read. Names are learned on join and, for anyone else, looked
+     * up once on the main thread: {@link #resolve(RankingSnapshot)} does that for every
+     * player in a snapshot before it is published, so async placeholder requests never
+     * miss. A player the server has no name for is remembered as unknown (not
+     * persisted) so they aren't looked up again.</p>
+     * 
+     * <p><b>File format</b> of names.dat (big-endian, via DataOutputStream):</p>
+     * <pre>
+     * int    magic     0x50454E4D ("PENM")
+     * byte   version   1
+     * int    count
+     * long   uuid most significant bits   (repeated)
+     * long   uuid least significant bits
+     * UTF    name
+     * </pre>
+     * 
+     * <p>Rewritten whole (about 30 bytes a player) by an async timer every
+     * {@link #PLAYER_NAMES_SAVE_INTERVAL} seconds when it changed, and on shutdown.
+     * Reads are safe from any thread.</p>
+     */
+    private class PlayerNameCache {
+        
+        /** Stands in for "the server has no name for this player" */
+        private static final String UNKNOWN = "";
+        
+        /** UUID -> name, or {@link #UNKNOWN} */
+        private final Map<UUID, String> names = new ConcurrentHashMap<>();
         
-        if (customName != null) {
-            msg.append(" named \"").append(customName).append("\"");
+        /** Whether there are names not yet written to names.dat */
+        private volatile boolean dirty;
+        
+        /**
+         * Gets a player's name without any lookup.
+         * 
+         * <p>On the main thread a player not in the cache is looked up once and
+         * remembered. Elsewhere they read as unknown.</p>
+         * 
+         * @param uuid The player's UUID
+         * @return The last known name, or null if there is none
+         */
+        String nameOf(UUID uuid) {
+            String name = names.get(uuid);
+            if (name == null && Bukkit.isPrimaryThread()) {
+                name = lookUp(uuid);
+            }
+            return name == null || name.equals(UNKNOWN) ? null : name;
         }
         
-        if (customDurability > 0) {
-            msg.append(" with ").append(customDurability).append(" max durability");
+        /**
+         * Records a player's current name (main thread, on join).
+         * 
+         * @param player The player
+         */
+        void remember(Player player) {
+            String old = names.put(player.getUniqueId(), player.getName());
+            if (!player.getName().equals(old)) {
+                dirty = true;
+            }
         }
         
-        if (!appliedEnchants.isEmpty()) {
-            msg.append(" with enchantments: ").append(String.join(", ", appliedEnchants));
+        /**
+         * Makes sure every player in a snapshot has a cached name (main thread).
+         * 
+         * @param snapshot The snapshot about to be published
+         */
+        void resolve(RankingSnapshot snapshot) {
+            for (int i = 0; i < snapshot.size(); i++) {
+                UUID uuid = snapshot.uuid(i);
+                if (!names.containsKey(uuid)) {
+                    lookUp(uuid);
+                }
+            }
         }
         
-        sender.sendMessage(Component.text(msg.toString(), NamedTextColor.GREEN));
+        /**
+         * Asks the server for a name and caches the answer (main thread).
+         */
+        private String lookUp(UUID uuid) {
+            String name = Bukkit.getOfflinePlayer(uuid).getName();
+            if (name == null) {
+                names.put(uuid, UNKNOWN);
+                return UNKNOWN;
+            }
+            names.put(uuid, name);
+            dirty = true;
+            return name;
+        }
         
-        if (!failedEnchants.isEmpty()) {
-            sender.sendMessage(Component.text("Failed to apply: " + String.join(", ", failedEnchants), NamedTextColor.RED));
+        /**
+         * Loads names.dat, if there is one (startup).
+         */
+        void load() {
+            File file = new File(getDataFolder(), PLAYER_NAMES_FILE);
+            if (!file.exists()) return;
+            
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != PLAYER_NAMES_MAGIC || in.readByte() != 1) {
+                    getLogger().warning("Ignoring " + PLAYER_NAMES_FILE + ": unknown format");
+                    return;
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    UUID uuid = new UUID(in.readLong(), in.readLong());
+                    names.put(uuid, in.readUTF());
+                }
+            } catch (IOException e) {
+                getLogger().warning("Failed to read " + PLAYER_NAMES_FILE + ": " + e.getMessage());
+            }
         }
         
-        return true;
+        /**
+         * Writes names.dat if anything changed since the last save (async timer, and on shutdown).
+         */
+        synchronized void save() {
+            if (!dirty) return;
+            dirty = false;
+            
+            List<Map.Entry<UUID, String>> known = new ArrayList<>(names.size());
+            for (Map.Entry<UUID, String> entry : names.entrySet()) {
+                if (!entry.getValue().equals(UNKNOWN)) {
+                    known.add(entry);
+                }
+            }
+            
+            File file = new File(getDataFolder(), PLAYER_NAMES_FILE);
+            File tempFile = new File(getDataFolder(), PLAYER_NAMES_FILE + ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                    out.writeInt(PLAYER_NAMES_MAGIC);
+                    out.writeByte(1);
+                    out.writeInt(known.size());
+                    for (Map.Entry<UUID, String> entry : known) {
+                        out.writeLong(entry.getKey().getMostSignificantBits());
+                        out.writeLong(entry.getKey().getLeastSignificantBits());
+                        out.writeUTF(entry.getValue());
+                    }
+                }
+                Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                dirty = true;
+                getLogger().warning("Failed to save " + PLAYER_NAMES_FILE + ": " + e.getMessage());
+            }
+        }
     }
     
-    // ==================================================================================
-    // WITHDRAW COMMAND HANDLERS
-    // ==================================================================================
-    
     /**
-     * Handles the /withdraw command to create bank notes from player balance.
+     * Persistent registry of leaderboard signs, keyed by world name and block
+     * coordinates so signs in worlds that aren't loaded are kept too.
+     * 
+     * <p>Stored as an append-only log, plugins/PixelsEssentials/signs.log: creating or
+     * removing a sign appends one record, written by an async task, instead of
+     * rewriting every sign. Replaying the log in order gives the registry. Once the
+     * log holds more than twice as many records as there are signs (and at least
+     * {@link #LEADERBOARD_SIGN_COMPACT_MIN}), it is compacted: rewritten as one add
+     * record per sign, also async. Changes are queued in order and the writer handles
+     * them in that order, so a compaction never loses a record queued after it.</p>
+     * 
+     * <p><b>File format</b> (big-endian, via DataOutputStream):</p>
+     * <pre>
+     * int    magic     0x5045534C ("PESL")
+     * byte   version   1
+     * then records until end of file:
+     * byte   1 = add, 0 = remove
+     * UTF    world name
+     * int    x, int y, int z (block coordinates)
+     * UTF    leaderboard       (add only)
+     * int    place             (add only)
+     * </pre>
      * 
-     * <p>Supports amount suffixes: K (thousands), M (millions), B (billions), T (trillions)</p>
-     * <p>Examples: /withdraw 5000, /withdraw 5.2M, /withdraw 1.5B</p>
+     * <p><b>Damage:</b> a truncated or corrupt record (e.g. from a crash mid-write) and
+     * everything after it is cut off on load, keeping every record before it. A file
+     * with an unknown header is never overwritten: it is renamed to signs.log.bad and
+     * the registry starts empty, or, if that name is taken, the registry is not saved
+     * at all this session. A failed write is kept queued and retried, and a failed
+     * append is cut back off first, so the log never holds half a record. A signs.yml
+     * from older versions is imported the first time and renamed to signs.yml.old.</p>
      * 
-     * @param sender The command sender (must be a player)
-     * @param args Command arguments - expects one argument: the amount
-     * @return true if command was handled
+     * <p>The registry is main thread only; the write queue is drained by
+     * {@link #flush()} on an async thread, and once more on shutdown.</p>
      */
-    private boolean handleWithdrawCommand(CommandSender sender, String[] args) {
-        // Must be a player
-        if (!(sender instanceof Player)) {
-            sender.sendMessage(Component.text("This command can only be used by players.", NamedTextColor.RED));
-            return true;
-        }
+    private class LeaderboardSignStore {
         
-        Player player = (Player) sender;
+        /** Every registered sign, loaded world or not */
+        private final Map<SignPosition, LeaderboardSign> signs = new HashMap<>();
         
-        // Check permission
-        if (!player.hasPermission("pixelsessentials.withdraw")) {
-            player.sendMessage(Component.text("You don't have permission to use this command.", NamedTextColor.RED));
-            return true;
-        }
+        /** Records not yet written, in order */
+        private final ConcurrentLinkedQueue<SignLogRecord> pending = new ConcurrentLinkedQueue<>();
         
-        // Check economy
-        if (economy == null) {
-            player.sendMessage(Component.text("Economy system is not available.", NamedTextColor.RED));
-            return true;
+        /** Records in the log, written or queued, since it was last compacted */
+        private int records;
+        
+        /** Records from a failed write, written ahead of {@link #pending} by the next flush */
+        private final List<SignLogRecord> retry = new ArrayList<>();
+        
+        /** False when signs.log couldn't be read or moved aside, so it must not be replaced */
+        private volatile boolean writable = true;
+        
+        /**
+         * Reads the registry (startup).
+         * 
+         * @return Every registered sign; the caller must not modify it
+         */
+        Map<SignPosition, LeaderboardSign> load() {
+            signs.clear();
+            pending.clear();
+            records = 0;
+            
+            File file = new File(getDataFolder(), LEADERBOARD_SIGN_LOG_FILE);
+            File legacy = new File(getDataFolder(), "signs.yml");
+            boolean imported = false;
+            if (file.exists()) {
+                readLog(file);
+            } else if (legacy.exists()) {
+                importLegacy(legacy);
+                imported = true;
+            }
+            
+            if (writable && (imported || records > compactThreshold())) {
+                boolean written = writeAll(snapshot());
+                if (written && imported && legacy.renameTo(new File(getDataFolder(), "signs.yml.old"))) {
+                    getLogger().info("Imported signs.yml into " + LEADERBOARD_SIGN_LOG_FILE + " (old file kept as signs.yml.old)");
+                }
+                records = signs.size();
+            }
+            return signs;
         }
         
-        // Check arguments
-        if (args.length < 1) {
-            player.sendMessage(Component.text("Usage: /withdraw <amount>", NamedTextColor.RED));
-            player.sendMessage(Component.text("Examples: /withdraw 5000, /withdraw 5.2M, /withdraw 1.5B", NamedTextColor.GRAY));
-            return true;
+        /**
+         * Replays signs.log into the registry.
+         * 
+         * <p>The log is small, so it is read into memory first; the stream's remaining
+         * byte count then gives the offset of the last complete record. A damaged record
+         * is cut off there. A file whose header isn't ours is set aside by
+         * {@link #quarantine}.</p>
+         */
+        private void readLog(File file) {
+            byte[] bytes;
+            try {
+                bytes = Files.readAllBytes(file.toPath());
+            } catch (IOException e) {
+                writable = false;
+                getLogger().severe("Failed to read " + LEADERBOARD_SIGN_LOG_FILE + ", sign changes won't be saved this session: " + e.getMessage());
+                return;
+            }
+            
+            if (bytes.length == 0) return;
+            
+            ByteArrayInputStream buffer = new ByteArrayInputStream(bytes);
+            DataInputStream in = new DataInputStream(buffer);
+            long good = 0;
+            try {
+                // Shorter than a header: torn by a crash during the very first write
+                if (bytes.length < 5) throw new EOFException();
+                if (in.readInt() != LEADERBOARD_SIGN_LOG_MAGIC || in.readByte() != 1) {
+                    quarantine(file);
+                    return;
+                }
+                good = 5;
+                while (buffer.available() > 0) {
+                    int op = in.readByte();
+                    if (op != 0 && op != 1) {
+                        throw new IOException("unknown record type " + op);
+                    }
+                    SignPosition position = new SignPosition(in.readUTF(), in.readInt(), in.readInt(), in.readInt());
+                    if (op == 1) {
+                        signs.put(position, new LeaderboardSign(in.readUTF(), in.readInt()));
+                    } else {
+                        signs.remove(position);
+                    }
+                    records++;
+                    good = bytes.length - buffer.available();
+                }
+            } catch (IOException e) {
+                // Torn (EOF) or corrupt record: keep everything before it
+                getLogger().warning("Dropped " + (bytes.length - good) + " damaged bytes at the end of "
+                    + LEADERBOARD_SIGN_LOG_FILE + (e instanceof EOFException ? "" : " (" + e.getMessage() + ")"));
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(good);
+                } catch (IOException truncateError) {
+                    writable = false;
+                    getLogger().severe("Failed to truncate " + LEADERBOARD_SIGN_LOG_FILE + ", sign changes won't be saved this session: " + truncateError.getMessage());
+                }
+            }
         }
         
-        // Parse amount with K/M/B/T suffixes
-        double amount = parseWithdrawAmount(args[0]);
-        if (amount < 0) {
-            player.sendMessage(Component.text("Invalid amount: " + args[0], NamedTextColor.RED));
-            player.sendMessage(Component.text("Examples: 5000, 5.2M, 1.5B, 2T", NamedTextColor.GRAY));
-            return true;
+        /**
+         * Moves a signs.log with an unknown header out of the way instead of replacing it,
+         * in case it is from a newer version or can be recovered by hand.
+         */
+        private void quarantine(File file) {
+            File bad = new File(getDataFolder(), LEADERBOARD_SIGN_LOG_FILE + ".bad");
+            if (!bad.exists() && file.renameTo(bad)) {
+                getLogger().severe(LEADERBOARD_SIGN_LOG_FILE + " has an unknown format; moved it to " + bad.getName()
+                    + " and started an empty sign registry");
+            } else {
+                writable = false;
+                getLogger().severe(LEADERBOARD_SIGN_LOG_FILE + " has an unknown format and couldn't be moved to " + bad.getName()
+                    + "; leaving it alone, so sign changes won't be saved this session");
+            }
         }
         
-        // Load config limits
-        double minAmount = getConfig().getDouble("withdraw.min", 10);
-        double maxAmount = getConfig().getDouble("withdraw.max", 100000000000000.0);
-        double feePercent = getConfig().getDouble("withdraw.fee-percent", 0.0);
+        /**
+         * Reads the signs.yml written by older versions. Signs saved before leaderboard
+         * sources existed have no source and are balance signs.
+         */
+        private void importLegacy(File file) {
+            YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+            ConfigurationSection section = yaml.getConfigurationSection("signs");
+            if (section == null) return;
+            
+            for (String key : section.getKeys(false)) {
+                ConfigurationSection sign = section.getConfigurationSection(key);
+                if (sign != null && sign.getString("world") != null) {
+                    signs.put(new SignPosition(sign.getString("world"), sign.getInt("x"), sign.getInt("y"), sign.getInt("z")),
+                        new LeaderboardSign(sign.getString("source", "balance"), sign.getInt("place")));
+                }
+            }
+        }
         
-        // Validate min/max
-        if (amount < minAmount) {
-            player.sendMessage(Component.text("Minimum withdrawal amount is $" + formatAmountWithCommas(minAmount), NamedTextColor.RED));
-            return true;
+        /**
+         * Registered signs in one world (main thread).
+         * 
+         * @param worldName The world's name
+         * @return Position and sign of each, copied
+         */
+        List<Map.Entry<SignPosition, LeaderboardSign>> inWorld(String worldName) {
+            List<Map.Entry<SignPosition, LeaderboardSign>> result = new ArrayList<>();
+            for (Map.Entry<SignPosition, LeaderboardSign> entry : signs.entrySet()) {
+                if (entry.getKey().worldName.equals(worldName)) {
+                    result.add(new AbstractMap.SimpleEntry<>(entry));
+                }
+            }
+            return result;
         }
         
-        if (amount > maxAmount) {
-            player.sendMessage(Component.text("Maximum withdrawal amount is $" + formatAmountWithCommas(maxAmount), NamedTextColor.RED));
-            return true;
+        /**
+         * Registers a sign, replacing any at that position (main thread).
+         * 
+         * @param position The sign block
+         * @param sign What it shows
+         */
+        void add(SignPosition position, LeaderboardSign sign) {
+            signs.put(position, sign);
+            append(new SignLogRecord(position, sign, false));
         }
         
-        // Calculate fee (charged on top)
-        double fee = amount * (feePercent / 100.0);
-        double totalDeduction = amount + fee;
+        /**
+         * Unregisters a sign (main thread). Does nothing if none is registered there.
+         * 
+         * @param position The sign block
+         */
+        void remove(SignPosition position) {
+            if (signs.remove(position) != null) {
+                append(new SignLogRecord(position, null, false));
+            }
+        }
         
-        // Check player balance
-        double balance = economy.getBalance(player);
-        if (balance < totalDeduction) {
-            if (fee > 0) {
-                player.sendMessage(Component.text("Insufficient funds. You need $" + formatAmountWithCommas(totalDeduction) + 
-                    " ($" + formatAmountWithCommas(amount) + " + $" + formatAmountWithCommas(fee) + " fee)", NamedTextColor.RED));
+        /**
+         * Queues a record, or a compaction if the log has grown enough, and schedules the writer.
+         */
+        private void append(SignLogRecord record) {
+            if (!writable) return;
+            if (++records > compactThreshold()) {
+                pending.addAll(snapshot());
+                records = signs.size();
             } else {
-                player.sendMessage(Component.text("Insufficient funds. You need $" + formatAmountWithCommas(totalDeduction), NamedTextColor.RED));
+                pending.add(record);
             }
-            return true;
+            Bukkit.getScheduler().runTaskAsynchronously(PixelsEssentials.this, this::flush);
         }
         
-        // Deduct from player
-        economy.withdrawPlayer(player, totalDeduction);
-        
-        // Create bank note
-        ItemStack bankNote = createBankNote(amount, player.getName());
+        /**
+         * Log size at which it is compacted.
+         */
+        private int compactThreshold() {
+            return Math.max(LEADERBOARD_SIGN_COMPACT_MIN, 2 * signs.size());
+        }
         
-        // Give to player (drop if inventory full)
-        HashMap<Integer, ItemStack> leftover = player.getInventory().addItem(bankNote);
-        if (!leftover.isEmpty()) {
-            for (ItemStack drop : leftover.values()) {
-                player.getWorld().dropItemNaturally(player.getLocation(), drop);
+        /**
+         * The registry as add records, the first one marked to start a new log.
+         */
+        private List<SignLogRecord> snapshot() {
+            List<SignLogRecord> all = new ArrayList<>(signs.size() + 1);
+            boolean first = true;
+            for (Map.Entry<SignPosition, LeaderboardSign> entry : signs.entrySet()) {
+                all.add(new SignLogRecord(entry.getKey(), entry.getValue(), first));
+                first = false;
             }
-            player.sendMessage(Component.text("Inventory full - bank note dropped at your feet.", NamedTextColor.YELLOW));
+            if (first) {
+                // No signs: an empty log still has to replace the old one
+                all.add(new SignLogRecord(null, null, true));
+            }
+            return all;
         }
         
-        // Success message
-        if (fee > 0) {
-            player.sendMessage(Component.text("Withdrew $" + formatAmountWithCommas(amount) + 
-                " (fee: $" + formatAmountWithCommas(fee) + ")", NamedTextColor.GREEN));
-        } else {
-            player.sendMessage(Component.text("Withdrew $" + formatAmountWithCommas(amount), NamedTextColor.GREEN));
+        /**
+         * Writes every queued record (async, and on shutdown).
+         * 
+         * <p>Records are appended to the log, or, from the last queued compaction on,
+         * written to a new log that replaces it. If the write fails, the batch is kept
+         * for the next flush, which is scheduled {@link #LEADERBOARD_SIGN_RETRY_TICKS}
+         * later; a failed append is first cut back off the log.</p>
+         */
+        synchronized void flush() {
+            List<SignLogRecord> batch = new ArrayList<>(retry);
+            retry.clear();
+            SignLogRecord record;
+            while ((record = pending.poll()) != null) {
+                batch.add(record);
+            }
+            if (batch.isEmpty()) return;
+            
+            int rewriteFrom = -1;
+            for (int i = batch.size() - 1; i >= 0 && rewriteFrom < 0; i--) {
+                if (batch.get(i).rewrite) {
+                    rewriteFrom = i;
+                }
+            }
+            if (rewriteFrom >= 0) {
+                List<SignLogRecord> all = batch.subList(rewriteFrom, batch.size());
+                if (!writeAll(all)) {
+                    retryLater(all);
+                }
+                return;
+            }
+            
+            File file = new File(getDataFolder(), LEADERBOARD_SIGN_LOG_FILE);
+            long before = file.exists() ? file.length() : 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+                if (before == 0) {
+                    out.writeInt(LEADERBOARD_SIGN_LOG_MAGIC);
+                    out.writeByte(1);
+                }
+                for (SignLogRecord next : batch) {
+                    next.write(out);
+                }
+            } catch (IOException e) {
+                getLogger().severe("Failed to write " + LEADERBOARD_SIGN_LOG_FILE + ", will retry: " + e.getMessage());
+                // Cut off whatever part of the batch made it, so the retry doesn't follow a torn record
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(before);
+                } catch (IOException truncateError) {
+                    // Appending after the torn bytes would lose everything behind them; rewrite instead
+                    getLogger().severe("Failed to truncate " + LEADERBOARD_SIGN_LOG_FILE + ": " + truncateError.getMessage());
+                    if (isEnabled()) {
+                        Bukkit.getScheduler().runTask(PixelsEssentials.this, () -> {
+                            pending.addAll(snapshot());
+                            records = signs.size();
+                        });
+                    }
+                }
+                retryLater(batch);
+            }
         }
         
-        if (debugMode) {
-            getLogger().info("[DEBUG] Withdraw: " + player.getName() + " withdrew $" + amount + " (fee: $" + fee + ")");
+        /**
+         * Keeps records from a failed write for the next flush and schedules one. Caller
+         * holds the lock.
+         */
+        private void retryLater(List<SignLogRecord> failed) {
+            retry.addAll(failed);
+            if (isEnabled()) {
+                Bukkit.getScheduler().runTaskLaterAsynchronously(PixelsEssentials.this, this::flush, LEADERBOARD_SIGN_RETRY_TICKS);
+            }
         }
         
-        return true;
+        /**
+         * Replaces the log with the given records, via a temp file.
+         * 
+         * @return true if the new log is in place
+         */
+        private boolean writeAll(List<SignLogRecord> all) {
+            File file = new File(getDataFolder(), LEADERBOARD_SIGN_LOG_FILE);
+            File tempFile = new File(getDataFolder(), LEADERBOARD_SIGN_LOG_FILE + ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                    out.writeInt(LEADERBOARD_SIGN_LOG_MAGIC);
+                    out.writeByte(1);
+                    for (SignLogRecord record : all) {
+                        if (record.position != null) {
+                            record.write(out);
+                        }
+                    }
+                }
+                Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return true;
+            } catch (IOException e) {
+                getLogger().severe("Failed to compact " + LEADERBOARD_SIGN_LOG_FILE + ": " + e.getMessage());
+                return false;
+            }
+        }
     }
     
     /**
-     * Parses a withdraw amount string with optional K/M/B/T suffix.
-     * 
-     * <p>Supported formats:</p>
-     * <ul>
-     *   <li>Plain number: 5000 -> 5000</li>
-     *   <li>K suffix: 5K or 5.2K -> 5000 or 5200</li>
-     *   <li>M suffix: 5M or 5.2M -> 5000000 or 5200000</li>
-     *   <li>B suffix: 5B or 5.2B -> 5000000000 or 5200000000</li>
-     *   <li>T suffix: 5T or 1.9T -> 5000000000000 or 1900000000000</li>
-     * </ul>
-     * 
-     * @param input The amount string to parse
-     * @return The parsed amount, or -1 if invalid
+     * A sign block by world name and coordinates, independent of whether the world is
+     * loaded. Immutable; usable as a map key.
      */
-    private double parseWithdrawAmount(String input) {
-        if (input == null || input.isEmpty()) {
-            return -1;
+    private static final class SignPosition {
+        
+        final String worldName;
+        final int x;
+        final int y;
+        final int z;
+        
+        SignPosition(String worldName, int x, int y, int z) {
+            this.worldName = worldName;
+            this.x = x;
+            this.y = y;
+            this.z = z;
         }
         
-        input = input.toUpperCase().trim();
+        static SignPosition of(Location location) {
+            return new SignPosition(location.getWorld().getName(),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        }
         
-        double multiplier = 1;
-        String numPart = input;
+        Location toLocation(World world) {
+            return new Location(world, x, y, z);
+        }
         
-        // Check for suffix
-        if (input.endsWith("K")) {
-            multiplier = 1_000;
-            numPart = input.substring(0, input.length() - 1);
-        } else if (input.endsWith("M")) {
-            multiplier = 1_000_000;
-            numPart = input.substring(0, input.length() - 1);
-        } else if (input.endsWith("B")) {
-            multiplier = 1_000_000_000;
-            numPart = input.substring(0, input.length() - 1);
-        } else if (input.endsWith("T")) {
-            multiplier = 1_000_000_000_000L;
-            numPart = input.substring(0, input.length() - 1);
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SignPosition)) return false;
+            SignPosition other = (SignPosition) o;
+            return x == other.x && y == other.y && z == other.z && worldName.equals(other.worldName);
         }
         
-        try {
-            double value = Double.parseDouble(numPart);
-            if (value <= 0) {
-                return -1;
-            }
-            return value * multiplier;
-        } catch (NumberFormatException e) {
-            return -1;
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * worldName.hashCode() + x) + y) + z;
         }
     }
     
     /**
-     * Formats an amount with commas for display.
-     * 
-     * @param amount The amount to format
-     * @return Formatted string with commas (e.g., "1,234,567")
+     * One queued change to the sign registry log. Immutable.
      */
-    private String formatAmountWithCommas(double amount) {
-        // Use NumberFormat for locale-aware comma formatting
-        NumberFormat formatter = NumberFormat.getNumberInstance();
-        formatter.setMaximumFractionDigits(2);
-        formatter.setMinimumFractionDigits(0);
-        return formatter.format(amount);
+    private static final class SignLogRecord {
+        
+        /** The sign block; null only in the placeholder that starts an empty compacted log */
+        final SignPosition position;
+        
+        /** What the sign shows, or null for a removal */
+        final LeaderboardSign sign;
+        
+        /** Whether this record starts a new, compacted log */
+        final boolean rewrite;
+        
+        SignLogRecord(SignPosition position, LeaderboardSign sign, boolean rewrite) {
+            this.position = position;
+            this.sign = sign;
+            this.rewrite = rewrite;
+        }
+        
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(sign != null ? 1 : 0);
+            out.writeUTF(position.worldName);
+            out.writeInt(position.x);
+            out.writeInt(position.y);
+            out.writeInt(position.z);
+            if (sign != null) {
+                out.writeUTF(sign.source);
+                out.writeInt(sign.place);
+            }
+        }
     }
     
     /**
-     * Creates a bank note ItemStack with the specified value.
-     * 
-     * <p>The bank note has:</p>
-     * <ul>
-     *   <li>Custom display name from config</li>
-     *   <li>Lore with amount (comma-formatted) and player name placeholders</li>
-     *   <li>Optional glow effect (enchant + hide enchants flag)</li>
-     *   <li>PDC data storing the value and unique ID (for unstackability)</li>
-     * </ul>
-     * 
-     * @param amount The monetary value of the note
-     * @param playerName The name of the player who created the note
-     * @return The created bank note ItemStack
+     * What a leaderboard sign shows: a leaderboard and a place on it. Immutable.
      */
-    private ItemStack createBankNote(double amount, String playerName) {
-        // Get material from config
-        String materialName = getConfig().getString("bank-note.material", "PAPER");
-        Material material = Material.getMaterial(materialName.toUpperCase());
-        if (material == null) {
-            material = Material.PAPER;
-        }
+    private static final class LeaderboardSign {
         
-        ItemStack note = new ItemStack(material, 1);
-        ItemMeta meta = note.getItemMeta();
+        /** {@link #leaderboards} id */
+        final String source;
         
-        if (meta != null) {
-            // Set display name
-            String name = getConfig().getString("bank-note.name", "&aBank Note");
-            name = ChatColor.translateAlternateColorCodes('&', name);
-            meta.setDisplayName(name);
-            
-            // Set lore with placeholders
-            List<String> configLore = getConfig().getStringList("bank-note.lore");
-            List<String> lore = new ArrayList<>();
-            String formattedAmount = formatAmountWithCommas(amount);
-            
-            for (String line : configLore) {
-                line = line.replace("%amount%", formattedAmount);
-                line = line.replace("%player%", playerName);
-                line = ChatColor.translateAlternateColorCodes('&', line);
-                lore.add(line);
-            }
-            meta.setLore(lore);
-            
-            // Add glow effect if enabled
-            if (getConfig().getBoolean("bank-note.glow", true)) {
-                meta.addEnchant(Enchantment.LUCK_OF_THE_SEA, 1, true);
-                meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
-            }
-            
-            // Store value in PDC
-            PersistentDataContainer pdc = meta.getPersistentDataContainer();
-            pdc.set(bankNoteValueKey, PersistentDataType.DOUBLE, amount);
-            
-            // Store unique ID to make notes unstackable
-            pdc.set(bankNoteUniqueKey, PersistentDataType.STRING, UUID.randomUUID().toString());
-            
-            note.setItemMeta(meta);
-        }
+        /** Placement number, 1 or more */
+        final int place;
         
-        return note;
+        LeaderboardSign(String source, int place) {
+            this.source = source;
+            this.place = place;
+        }
     }
     
     /**
-     * Handles bank note redemption when a player right-clicks with a bank note.
+     * Every known positive value of one {@link Leaderboard}, kept sorted.
      * 
-     * <p>Called from {@link #onPlayerInteract} when detecting a right-click
-     * with an item that has bank note PDC data.</p>
+     * <p>A hash map gives each player's current value, and an order-statistic tree
+     * ({@link RankTree}) orders the same entries by value (highest first, ties broken
+     * by UUID). An update is a removal and an insertion, O(log n). Because every tree
+     * node knows its subtree size, a player's rank, the entry at any rank (and so any
+     * percentile) are also O(log n), and a window of K entries around any rank is
+     * O(log n + K). Zero and negative values are not stored.</p>
      * 
-     * @param player The player redeeming the note
-     * @param item The bank note item being redeemed
-     * @return true if the note was successfully redeemed
+     * <p>Not thread-safe; used on the main thread only. Package-visible for the JMH
+     * benchmarks in src/jmh.</p>
      */
-    private boolean redeemBankNote(Player player, ItemStack item) {
-        if (economy == null) {
-            player.sendMessage(Component.text("Economy system is not available.", NamedTextColor.RED));
-            return false;
-        }
+    static class RankingIndex {
         
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null) {
-            return false;
-        }
+        /** Orders by value descending, then UUID, so distinct players never compare equal */
+        static final Comparator<RankingEntry> ORDER = Comparator
+            .comparingDouble((RankingEntry entry) -> entry.value).reversed()
+            .thenComparing(entry -> entry.uuid);
         
-        PersistentDataContainer pdc = meta.getPersistentDataContainer();
-        if (!pdc.has(bankNoteValueKey, PersistentDataType.DOUBLE)) {
-            return false;
-        }
+        /** Current entry per player */
+        private final Map<UUID, RankingEntry> entries = new HashMap<>();
         
-        double value = pdc.get(bankNoteValueKey, PersistentDataType.DOUBLE);
+        /** The same entries, highest first */
+        private final RankTree ranked = new RankTree();
         
-        // Deposit to player
-        economy.depositPlayer(player, value);
+        /**
+         * Sets a player's value.
+         * 
+         * @param uuid The player's UUID
+         * @param value Their current value (zero or less removes them)
+         * @return true if the index changed
+         */
+        boolean update(UUID uuid, double value) {
+            RankingEntry old = entries.get(uuid);
+            if (old != null) {
+                if (old.value == value) return false;
+                ranked.remove(old);
+                entries.remove(uuid);
+            }
+            if (value > 0) {
+                RankingEntry entry = new RankingEntry(uuid, value);
+                entries.put(uuid, entry);
+                ranked.insert(entry);
+                return true;
+            }
+            return old != null;
+        }
         
-        // Remove one note from stack
-        if (item.getAmount() > 1) {
-            item.setAmount(item.getAmount() - 1);
-        } else {
-            player.getInventory().setItemInMainHand(null);
+        /**
+         * Builds an index from a full scan. Safe to call on any thread; the result
+         * must be handed to the main thread before use.
+         * 
+         * @param scan Every positive value
+         * @return The new index
+         */
+        static RankingIndex of(RankingScan scan) {
+            RankingIndex index = new RankingIndex();
+            for (int i = 0; i < scan.size(); i++) {
+                index.update(scan.uuid(i), scan.value(i));
+            }
+            return index;
         }
         
-        player.sendMessage(Component.text("Redeemed bank note for $" + formatAmountWithCommas(value), NamedTextColor.GREEN));
+        /**
+         * Gets a player's value.
+         * 
+         * @param uuid The player's UUID
+         * @return Their value, or 0 if not in the index
+         */
+        double get(UUID uuid) {
+            RankingEntry entry = entries.get(uuid);
+            return entry != null ? entry.value : 0;
+        }
         
-        if (debugMode) {
-            getLogger().info("[DEBUG] BankNote: " + player.getName() + " redeemed $" + value);
+        /**
+         * Copies the top players into an immutable snapshot.
+         * 
+         * @param depth Maximum number of entries
+         * @return Up to depth entries, highest first
+         */
+        RankingSnapshot snapshot(int depth) {
+            RankingEntry[] top = range(0, depth);
+            UUID[] uuids = new UUID[top.length];
+            double[] values = new double[top.length];
+            for (int i = 0; i < top.length; i++) {
+                uuids[i] = top[i].uuid;
+                values[i] = top[i].value;
+            }
+            return new RankingSnapshot(uuids, values, entries.size());
         }
         
-        return true;
-    }
-    
-    /**
-     * Tab completion for /withdraw command.
-     * Suggests common amounts and suffix examples.
-     */
-    private List<String> tabCompleteWithdraw(CommandSender sender, String[] args) {
-        List<String> completions = new ArrayList<>();
+        /**
+         * Gets a player's rank.
+         * 
+         * @param uuid The player's UUID
+         * @return 1 for the highest value, or 0 if the player isn't in the index
+         */
+        int rankOf(UUID uuid) {
+            RankingEntry entry = entries.get(uuid);
+            return entry != null ? ranked.countAbove(entry) + 1 : 0;
+        }
         
-        if (!sender.hasPermission("pixelsessentials.withdraw")) {
-            return completions;
+        /**
+         * Gets the entries at a range of ranks, e.g. the players around someone.
+         * 
+         * @param from Zero-based index of the first entry (rank from + 1)
+         * @param count Maximum number of entries
+         * @return Entries from that index on, highest first (shorter at the end)
+         */
+        RankingEntry[] range(int from, int count) {
+            from = Math.max(0, from);
+            return ranked.range(from, Math.max(0, Math.min(count, ranked.size() - from)));
         }
         
-        if (args.length == 1) {
-            String partial = args[0].toLowerCase();
-            
-            // Suggest common amounts
-            String[] suggestions = {"100", "1000", "10000", "100K", "500K", "1M", "5M", "10M", "100M", "1B"};
-            for (String suggestion : suggestions) {
-                if (suggestion.toLowerCase().startsWith(partial)) {
-                    completions.add(suggestion);
-                }
-            }
+        /**
+         * Gets the value at a given share of the ranking, e.g. 0.5 for the median.
+         * 
+         * @param fraction 0 for the highest value, up to 1 for the lowest
+         * @return The value there, or 0 if the index is empty
+         */
+        double valueAtFraction(double fraction) {
+            int size = ranked.size();
+            if (size == 0) return 0;
+            int index = (int) Math.min(size - 1, Math.max(0, Math.ceil(fraction * size) - 1));
+            return ranked.select(index).value;
         }
         
-        return completions;
+        /** @return Number of players with a positive value */
+        int size() {
+            return entries.size();
+        }
     }
     
     /**
-     * Tab completion for /giveenchanteditem command.
+     * Order-statistic tree of {@link RankingEntry}, in {@link RankingIndex#ORDER}.
      * 
-     * <p>Provides completion for player names, count, name:, lore:, and enchantment names.</p>
+     * <p>A treap: a binary search tree by entry order that is also a heap by a random
+     * priority per node, which keeps it balanced with high probability, so every
+     * operation below is O(log n) expected. Each node stores the size of its subtree,
+     * which is what turns "how many entries rank above this one" and "which entry is
+     * at index k" into a single walk from the root.</p>
+     * 
+     * <p>Not thread-safe.</p>
      */
-    private List<String> tabCompleteGiveEnchantedItem(CommandSender sender, String[] args) {
-        List<String> completions = new ArrayList<>();
+    static final class RankTree {
+        
+        private static final class Node {
+            final RankingEntry entry;
+            final int priority;
+            Node left;
+            Node right;
+            int size = 1;
+            
+            Node(RankingEntry entry, int priority) {
+                this.entry = entry;
+                this.priority = priority;
+            }
+        }
         
-        if (!sender.hasPermission("pixelsessentials.giveenchanteditem")) {
-            return completions;
+        private final Random random = new Random();
+        private Node root;
+        
+        /** @return Number of entries */
+        int size() {
+            return size(root);
         }
         
-        if (args.length == 1) {
-            // First argument - player names
-            for (Player player : Bukkit.getOnlinePlayers()) {
-                completions.add(player.getName());
-            }
-            return filterCompletions(completions, args[0]);
+        /**
+         * Adds an entry, which must not already be in the tree.
+         * 
+         * @param entry The entry
+         */
+        void insert(RankingEntry entry) {
+            Node[] parts = split(root, entry);
+            root = merge(merge(parts[0], new Node(entry, random.nextInt())), parts[1]);
         }
         
-        if (args.length == 2) {
-            // Second argument - item ID (no completion, user types it)
-            return completions;
+        /**
+         * Removes an entry, if present.
+         * 
+         * @param entry The entry (same player and value as stored)
+         */
+        void remove(RankingEntry entry) {
+            root = remove(root, entry);
         }
         
-        if (args.length >= 3) {
-            String currentArg = args[args.length - 1].toLowerCase();
-            
-            // Suggest name:, lore:, and durability: prefixes
-            if ("name:".startsWith(currentArg)) {
-                completions.add("name:");
-            }
-            if ("lore:".startsWith(currentArg)) {
-                completions.add("lore:");
-            }
-            if ("durability:".startsWith(currentArg)) {
-                completions.add("durability:");
-            }
-            
-            // Suggest common counts
-            if (currentArg.isEmpty() || currentArg.matches("^\\d*$")) {
-                completions.add("1");
-                completions.add("16");
-                completions.add("32");
-                completions.add("64");
-            }
-            
-            // Suggest common enchantment names
-            String[] commonEnchants = {
-                "sharpness", "smite", "bane_of_arthropods", "knockback", "fire_aspect",
-                "looting", "sweeping_edge", "efficiency", "silk_touch", "unbreaking",
-                "fortune", "power", "punch", "flame", "infinity", "luck_of_the_sea",
-                "lure", "loyalty", "impaling", "riptide", "channeling", "multishot",
-                "quick_charge", "piercing", "mending", "vanishing_curse", "binding_curse",
-                "protection", "fire_protection", "feather_falling", "blast_protection",
-                "projectile_protection", "respiration", "aqua_affinity", "thorns",
-                "depth_strider", "frost_walker", "soul_speed", "swift_sneak"
-            };
-            
-            // If user hasn't typed a colon yet, suggest enchantment names
-            if (!currentArg.contains(":") || currentArg.startsWith("name:") || currentArg.startsWith("lore:")) {
-                for (String enchant : commonEnchants) {
-                    if (enchant.startsWith(currentArg)) {
-                        completions.add(enchant + ":");
-                        completions.add(enchant); // Also suggest without colon (defaults to level 1)
-                    }
+        /**
+         * Counts the entries ranked above one, which is its zero-based index.
+         * 
+         * @param entry An entry in the tree
+         * @return Entries ordered before it
+         */
+        int countAbove(RankingEntry entry) {
+            int count = 0;
+            Node node = root;
+            while (node != null) {
+                int cmp = RankingIndex.ORDER.compare(entry, node.entry);
+                if (cmp == 0) {
+                    return count + size(node.left);
                 }
-            } else {
-                // User has typed enchant:, suggest levels
-                String enchantPart = currentArg.split(":")[0];
-                for (int level = 1; level <= 10; level++) {
-                    completions.add(enchantPart + ":" + level);
+                if (cmp < 0) {
+                    node = node.left;
+                } else {
+                    count += size(node.left) + 1;
+                    node = node.right;
+                }
+            }
+            return count;
+        }
+        
+        /**
+         * Gets the entry at a zero-based index.
+         * 
+         * @param index 0 to size() - 1
+         * @return The entry
+         */
+        RankingEntry select(int index) {
+            Node node = root;
+            while (node != null) {
+                int leftSize = size(node.left);
+                if (index < leftSize) {
+                    node = node.left;
+                } else if (index == leftSize) {
+                    return node.entry;
+                } else {
+                    index -= leftSize + 1;
+                    node = node.right;
                 }
             }
-            
-            return filterCompletions(completions, currentArg);
+            throw new IndexOutOfBoundsException("No entry at index " + index);
+        }
+        
+        /**
+         * Copies count entries starting at a zero-based index, visiting only the
+         * subtrees that overlap the range.
+         * 
+         * @param from First index (within the tree)
+         * @param count Number of entries (from + count must not exceed size())
+         * @return The entries in order
+         */
+        RankingEntry[] range(int from, int count) {
+            RankingEntry[] out = new RankingEntry[count];
+            collect(root, 0, from, from + count, out);
+            return out;
+        }
+        
+        private static void collect(Node node, int offset, int from, int to, RankingEntry[] out) {
+            if (node == null || offset >= to || offset + node.size <= from) return;
+            int index = offset + size(node.left);
+            collect(node.left, offset, from, to, out);
+            if (index >= from && index < to) {
+                out[index - from] = node.entry;
+            }
+            collect(node.right, index + 1, from, to, out);
         }
         
-        return completions;
-    }
-    
-    /**
-     * Tab completion for /pixelsessentials command.
-     * Only shows commands the player has permission for.
-     */
-    private List<String> tabCompleteMain(CommandSender sender, String[] args) {
-        List<String> completions = new ArrayList<>();
+        private static int size(Node node) {
+            return node != null ? node.size : 0;
+        }
         
-        if (args.length == 1) {
-            if (sender.hasPermission("pixelsessentials.reload")) {
-                completions.add("reload");
-            }
-            if (sender.hasPermission("pixelsessentials.debug")) {
-                completions.add("debug");
-            }
-            if (sender.hasPermission("pixelsessentials.show")) {
-                completions.add("show");
-                completions.add("updatesigns");
-            }
-            
-            return filterCompletions(completions, args[0]);
+        private static void resize(Node node) {
+            node.size = 1 + size(node.left) + size(node.right);
         }
         
-        if (args.length == 2 && args[0].equalsIgnoreCase("debug")) {
-            if (sender.hasPermission("pixelsessentials.debug")) {
-                completions.add("on");
-                completions.add("off");
+        /** Splits into entries ordered before key, and key and after */
+        private static Node[] split(Node node, RankingEntry key) {
+            if (node == null) return new Node[2];
+            Node[] parts;
+            if (RankingIndex.ORDER.compare(node.entry, key) < 0) {
+                parts = split(node.right, key);
+                node.right = parts[0];
+                parts[0] = node;
+            } else {
+                parts = split(node.left, key);
+                node.left = parts[1];
+                parts[1] = node;
             }
-            return filterCompletions(completions, args[1]);
+            resize(node);
+            return parts;
+        }
+        
+        /** Joins two trees where every entry of a is ordered before every entry of b */
+        private static Node merge(Node a, Node b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            if (a.priority > b.priority) {
+                a.right = merge(a.right, b);
+                resize(a);
+                return a;
+            }
+            b.left = merge(a, b.left);
+            resize(b);
+            return b;
         }
         
-        if (args.length == 2 && args[0].equalsIgnoreCase("show")) {
-            if (sender.hasPermission("pixelsessentials.show")) {
-                // Suggest common placement numbers
-                completions.add("1");
-                completions.add("2");
-                completions.add("3");
-                completions.add("4");
-                completions.add("5");
-                completions.add("10");
+        private static Node remove(Node node, RankingEntry entry) {
+            if (node == null) return null;
+            int cmp = RankingIndex.ORDER.compare(entry, node.entry);
+            if (cmp == 0) {
+                return merge(node.left, node.right);
             }
-            return filterCompletions(completions, args[1]);
+            if (cmp < 0) {
+                node.left = remove(node.left, entry);
+            } else {
+                node.right = remove(node.right, entry);
+            }
+            resize(node);
+            return node;
         }
-        
-        return completions;
     }
     
     /**
-     * Filters completions based on what the user has typed so far.
-     */
-    private List<String> filterCompletions(List<String> completions, String partial) {
-        return completions.stream()
-            .filter(s -> s.toLowerCase().startsWith(partial.toLowerCase()))
-            .toList();
-    }
-    
-    // ==================================================================================
-    // BALANCE LEADERBOARD SIGN METHODS
-    // ==================================================================================
-    
-    /**
-     * Loads balance leaderboard signs from signs.yml file.
+     * Spreads leaderboard sign updates over each update interval.
      * 
-     * <p>File location: plugins/PixelsEssentials/signs.yml</p>
+     * <p><b>Passes:</b> every {@link #signUpdateInterval} seconds the signs in loaded
+     * chunks are queued, and each tick updates an even share of what is left
+     * (remaining signs / remaining ticks). So 600 signs over 60 seconds is one sign per
+     * tick instead of 600 in one tick. A pass that falls behind carries on into the
+     * next ticks before a new one starts; nothing is dropped.</p>
+     * 
+     * <p><b>Budget:</b> each tick stops after {@link #leaderboardSignBudgetMicros}, even if
+     * its share isn't done (at least one sign is always updated, so a pass always
+     * finishes). While the server's average tick time is above 25 ms, the budget
+     * shrinks in proportion, down to a tenth at 50 ms or more, so a lagging server
+     * isn't pushed further behind.</p>
+     * 
+     * <p>Main thread only.</p>
      */
-    private void loadBalanceSigns() {
-        balanceSigns.clear();
+    private class LeaderboardSignScheduler {
         
-        File file = new File(getDataFolder(), "signs.yml");
-        if (!file.exists()) return;
+        /** Signs still to update this pass */
+        private final ArrayDeque<Location> queue = new ArrayDeque<>();
         
-        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
-        ConfigurationSection signs = yaml.getConfigurationSection("signs");
-        if (signs == null) return;
+        /** Ticks left in the current pass to spread the queue over */
+        private int ticksLeft = 0;
         
-        for (String key : signs.getKeys(false)) {
-            ConfigurationSection signSection = signs.getConfigurationSection(key);
-            if (signSection != null) {
-                String worldName = signSection.getString("world");
-                int x = signSection.getInt("x");
-                int y = signSection.getInt("y");
-                int z = signSection.getInt("z");
-                int place = signSection.getInt("place");
-                
-                World world = Bukkit.getWorld(worldName);
-                if (world != null) {
-                    Location loc = new Location(world, x, y, z);
-                    balanceSigns.put(loc, place);
-                }
-            }
+        /** Ticks until the next pass starts */
+        private long ticksUntilPass = 0;
+        
+        /** Repeating task, null until started */
+        private BukkitTask task;
+        
+        /** Current pass statistics, logged in debug mode when it finishes */
+        private int passSigns = 0;
+        private int passTicks = 0;
+        private int passBudgetStops = 0;
+        private long passMaxTickNanos = 0;
+        
+        /**
+         * Starts the scheduler.
+         * 
+         * @param firstPassDelay Ticks before the first pass
+         */
+        void start(long firstPassDelay) {
+            if (task != null) return;
+            ticksUntilPass = firstPassDelay;
+            task = Bukkit.getScheduler().runTaskTimer(PixelsEssentials.this, this::tick, 1L, 1L);
         }
         
-        getServer().getConsoleSender().sendMessage(Component.text("[PixelsEssentials] Loaded " + balanceSigns.size() + " balance leaderboard signs", NamedTextColor.GREEN));
-    }
-    
-    /**
-     * Saves balance leaderboard signs to signs.yml file.
-     * 
-     * <p>File location: plugins/PixelsEssentials/signs.yml</p>
-     */
-    private void saveBalanceSigns() {
-        File file = new File(getDataFolder(), "signs.yml");
-        YamlConfiguration yaml = new YamlConfiguration();
+        /**
+         * Starts a new pass over the next second, replacing the one in progress.
+         * Used when the rankings changed a lot (after a full rescan).
+         */
+        void requestPass() {
+            beginPass(20);
+        }
+        
+        private void beginPass(int spreadTicks) {
+            queue.clear();
+            queue.addAll(collectLoadedLeaderboardSigns());
+            ticksLeft = spreadTicks;
+            ticksUntilPass = 20L * Math.max(1, signUpdateInterval);
+            passSigns = queue.size();
+            passTicks = 0;
+            passBudgetStops = 0;
+            passMaxTickNanos = 0;
+        }
         
-        int index = 0;
-        for (Map.Entry<Location, Integer> entry : balanceSigns.entrySet()) {
-            Location loc = entry.getKey();
-            int place = entry.getValue();
-            String path = "signs." + index;
+        private void tick() {
+            if (--ticksUntilPass <= 0 && queue.isEmpty()) {
+                beginPass((int) Math.min(Integer.MAX_VALUE, 20L * Math.max(1, signUpdateInterval)));
+            }
+            if (queue.isEmpty()) return;
+            
+            int share = (queue.size() + Math.max(1, ticksLeft) - 1) / Math.max(1, ticksLeft);
+            ticksLeft--;
+            long budget = currentBudgetNanos();
+            
+            long start = System.nanoTime();
+            int done = 0;
+            while (done < share && !queue.isEmpty()) {
+                if (done > 0 && System.nanoTime() - start >= budget) {
+                    passBudgetStops++;
+                    break;
+                }
+                Location location = queue.poll();
+                LeaderboardSign sign = leaderboardSigns.get(location);
+                if (sign != null) {
+                    updateLeaderboardSign(location, sign);
+                }
+                done++;
+            }
             
-            yaml.set(path + ".world", loc.getWorld().getName());
-            yaml.set(path + ".x", loc.getBlockX());
-            yaml.set(path + ".y", loc.getBlockY());
-            yaml.set(path + ".z", loc.getBlockZ());
-            yaml.set(path + ".place", place);
-            index++;
+            passTicks++;
+            passMaxTickNanos = Math.max(passMaxTickNanos, System.nanoTime() - start);
+            if (queue.isEmpty() && debugMode) {
+                getLogger().info("[DEBUG] Leaderboard sign pass: " + passSigns + " signs over " + passTicks + " ticks, max "
+                    + passMaxTickNanos / 1000 + " us/tick, " + passBudgetStops + " budget stops");
+            }
         }
         
-        try {
-            yaml.save(file);
-        } catch (IOException e) {
-            getLogger().severe("Failed to save balance leaderboard signs: " + e.getMessage());
+        /**
+         * Gets this tick's budget, scaled down while the server is running slow.
+         * 
+         * @return Budget in nanoseconds
+         */
+        private long currentBudgetNanos() {
+            long budget = leaderboardSignBudgetMicros * 1000L;
+            double mspt = Bukkit.getServer().getAverageTickTime();
+            if (mspt > 25) {
+                double scale = Math.max(0.1, (50 - mspt) / 25);
+                budget = (long) (budget * scale);
+            }
+            return budget;
         }
     }
     
     /**
-     * Starts the repeating task to update all balance leaderboard signs.
-     * 
-     * <p>Signs are updated at the interval specified by signUpdateInterval (default 60 seconds).</p>
+     * What a leaderboard sign was last drawn with, for {@link #renderedLeaderboardSigns}.
      */
-    private void startSignUpdateTask() {
-        // Run initial update after 1 second (give server time to fully load)
-        Bukkit.getScheduler().runTaskLater(this, () -> {
-            updateAllBalanceSigns();
-        }, 20L);
+    private static final class RenderedLeaderboardSign {
         
-        // Then run periodic updates
-        Bukkit.getScheduler().runTaskTimer(this, () -> {
-            updateAllBalanceSigns();
-        }, 20L * signUpdateInterval, 20L * signUpdateInterval);
-    }
-    
-    /**
-     * Updates all balance leaderboard signs with current data.
-     */
-    private void updateAllBalanceSigns() {
-        if (debugMode) {
-            getLogger().info("Updating " + balanceSigns.size() + " balance leaderboard signs...");
-        }
+        final int place;
         
-        // Invalidate cache to force fresh data
-        topBalancesCache = null;
-        topBalancesCacheTime = 0;
+        /** Player shown, or null for "No Player" */
+        final UUID uuid;
+        final String name;
+        final double value;
         
-        // Create a copy to avoid ConcurrentModificationException if signs are removed
-        for (Map.Entry<Location, Integer> entry : new HashMap<>(balanceSigns).entrySet()) {
-            Location loc = entry.getKey();
-            int place = entry.getValue();
-            updateBalanceSign(loc, place);
+        /** Formatted value as drawn, or null for "No Player" */
+        final String valueText;
+        
+        RenderedLeaderboardSign(int place, UUID uuid, String name, double value, String valueText) {
+            this.place = place;
+            this.uuid = uuid;
+            this.name = name;
+            this.value = value;
+            this.valueText = valueText;
         }
     }
     
     /**
-     * Updates a specific balance leaderboard sign.
+     * Result of a full leaderboard rescan, stored in growable primitive arrays.
      * 
-     * <p>Sign format:</p>
-     * <pre>
-     * Line 1: "BALANCE" (gold, bold)
-     * Line 2: "#1" (yellow)
-     * Line 3: "PlayerName" (green)
-     * Line 4: "1.23 M" (aqua)
-     * </pre>
+     * <p>A UUID is kept as its two longs and a value as a double, so collecting
+     * 200k players allocates three arrays instead of a map entry, a boxed Double and a
+     * retained UUID per player.</p>
      * 
-     * @param location Sign location
-     * @param place Placement number (1 = richest, etc.)
+     * <p><b>Top-K:</b> {@link #topK(int)} selects the highest K with a bounded min-heap
+     * of array positions: O(n log K) time and O(K) extra space, instead of sorting
+     * every entry to keep ten. The order matches {@link RankingIndex} (value
+     * descending, then UUID).</p>
+     * 
+     * <p>Filled by one thread, then handed over; not thread-safe. Package-visible for
+     * the JMH benchmarks in src/jmh.</p>
      */
-    private void updateBalanceSign(Location location, int place) {
-        Block block = location.getBlock();
-        if (!(block.getState() instanceof Sign)) {
-            // Sign was destroyed, remove from tracking
-            balanceSigns.remove(location);
-            return;
+    static final class RankingScan {
+        
+        private long[] mostSigBits;
+        private long[] leastSigBits;
+        private double[] values;
+        private int size = 0;
+        
+        /**
+         * @param capacity Expected number of entries (grows as needed)
+         */
+        RankingScan(int capacity) {
+            capacity = Math.max(16, capacity);
+            mostSigBits = new long[capacity];
+            leastSigBits = new long[capacity];
+            values = new double[capacity];
+        }
+        
+        /**
+         * Appends an entry.
+         * 
+         * @param uuid The player's UUID
+         * @param value Their value
+         */
+        void add(UUID uuid, double value) {
+            if (size == values.length) {
+                int capacity = size + (size >> 1);
+                mostSigBits = Arrays.copyOf(mostSigBits, capacity);
+                leastSigBits = Arrays.copyOf(leastSigBits, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            mostSigBits[size] = uuid.getMostSignificantBits();
+            leastSigBits[size] = uuid.getLeastSignificantBits();
+            values[size] = value;
+            size++;
+        }
+        
+        /** @return Number of entries */
+        int size() {
+            return size;
         }
         
-        Sign sign = (Sign) block.getState();
+        /** @return UUID of entry i */
+        UUID uuid(int i) {
+            return new UUID(mostSigBits[i], leastSigBits[i]);
+        }
         
-        // Get top balances (cached)
-        List<Map.Entry<UUID, Double>> topBalances = getTopBalancesCached(Math.max(place, 10));
+        /** @return Value of entry i */
+        double value(int i) {
+            return values[i];
+        }
         
-        if (topBalances.size() >= place) {
-            Map.Entry<UUID, Double> playerEntry = topBalances.get(place - 1);
-            UUID uuid = playerEntry.getKey();
-            double balance = playerEntry.getValue();
+        /**
+         * Selects the K highest entries.
+         * 
+         * @param k Number of entries wanted
+         * @return Snapshot of up to K entries, highest first
+         */
+        RankingSnapshot topK(int k) {
+            int capacity = Math.min(k, size);
+            int[] heap = new int[capacity];
+            int heapSize = 0;
             
-            OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
-            String playerName = player.getName() != null ? player.getName() : "Unknown";
+            // heap[0] is the weakest entry kept so far
+            for (int i = 0; i < size; i++) {
+                if (heapSize < capacity) {
+                    heap[heapSize] = i;
+                    siftUp(heap, heapSize++);
+                } else if (capacity > 0 && ranksAbove(i, heap[0])) {
+                    heap[0] = i;
+                    siftDown(heap, heapSize);
+                }
+            }
             
-            sign.getSide(Side.FRONT).line(0, LegacyComponentSerializer.legacyAmpersand().deserialize("&6&lBALANCE"));
-            sign.getSide(Side.FRONT).line(1, LegacyComponentSerializer.legacyAmpersand().deserialize("&e#" + place));
-            sign.getSide(Side.FRONT).line(2, LegacyComponentSerializer.legacyAmpersand().deserialize("&a" + playerName));
-            sign.getSide(Side.FRONT).line(3, LegacyComponentSerializer.legacyAmpersand().deserialize("&b$" + formatBalanceForSign(balance)));
-        } else {
-            // No player at this position yet
-            sign.getSide(Side.FRONT).line(0, LegacyComponentSerializer.legacyAmpersand().deserialize("&6&lBALANCE"));
-            sign.getSide(Side.FRONT).line(1, LegacyComponentSerializer.legacyAmpersand().deserialize("&e#" + place));
-            sign.getSide(Side.FRONT).line(2, LegacyComponentSerializer.legacyAmpersand().deserialize("&7No Player"));
-            sign.getSide(Side.FRONT).line(3, LegacyComponentSerializer.legacyAmpersand().deserialize("&7$0"));
+            // Pop weakest first, filling from the back
+            UUID[] uuids = new UUID[heapSize];
+            double[] topValues = new double[heapSize];
+            for (int slot = heapSize - 1; slot >= 0; slot--) {
+                int top = heap[0];
+                uuids[slot] = uuid(top);
+                topValues[slot] = values[top];
+                heap[0] = heap[--heapSize];
+                siftDown(heap, heapSize);
+            }
+            return new RankingSnapshot(uuids, topValues, size);
+        }
+        
+        /** @return true if entry a ranks above entry b */
+        private boolean ranksAbove(int a, int b) {
+            int byValue = Double.compare(values[a], values[b]);
+            if (byValue != 0) return byValue > 0;
+            // Same order as UUID.compareTo, which sorts the lower UUID first
+            int byMost = Long.compare(mostSigBits[a], mostSigBits[b]);
+            if (byMost != 0) return byMost < 0;
+            return Long.compare(leastSigBits[a], leastSigBits[b]) < 0;
+        }
+        
+        private void siftUp(int[] heap, int pos) {
+            int entry = heap[pos];
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (!ranksAbove(heap[parent], entry)) break;
+                heap[pos] = heap[parent];
+                pos = parent;
+            }
+            heap[pos] = entry;
+        }
+        
+        private void siftDown(int[] heap, int heapSize) {
+            if (heapSize == 0) return;
+            int pos = 0;
+            int entry = heap[0];
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && ranksAbove(heap[child], heap[child + 1])) {
+                    child++;
+                }
+                if (!ranksAbove(entry, heap[child])) break;
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = entry;
         }
-        
-        sign.update();
     }
     
     /**
-     * Gets top player balances with caching.
+     * Immutable top-of-leaderboard view published through {@link Leaderboard#snapshot}.
      * 
-     * <p>Results are cached for 5 seconds to reduce economy lookups.</p>
-     * 
-     * @param limit Maximum number of players to return
-     * @return List of player UUID and balance entries, sorted by balance descending
+     * <p>Parallel arrays, highest first, so index i is rank i + 1. Never modified after
+     * construction, which is what makes lock-free reads from any thread safe.</p>
      */
-    private List<Map.Entry<UUID, Double>> getTopBalancesCached(int limit) {
-        long currentTime = System.currentTimeMillis();
+    static final class RankingSnapshot {
         
-        // Check if cache is still valid
-        if (topBalancesCache != null && (currentTime - topBalancesCacheTime) < BALANCE_CACHE_VALIDITY_MS) {
-            // Return cached results, but only up to the requested limit
-            if (topBalancesCache.size() >= limit) {
-                return topBalancesCache.subList(0, limit);
-            }
-            return topBalancesCache;
-        }
+        /** Snapshot with no entries, used until the first publish */
+        static final RankingSnapshot EMPTY = new RankingSnapshot(new UUID[0], new double[0], 0);
         
-        // Cache is invalid or doesn't exist, rebuild it
-        topBalancesCache = getTopBalances(limit);
-        topBalancesCacheTime = currentTime;
+        private final UUID[] uuids;
+        private final double[] values;
         
-        return topBalancesCache;
-    }
-    
-    /**
-     * Gets top player balances from the economy.
-     * 
-     * <p>Iterates through all players who have ever joined the server and
-     * retrieves their balance from Vault economy.</p>
-     * 
-     * @param limit Maximum number of players to return
-     * @return List of player UUID and balance entries, sorted by balance descending
-     */
-    private List<Map.Entry<UUID, Double>> getTopBalances(int limit) {
-        if (economy == null) {
-            if (debugMode) {
-                getLogger().warning("getTopBalances called but economy is null!");
+        /** Players with a positive value in the whole index, not just this snapshot */
+        final int totalRanked;
+        
+        /** When the snapshot was taken (System.currentTimeMillis) */
+        final long createdAt = System.currentTimeMillis();
+        
+        /** Rank (1-based) of each player in the snapshot, for the rank placeholder */
+        private final Map<UUID, Integer> ranks;
+        
+        RankingSnapshot(UUID[] uuids, double[] values, int totalRanked) {
+            this.uuids = uuids;
+            this.values = values;
+            this.totalRanked = totalRanked;
+            this.ranks = new HashMap<>(uuids.length * 2);
+            for (int i = 0; i < uuids.length; i++) {
+                ranks.put(uuids[i], i + 1);
             }
-            return new ArrayList<>();
         }
         
-        Map<UUID, Double> balances = new HashMap<>();
+        /** @return Number of ranked entries in the snapshot */
+        int size() {
+            return uuids.length;
+        }
         
-        // Get all offline players who have ever joined
-        for (OfflinePlayer player : Bukkit.getOfflinePlayers()) {
-            if (player.hasPlayedBefore() || player.isOnline()) {
-                double balance = economy.getBalance(player);
-                if (balance > 0) {
-                    balances.put(player.getUniqueId(), balance);
-                }
-            }
+        /** @return Player at zero-based index i (rank i + 1) */
+        UUID uuid(int i) {
+            return uuids[i];
         }
         
-        if (debugMode) {
-            getLogger().info("Found " + balances.size() + " players with positive balances");
+        /** @return Value at zero-based index i (rank i + 1) */
+        double value(int i) {
+            return values[i];
         }
         
-        // Sort by balance descending and limit results
-        return balances.entrySet().stream()
-            .sorted(Map.Entry.<UUID, Double>comparingByValue().reversed())
-            .limit(limit)
-            .collect(java.util.stream.Collectors.toList());
+        /** @return The player's rank (1-based), or 0 if they aren't in this snapshot */
+        int rankOf(UUID uuid) {
+            Integer rank = ranks.get(uuid);
+            return rank != null ? rank : 0;
+        }
     }
     
     /**
-     * Formats a balance value for display on signs.
-     * 
-     * <p>Format rules:</p>
-     * <ul>
-     *   <li>Under 1 million: Integer with commas (e.g., "12,375")</li>
-     *   <li>Millions: X.XX M (e.g., "35.45 M")</li>
-     *   <li>Billions: X.XX B (e.g., "135.22 B")</li>
-     *   <li>Trillions+: X.XX T (e.g., "1.36 T")</li>
-     * </ul>
-     * 
-     * @param balance The balance to format
-     * @return The formatted balance string
+     * One player's value in the {@link RankingIndex}. Immutable, since the sorted
+     * set relies on it not changing while stored.
      */
-    private String formatBalanceForSign(double balance) {
-        if (balance < 0) {
-            return "-" + formatBalanceForSign(-balance);
-        }
+    static final class RankingEntry {
         
-        final double TRILLION = 1_000_000_000_000.0;
-        final double BILLION = 1_000_000_000.0;
-        final double MILLION = 1_000_000.0;
+        final UUID uuid;
+        final double value;
         
-        if (balance >= TRILLION) {
-            return String.format("%.2f T", balance / TRILLION);
-        } else if (balance >= BILLION) {
-            return String.format("%.2f B", balance / BILLION);
-        } else if (balance >= MILLION) {
-            return String.format("%.2f M", balance / MILLION);
-        } else {
-            return String.format("%,d", (long) balance);
+        RankingEntry(UUID uuid, double value) {
+            this.uuid = uuid;
+            this.value = value;
         }
     }
     
-    // ==================================================================================
-    // INTERNAL DATA CLASSES
-    // ==================================================================================
-    
     /**
-     * Internal data class storing all persistent data for a single player.
+     * Shared scheduler for recipe unlocks, fair across players and capped per tick.
      * 
-     * <p>This class serves as the in-memory representation of a player's YAML data file.
-     * Instances are cached in {@link #playerDataCache} and persisted to disk via
-     * {@link #savePlayerData(UUID)}.</p>
+     * <p><b>Budget:</b> a token bucket refilled with {@link #unlockRecipesBudgetPerTick}
+     * tokens every tick (holding at most one tick's worth), where one token is one
+     * recipe discovery. When the bucket is empty the rest waits for the next tick, so a
+     * join storm after a restart spreads out instead of landing in one tick.</p>
      * 
-     * <p><b>Data Stored:</b></p>
-     * <ul>
-     *   <li><b>homes:</b> Map of home names to locations (lowercase keys)</li>
-     *   <li><b>lastTeleportLocation:</b> Position before most recent teleport</li>
-     *   <li><b>lastDeathLocation:</b> Position of most recent death</li>
-     *   <li><b>lastWasDeath:</b> Flag indicating if /back should use death or teleport location</li>
-     *   <li><b>logoutLocation:</b> Position when player quit (for analytics/spawn-on-join)</li>
-     *   <li><b>autofeedEnabled:</b> Per-player toggle for automatic hunger restoration</li>
-     * </ul>
+     * <p><b>Fairness:</b> waiting players are served round-robin. Each turn a player gets
+     * one bulk discovery of up to {@link #unlockRecipesPerTick} recipes and then goes to
+     * the back of the queue, so a player who joined late isn't stuck behind everyone
+     * else's full unlock.</p>
      * 
-     * <p><b>YAML File Mapping:</b></p>
-     * <pre>
-     * homes:              -> homes Map
-     * lastteleportlocation: -> lastTeleportLocation
-     * lastdeathlocation:    -> lastDeathLocation
-     * last-was-death:       -> lastWasDeath
-     * logoutlocation:       -> logoutLocation
-     * autofeed:             -> autofeedEnabled
-     * </pre>
+     * <p>The tick task only runs while the queue is non-empty. Main thread only.</p>
      */
-    private static class PlayerData {
-        /**
-         * Map of home name (lowercase) to location data.
-         * Keys are always lowercase for case-insensitive matching.
-         * Empty map by default, never null.
-         */
-        Map<String, LocationData> homes = new HashMap<>();
+    private class RecipeUnlockScheduler {
         
-        /**
-         * Location before the player's most recent teleport.
-         * Set by {@link #onPlayerTeleport} for /back command functionality.
-         * May be null if player hasn't teleported yet.
-         */
-        LocationData lastTeleportLocation;
+        /** Players waiting for their next turn, in round-robin order */
+        private final ArrayDeque<RecipeUnlockJob> queue = new ArrayDeque<>();
+        
+        /** The queued job of each player, so a player is never queued twice */
+        private final Map<UUID, RecipeUnlockJob> jobs = new HashMap<>();
+        
+        /** Discoveries left this tick */
+        private int tokens = 0;
+        
+        /** Repeating tick task, null while idle */
+        private BukkitTask task;
+        
+        /** Players queued */
+        private long enqueued = 0;
+        
+        /** Players whose unlock finished */
+        private long completed = 0;
+        
+        /** Players who left before their unlock finished */
+        private long abandoned = 0;
+        
+        /** Joins skipped because the stored fingerprint matched */
+        private long skipped = 0;
+        
+        /** Recipes newly discovered (already known ones aren't counted) */
+        private long discovered = 0;
+        
+        /** Highest queue length observed */
+        private int peakQueue = 0;
+        
+        /** Total and longest time from queueing to completion, in milliseconds */
+        private long totalCompletionMillis = 0;
+        private long maxCompletionMillis = 0;
         
         /**
-         * Location where the player most recently died.
-         * Set by {@link #onPlayerDeath} for /back command functionality.
-         * May be null if player hasn't died yet.
+         * Queues a player's unlock. Does nothing if they are already queued with the same keys.
+         * 
+         * @param player The player
+         * @param keys The recipe keys to discover (not modified)
+         * @param fingerprint Fingerprint of the keys, stored on the player when done
          */
-        LocationData lastDeathLocation;
+        void enqueue(Player player, List<NamespacedKey> keys, String fingerprint) {
+            UUID uuid = player.getUniqueId();
+            RecipeUnlockJob existing = jobs.get(uuid);
+            if (existing != null) {
+                if (existing.keys == keys) return;
+                // Queued against keys that have since been replaced; start over with the new ones
+                existing.cancelled = true;
+            }
+            
+            RecipeUnlockJob job = new RecipeUnlockJob(uuid, keys, fingerprint);
+            jobs.put(uuid, job);
+            queue.addLast(job);
+            enqueued++;
+            peakQueue = Math.max(peakQueue, jobs.size());
+            
+            if (task == null) {
+                tokens = 0;
+                task = Bukkit.getScheduler().runTaskTimer(PixelsEssentials.this, this::tick, 0L, 1L);
+            }
+        }
         
         /**
-         * Flag indicating whether the most recent /back-able event was a death.
-         * 
-         * <p>When true, /back will attempt to use lastDeathLocation (requires ondeath permission).
-         * When false, /back will use lastTeleportLocation.</p>
+         * Drops a player's queued unlock (on quit).
          * 
-         * <p>This flag is set to true in {@link #setLastDeathLocation} and
-         * false in {@link #setLastTeleportLocation}.</p>
+         * @param uuid The player's UUID
          */
-        boolean lastWasDeath = false;
+        void remove(UUID uuid) {
+            RecipeUnlockJob job = jobs.remove(uuid);
+            if (job != null) {
+                // Skipped when it comes up in the queue
+                job.cancelled = true;
+                abandoned++;
+            }
+        }
+        
+        /** Counts a join that needed no unlock */
+        void recordSkipped() {
+            skipped++;
+        }
         
         /**
-         * Location where the player was when they logged out.
-         * Set by {@link #onPlayerQuit} for future features or analytics.
-         * May be null if player data was created before first quit.
+         * Spends this tick's tokens on queued players, one bulk discovery per turn.
          */
-        LocationData logoutLocation;
+        private void tick() {
+            tokens = Math.min(unlockRecipesBudgetPerTick, tokens + unlockRecipesBudgetPerTick);
+            
+            while (tokens > 0 && !queue.isEmpty()) {
+                RecipeUnlockJob job = queue.pollFirst();
+                if (job.cancelled) continue;
+                
+                Player player = Bukkit.getPlayer(job.uuid);
+                if (player == null) {
+                    remove(job.uuid);
+                    continue;
+                }
+                
+                int end = Math.min(job.next + Math.min(unlockRecipesPerTick, tokens), job.keys.size());
+                int newlyDiscovered = player.discoverRecipes(job.keys.subList(job.next, end));
+                tokens -= end - job.next;
+                job.next = end;
+                job.unlocked += newlyDiscovered;
+                discovered += newlyDiscovered;
+                
+                if (job.next < job.keys.size()) {
+                    queue.addLast(job);
+                    continue;
+                }
+                
+                jobs.remove(job.uuid);
+                if (job.keys == cachedRecipeKeys && recipeKeysValidated) {
+                    player.getPersistentDataContainer().set(recipeFingerprintKey, PersistentDataType.STRING, job.fingerprint);
+                }
+                
+                long millis = System.currentTimeMillis() - job.enqueuedAt;
+                completed++;
+                totalCompletionMillis += millis;
+                maxCompletionMillis = Math.max(maxCompletionMillis, millis);
+                
+                if (debugMode && job.unlocked > 0) {
+                    getLogger().info("[DEBUG] Unlocked " + job.unlocked + " new recipes for " + player.getName() + " in " + millis + "ms");
+                }
+            }
+            
+            if (queue.isEmpty()) {
+                task.cancel();
+                task = null;
+            }
+        }
         
         /**
-         * Whether automatic hunger restoration is enabled for this player.
+         * Sends scheduler metrics to a command sender (/pe recipes).
          * 
-         * <p>Default: true (enabled for new players)</p>
-         * <p>Toggled via /autofeed on|off command</p>
-         * <p>Requires pixelsessentials.autofeed permission to actually trigger</p>
+         * @param sender The sender to report to
          */
-        boolean autofeedEnabled = true;
+        void report(CommandSender sender) {
+            double avgMs = completed > 0 ? (double) totalCompletionMillis / completed : 0;
+            
+            sender.sendMessage(Component.text("Recipe unlock queue", NamedTextColor.GOLD));
+            sender.sendMessage(Component.text("Recipe keys: ", NamedTextColor.GRAY)
+                .append(Component.text(cachedRecipeKeys != null ? String.valueOf(cachedRecipeKeys.size()) : "caching...", NamedTextColor.AQUA))
+                .append(Component.text("  Budget: ", NamedTextColor.GRAY))
+                .append(Component.text(unlockRecipesBudgetPerTick + "/tick, " + unlockRecipesPerTick + "/player", NamedTextColor.AQUA)));
+            sender.sendMessage(Component.text("Queued: ", NamedTextColor.GRAY)
+                .append(Component.text(jobs.size() + " (peak " + peakQueue + ")", NamedTextColor.AQUA))
+                .append(Component.text("  Waiting for keys: ", NamedTextColor.GRAY))
+                .append(Component.text(String.valueOf(pendingRecipeUnlockPlayers.size()), NamedTextColor.AQUA)));
+            sender.sendMessage(Component.text("Enqueued: ", NamedTextColor.GRAY)
+                .append(Component.text(String.valueOf(enqueued), NamedTextColor.AQUA))
+                .append(Component.text("  Completed: ", NamedTextColor.GRAY))
+                .append(Component.text(String.valueOf(completed), NamedTextColor.GREEN))
+                .append(Component.text("  Abandoned: ", NamedTextColor.GRAY))
+                .append(Component.text(String.valueOf(abandoned), NamedTextColor.YELLOW))
+                .append(Component.text("  Skipped: ", NamedTextColor.GRAY))
+                .append(Component.text(String.valueOf(skipped), NamedTextColor.AQUA)));
+            sender.sendMessage(Component.text("Discovered: ", NamedTextColor.GRAY)
+                .append(Component.text(String.valueOf(discovered), NamedTextColor.AQUA))
+                .append(Component.text("  Time to complete: ", NamedTextColor.GRAY))
+                .append(Component.text(String.format("avg %.0f ms, max %d ms", avgMs, maxCompletionMillis), NamedTextColor.AQUA)));
+        }
     }
     
     /**
-     * Immutable data class storing a serializable location with world identification.
-     * 
-     * <p>This class contains all information needed to teleport a player to a saved location.
-     * It stores both world UUID (primary, reliable across renames) and world name
-     * (fallback, human-readable for display/debugging).</p>
-     * 
-     * <p><b>World Resolution:</b> When converting to a Bukkit Location via {@link #toLocation()},
-     * the world is first looked up by UUID. If not found (world deleted/recreated), falls back
-     * to lookup by name. Returns null if neither succeeds.</p>
-     * 
-     * <p><b>YAML Storage Format:</b></p>
-     * <pre>
-     * somepath:
-     *   world: "550e8400-e29b-41d4-a716-446655440000"
-     *   world-name: "world"
-     *   x: 100.5
-     *   y: 64.0
-     *   z: -200.3
-     *   yaw: 90.0
-     *   pitch: 0.0
-     * </pre>
-     * 
-     * <p><b>Immutability:</b> All fields are final and set at construction time.
-     * This ensures thread-safety and prevents accidental modification of saved locations.</p>
+     * One player's place in the {@link RecipeUnlockScheduler}.
      */
-    private static class LocationData {
+    private static class RecipeUnlockJob {
+        
+        final UUID uuid;
+        
+        /** Keys to discover, fixed when queued so a cache rebuild doesn't shift the position */
+        final List<NamespacedKey> keys;
+        
+        /** Fingerprint of {@link #keys} */
+        final String fingerprint;
+        
+        /** When the player was queued, for time-to-completion */
+        final long enqueuedAt = System.currentTimeMillis();
+        
+        /** Index of the next key to discover */
+        int next = 0;
+        
+        /** Recipes newly discovered so far */
+        int unlocked = 0;
+        
+        /** Set when the player left; the queue entry is skipped */
+        boolean cancelled = false;
+        
+        RecipeUnlockJob(UUID uuid, List<NamespacedKey> keys, String fingerprint) {
+            this.uuid = uuid;
+            this.keys = keys;
+            this.fingerprint = fingerprint;
+        }
+    }
+    
+    /**
+     * Per-page serial write queue for extended ender chest saves.
+     * 
+     * <p><b>Ordering:</b> at most one write per stored page runs at a time, so saves for
+     * the same page always reach the disk in submission order. Different pages and
+     * players are written in parallel on a small fixed pool of writer threads.</p>
+     * 
+     * <p><b>Coalescing:</b> each page has at most one pending snapshot. Submitting a new
+     * snapshot while an older one is still waiting replaces it (counted as superseded),
+     * so rapid open/close cycles produce one write of the newest contents rather than
+     * a backlog of stale ones. The changed-slot sets of coalesced snapshots are merged,
+     * so a delta write still covers every slot changed since the last write. Queue
+     * memory is therefore bounded by the number of pages in use, which is the back-pressure.</p>
+     * 
+     * <p><b>Failures:</b> a write that fails goes back into the queue (behind any newer
+     * snapshot, whose changed slots absorb its own) and the page is retried after
+     * {@link #ENDERCHEST_RETRY_TICKS}. The page stays in {@link #draining} until a write
+     * succeeds, so {@link #isBusy} keeps the cached contents, possibly the only
+     * up-to-date copy, from being evicted.</p>
+     * 
+     * <p><b>Shutdown:</b> {@link #shutdown()} blocks until every pending snapshot has
+     * been written, then makes one last attempt at any still waiting for a retry, so no
+     * save is lost on disable unless the disk is still failing.</p>
+     */
+    private class EnderChestWriteQueue {
+        
+        /** Latest not-yet-started snapshot per page */
+        private final Map<EnderChestPage, PendingEnderChestWrite> pending = new ConcurrentHashMap<>();
+        
+        /** Pages that currently have a drain task scheduled or running */
+        private final Set<EnderChestPage> draining = ConcurrentHashMap.newKeySet();
+        
+        /** Writer threads (daemon, so a stuck write can't hold the JVM open) */
+        private final ExecutorService executor;
+        
+        /** Total snapshots submitted */
+        private final AtomicLong submitted = new AtomicLong();
+        
+        /** Snapshots replaced by a newer one before they were written */
+        private final AtomicLong superseded = new AtomicLong();
+        
+        /** Snapshots successfully written to disk */
+        private final AtomicLong written = new AtomicLong();
+        
+        /** Snapshots that failed to write */
+        private final AtomicLong failed = new AtomicLong();
+        
+        /** Writes that only appended changed slots */
+        private final AtomicLong deltaWrites = new AtomicLong();
+        
+        /** Closes with no changed slots, which never reach the queue */
+        private final AtomicLong unchanged = new AtomicLong();
+        
+        /** Highest number of pending snapshots observed */
+        private final AtomicInteger peakDepth = new AtomicInteger();
+        
+        /** Total nanoseconds spent writing, for the average write time */
+        private final AtomicLong writeNanos = new AtomicLong();
+        
         /**
-         * The UUID of the world as a string.
-         * Primary identifier used for world resolution in {@link #toLocation()}.
-         * More reliable than world name since UUIDs persist across world renames.
+         * Creates the queue and its writer pool.
+         * 
+         * @param threads Number of writer threads
          */
-        final String worldUuid;
+        EnderChestWriteQueue(int threads) {
+            AtomicInteger threadId = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "PixelsEssentials-EnderChestWriter-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
         
         /**
-         * The human-readable name of the world.
-         * Used for display purposes and as fallback if UUID lookup fails.
-         * Stored for debugging and when world is recreated with new UUID.
+         * Queues a snapshot for writing, replacing any snapshot still waiting for this page.
+         * 
+         * @param key The owner and page
+         * @param snapshot A private copy of the contents (must not be modified afterwards)
+         * @param changedSlots Slots changed since the previous submit (must not be modified afterwards)
+         * @param itemCounts The snapshot's item index entry, or null
          */
-        final String worldName;
+        void submit(EnderChestPage key, ItemStack[] snapshot, BitSet changedSlots, Map<String, int[]> itemCounts) {
+            submitted.incrementAndGet();
+            pending.merge(key, new PendingEnderChestWrite(snapshot, changedSlots, itemCounts), (older, newer) -> {
+                superseded.incrementAndGet();
+                newer.changedSlots.or(older.changedSlots);
+                return newer;
+            });
+            peakDepth.accumulateAndGet(pending.size(), Math::max);
+            
+            // Only one drain per page; a running drain will pick the new snapshot up
+            if (draining.add(key)) {
+                executor.execute(() -> drain(key));
+            }
+        }
         
         /**
-         * X coordinate in the world (east-west position).
-         * Stored as double for sub-block precision.
+         * Writes snapshots for one page until none are pending.
+         * 
+         * <p>After clearing the draining flag the pending map is checked once more: a
+         * submit that happened between the last poll and the flag removal saw the flag
+         * still set and didn't schedule a drain, so this drain must continue for it.</p>
+         * 
+         * @param key The owner and page
          */
-        final double x;
+        private void drain(EnderChestPage key) {
+            while (true) {
+                PendingEnderChestWrite write = pending.remove(key);
+                if (write == null) {
+                    draining.remove(key);
+                    if (pending.containsKey(key) && draining.add(key)) {
+                        continue;
+                    }
+                    // Saved; a player who logged off meanwhile no longer needs the cache entries
+                    if (isEnabled()) {
+                        Bukkit.getScheduler().runTask(PixelsEssentials.this, () -> {
+                            if (!isBusy(key.owner)) {
+                                evictExtendedEnderChest(key.owner);
+                            }
+                        });
+                    }
+                    return;
+                }
+                
+                long start = System.nanoTime();
+                try {
+                    if (writeExtendedEnderChest(key, write.contents, write.changedSlots, write.itemCounts)) {
+                        deltaWrites.incrementAndGet();
+                    }
+                    written.incrementAndGet();
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    // The file may be missing these changes now; force a full rewrite next time
+                    enderChestDeltaRecords.remove(getEnderChestFile(key.owner, key.page).getName());
+                    getLogger().severe("Failed to save extended ender chest " + key + ", will retry: " + e.getMessage());
+                    writeNanos.addAndGet(System.nanoTime() - start);
+                    retryLater(key, write);
+                    return;
+                }
+                writeNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
         
         /**
-         * Y coordinate in the world (vertical position/height).
-         * Stored as double for sub-block precision.
-         * Valid range typically 0-320 in modern Minecraft.
+         * Puts a failed write back and schedules another drain of its page. The page
+         * stays marked as draining meanwhile, so nothing else drains or evicts it.
+         * 
+         * @param key The owner and page
+         * @param write The snapshot that failed to write
          */
-        final double y;
+        private void retryLater(EnderChestPage key, PendingEnderChestWrite write) {
+            pending.merge(key, write, (newer, failedWrite) -> {
+                newer.changedSlots.or(failedWrite.changedSlots);
+                return newer;
+            });
+            if (!isEnabled()) return;
+            Bukkit.getScheduler().runTaskLaterAsynchronously(PixelsEssentials.this, () -> {
+                try {
+                    executor.execute(() -> drain(key));
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; shutdown() makes the last attempt
+                }
+            }, ENDERCHEST_RETRY_TICKS);
+        }
         
         /**
-         * Z coordinate in the world (north-south position).
-         * Stored as double for sub-block precision.
+         * Whether a save for any of this player's pages is waiting or being written.
+         * 
+         * @param uuid The player's UUID
+         * @return true while an on-disk file may be older than the cached contents
          */
-        final double z;
+        boolean isBusy(UUID uuid) {
+            for (EnderChestPage key : draining) {
+                if (key.owner.equals(uuid)) return true;
+            }
+            for (EnderChestPage key : pending.keySet()) {
+                if (key.owner.equals(uuid)) return true;
+            }
+            return false;
+        }
         
         /**
-         * Yaw (horizontal rotation) in degrees.
-         * 0 = south, 90 = west, 180 = north, 270 = east.
-         * Range: -180 to 180 or 0 to 360 depending on source.
+         * Counts a close that was skipped because no slot changed.
          */
-        final float yaw;
+        void recordUnchanged() {
+            unchanged.incrementAndGet();
+        }
         
         /**
-         * Pitch (vertical rotation/look angle) in degrees.
-         * 0 = horizontal, -90 = straight up, 90 = straight down.
+         * Number of snapshots waiting to be written.
+         * 
+         * @return Current queue depth
          */
-        final float pitch;
+        int depth() {
+            return pending.size();
+        }
         
         /**
-         * Constructs a new immutable LocationData instance.
+         * Waits for all pending writes to finish, then stops the writer threads.
+         * Called from {@link #onDisable()} on the main thread.
+         */
+        void shutdown() {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    getLogger().severe("Timed out waiting for " + depth() + " ender chest saves to finish");
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            
+            // Writes that failed earlier and were still waiting for their retry
+            for (EnderChestPage key : new ArrayList<>(pending.keySet())) {
+                PendingEnderChestWrite write = pending.remove(key);
+                if (write == null) continue;
+                try {
+                    writeExtendedEnderChest(key, write.contents, write.changedSlots, write.itemCounts);
+                    written.incrementAndGet();
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    getLogger().severe("Failed to save extended ender chest " + key + " on shutdown; its latest changes are lost: " + e.getMessage());
+                }
+            }
+        }
+        
+        /**
+         * Sends queue metrics to a command sender (/pe ec stats).
          * 
-         * @param worldUuid World UUID as string (from World.getUID().toString())
-         * @param worldName World name (from World.getName())
-         * @param x X coordinate (east-west)
-         * @param y Y coordinate (height)
-         * @param z Z coordinate (north-south)
-         * @param yaw Horizontal rotation in degrees
-         * @param pitch Vertical rotation in degrees
+         * @param sender The sender to report to
          */
-        LocationData(String worldUuid, String worldName, double x, double y, double z, float yaw, float pitch) {
-            this.worldUuid = worldUuid;
+        void report(CommandSender sender) {
+            long writes = written.get();
+            double avgMs = writes > 0 ? writeNanos.get() / 1_000_000.0 / writes : 0;
+            
+            sender.sendMessage(Component.text("Ender chest write queue", NamedTextColor.GOLD));
+            sender.sendMessage(Component.text("Pending: ", NamedTextColor.GRAY)
+                .append(Component.text(depth() + " (peak " + peakDepth.get() + ")", NamedTextColor.AQUA))
+                .append(Component.text("  Draining: ", NamedTextColor.GRAY))
+                .append(Component.text(String.valueOf(draining.size()), NamedTextColor.AQUA)));
+            sender.sendMessage(Component.text("Submitted: ", NamedTextColor.GRAY)
+                .append(Component.text(String.valueOf(submitted.get()), NamedTextColor.AQUA))
+                .append(Component.text("  Written: ", NamedTextColor.GRAY))
+                .append(Component.text(String.valueOf(writes), NamedTextColor.GREEN))
+                .append(Component.text("  Superseded: ", NamedTextColor.GRAY))
+                .append(Component.text(String.valueOf(superseded.get()), NamedTextColor.YELLOW))
+                .append(Component.text("  Failed: ", NamedTextColor.GRAY))
+                .append(Component.text(String.valueOf(failed.get()), NamedTextColor.RED)));
+            sender.sendMessage(Component.text("Delta writes: ", NamedTextColor.GRAY)
+                .append(Component.text(String.valueOf(deltaWrites.get()), NamedTextColor.AQUA))
+                .append(Component.text("  Full rewrites: ", NamedTextColor.GRAY))
+                .append(Component.text(String.valueOf(writes - deltaWrites.get()), NamedTextColor.AQUA))
+                .append(Component.text("  Unchanged closes: ", NamedTextColor.GRAY))
+                .append(Component.text(String.valueOf(unchanged.get()), NamedTextColor.AQUA)));
+            sender.sendMessage(Component.text("Average write: ", NamedTextColor.GRAY)
+                .append(Component.text(String.format("%.2f ms", avgMs), NamedTextColor.AQUA)));
+        }
+    }
+    
+    /**
+     * A snapshot waiting in the {@link EnderChestWriteQueue}.
+     */
+    private static class PendingEnderChestWrite {
+        
+        /** Full extended slot contents (private copy) */
+        final ItemStack[] contents;
+        
+        /** Slots changed since the last write reached the queue */
+        final BitSet changedSlots;
+        
+        /** Item key -> {slots, total amount} for the item index, or null when it is disabled */
+        final Map<String, int[]> itemCounts;
+        
+        PendingEnderChestWrite(ItemStack[] contents, BitSet changedSlots, Map<String, int[]> itemCounts) {
+            this.contents = contents;
+            this.changedSlots = changedSlots;
+            this.itemCounts = itemCounts;
+        }
+    }
+    
+    /**
+     * Immutable entry in the death history log.
+     *
+     * <p>Created on the main thread by {@link #recordDeath}, written to deaths.log by
+     * {@link #flushDeathLog()} and read back by {@link #loadDeathHotspotsAsync()}.
+     * Coordinates are stored at block precision since hotspots only need the chunk.</p>
+     */
+    private static class DeathRecord {
+        /** Epoch millis when the death happened */
+        final long timestamp;
+
+        /** UUID of the player who died */
+        final UUID playerUuid;
+
+        /** Name of the world the death happened in */
+        final String worldName;
+
+        /** Block X coordinate */
+        final int x;
+
+        /** Block Y coordinate */
+        final int y;
+
+        /** Block Z coordinate */
+        final int z;
+
+        /** Damage cause name (e.g. FALL, LAVA, ENTITY_ATTACK) */
+        final String cause;
+
+        DeathRecord(long timestamp, UUID playerUuid, String worldName, int x, int y, int z, String cause) {
+            this.timestamp = timestamp;
+            this.playerUuid = playerUuid;
             this.worldName = worldName;
             this.x = x;
             this.y = y;
             this.z = z;
-            this.yaw = yaw;
-            this.pitch = pitch;
+            this.cause = cause;
         }
-        
+
         /**
-         * Creates a LocationData from a Bukkit Location.
-         * 
-         * @param location The Bukkit Location
-         * @return LocationData object
+         * Number of bytes this record occupies in deaths.log.
+         *
+         * @return Encoded size including the UTF length prefixes
          */
-        static LocationData fromLocation(Location location) {
-            World world = location.getWorld();
-            return new LocationData(
-                world.getUID().toString(),
-                world.getName(),
-                location.getX(),
-                location.getY(),
-                location.getZ(),
-                location.getYaw(),
-                location.getPitch()
-            );
+        long encodedSize() {
+            return 8 + 16 + 2 + modifiedUtf8Length(worldName) + 12 + 2 + modifiedUtf8Length(cause);
         }
-        
+
         /**
-         * Converts this location data to a Bukkit Location.
-         * 
-         * <p>First tries to find the world by UUID, then falls back to world name.</p>
-         * 
-         * @return Location object, or null if world doesn't exist
+         * Byte length of a string as written by {@link DataOutputStream#writeUTF(String)}.
          */
-        Location toLocation() {
-            World bukkitWorld = null;
-            
-            // First try to find by UUID
-            try {
-                UUID uuid = UUID.fromString(worldUuid);
-                bukkitWorld = Bukkit.getWorld(uuid);
-            } catch (IllegalArgumentException e) {
-                // Invalid UUID, try by name
-            }
-            
-            // Fallback to world name
-            if (bukkitWorld == null) {
-                bukkitWorld = Bukkit.getWorld(worldName);
-            }
-            
-            if (bukkitWorld == null) {
-                return null;
+        private static int modifiedUtf8Length(String s) {
+            int length = 0;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c >= 0x0001 && c <= 0x007F) {
+                    length += 1;
+                } else if (c <= 0x07FF) {
+                    length += 2;
+                } else {
+                    length += 3;
+                }
             }
-            
-            return new Location(bukkitWorld, x, y, z, yaw, pitch);
+            return length;
         }
     }
-    
+
     // ==================================================================================
     // PLACEHOLDERAPI EXPANSION
     // ==================================================================================
@@ -4232,7 +10768,17 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
      *   <li><b>%pixelsessentials_leggings_current_durability%</b> - Current durability of leggings (empty if none)</li>
      *   <li><b>%pixelsessentials_boots_total_durability%</b> - Max durability of boots (empty if none)</li>
      *   <li><b>%pixelsessentials_boots_current_durability%</b> - Current durability of boots (empty if none)</li>
+     *   <li><b>%pixelsessentials_top_&lt;n&gt;_name%</b> - Name of the nth richest player (empty if none)</li>
+     *   <li><b>%pixelsessentials_top_&lt;n&gt;_balance%</b> - Their balance, formatted like formatted_balance</li>
+     *   <li><b>%pixelsessentials_rank%</b> - The player's balance rank: exact on the main
+     *       thread, otherwise "-" if outside the top {@link #leaderboardPlaceholderDepth}</li>
+     *   <li><b>%pixelsessentials_&lt;leaderboard&gt;_top_&lt;n&gt;_name%</b>, <b>..._top_&lt;n&gt;_value%</b>,
+     *       <b>%pixelsessentials_&lt;leaderboard&gt;_rank%</b> - The same for any other leaderboard</li>
      * </ul>
+     * 
+     * <p>Leaderboard placeholders are answered from the published {@link RankingSnapshot}
+     * alone: no economy calls and no sorting on the request path, so they are safe
+     * from async scoreboard and hologram threads.</p>
      */
     private class PixelsEssentialsExpansion extends PlaceholderExpansion {
         
@@ -4298,6 +10844,12 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
          */
         @Override
         public @Nullable String onPlaceholderRequest(Player player, @NotNull String params) {
+            // Leaderboard placeholders, most of which don't need a player
+            String ranked = getLeaderboardPlaceholder(player, params.toLowerCase(Locale.ROOT));
+            if (ranked != null) {
+                return ranked;
+            }
+            
             if (player == null) {
                 return null;
             }
@@ -4350,6 +10902,76 @@ public class PixelsEssentials extends JavaPlugin implements CommandExecutor, Tab
             }
         }
         
+        /**
+         * Resolves a leaderboard placeholder from the published snapshot.
+         * 
+         * <p>Handles top_&lt;n&gt;_name, top_&lt;n&gt;_balance and rank for the balance
+         * leaderboard, and &lt;leaderboard&gt;_top_&lt;n&gt;_name,
+         * &lt;leaderboard&gt;_top_&lt;n&gt;_value and &lt;leaderboard&gt;_rank for any
+         * leaderboard. A request deeper than the current snapshot raises the depth
+         * of the next one (up to leaderboard.placeholder-depth).</p>
+         * 
+         * @param player The requesting player (may be null; rank then returns null)
+         * @param params Lowercase placeholder identifier
+         * @return The value, or null if params isn't a leaderboard placeholder
+         */
+        private String getLeaderboardPlaceholder(Player player, String params) {
+            String boardId = "balance";
+            String rest = params;
+            int split = params.indexOf("_top_");
+            if (split > 0) {
+                boardId = params.substring(0, split);
+                rest = params.substring(split + 1);
+            } else if (params.endsWith("_rank")) {
+                boardId = params.substring(0, params.length() - "_rank".length());
+                rest = "rank";
+            }
+            
+            Leaderboard board = plugin.leaderboards.get(boardId);
+            
+            if (rest.equals("rank")) {
+                if (board == null) return boardId.equals("balance") ? "-" : null;
+                if (player == null) return null;
+                // Exact from the index on the main thread, else from the snapshot
+                int rank;
+                if (Bukkit.isPrimaryThread()) {
+                    rank = board.index.rankOf(player.getUniqueId());
+                } else {
+                    board.requestPlaceholderDepth(plugin.leaderboardPlaceholderDepth);
+                    rank = board.snapshot.get().rankOf(player.getUniqueId());
+                }
+                return rank > 0 ? String.valueOf(rank) : "-";
+            }
+            
+            if (!rest.startsWith("top_")) return null;
+            int nameEnd = rest.lastIndexOf('_');
+            String field = rest.substring(nameEnd + 1);
+            int place;
+            try {
+                place = Integer.parseInt(rest.substring("top_".length(), nameEnd));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                return null;
+            }
+            boolean isValue = field.equals(boardId.equals("balance") && split < 0 ? "balance" : "value");
+            if (place < 1 || (!isValue && !field.equals("name"))) return null;
+            if (board == null) {
+                // Balance without Vault reads as empty; other unknown prefixes aren't ours
+                return boardId.equals("balance") ? (isValue ? "0" : "") : null;
+            }
+            
+            board.requestPlaceholderDepth(place);
+            RankingSnapshot ranking = board.snapshot.get();
+            if (place > ranking.size()) {
+                return isValue ? "0" : "";
+            }
+            if (!isValue) {
+                String name = plugin.playerNames.nameOf(ranking.uuid(place - 1));
+                return name != null ? name : "Unknown";
+            }
+            double value = ranking.value(place - 1);
+            return board.type.equals("balance") ? formatBalance(value) : board.formatValue(value);
+        }
+        
         /**
          * Formats a balance value according to the specified rules:
          * - Under 1 million: Integer with commas (e.g., 12,375)